@@ -0,0 +1,97 @@
+package com.confiance.portfolio.benchmark;
+
+import com.confiance.common.enums.Market;
+import com.confiance.portfolio.entity.Trade;
+import com.confiance.portfolio.entity.UserHolding;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Fixtures shaped like production rows: prices at scale 2, quantities at scale 4, a mix of
+// open, partially sold and closed trades. Seeded so every run sees the same data.
+public final class BenchmarkData {
+
+    private static final String[] SYMBOLS = {"AAPL", "MSFT", "RELIANCE", "TCS", "INFY", "NVDA", "HDFCBANK", "AMZN"};
+    private static final Market[] MARKETS = Market.values();
+
+    private BenchmarkData() {
+    }
+
+    public static BigDecimal price(SplittableRandom random) {
+        return BigDecimal.valueOf(random.nextLong(100, 500_000), 2);
+    }
+
+    public static BigDecimal quantity(SplittableRandom random) {
+        return BigDecimal.valueOf(random.nextLong(1, 5_000_000), 4);
+    }
+
+    public static Trade trade(SplittableRandom random, long id) {
+        BigDecimal buyQuantity = quantity(random);
+        LocalDate buyDate = LocalDate.of(2024, 1, 1).plusDays(random.nextInt(600));
+        Trade trade = Trade.builder()
+                .id(id)
+                .userId(random.nextLong(1, 10_000))
+                .market(MARKETS[random.nextInt(MARKETS.length)])
+                .symbol(SYMBOLS[random.nextInt(SYMBOLS.length)])
+                .companyName("Benchmark Holdings Ltd")
+                .currency("USD")
+                .buyDate(buyDate)
+                .buyPrice(price(random))
+                .buyQuantity(buyQuantity)
+                .notes(random.nextInt(4) == 0 ? "rebalanced, see \"Q3\" note" : null)
+                .createdAt(buyDate.atTime(10, 15))
+                .updatedAt(LocalDateTime.of(2025, 9, 1, 12, 0))
+                .build();
+
+        switch (random.nextInt(3)) {
+            case 1 -> {
+                BigDecimal sold = buyQuantity.divide(BigDecimal.valueOf(2), 4, RoundingMode.HALF_UP);
+                trade.setSellDate(buyDate.plusDays(30));
+                trade.setSellPrice(price(random));
+                trade.setSellQuantity(sold);
+                trade.setRemainingQuantity(buyQuantity.subtract(sold));
+            }
+            case 2 -> {
+                trade.setSellDate(buyDate.plusDays(90));
+                trade.setSellPrice(price(random));
+                trade.setSellQuantity(buyQuantity);
+                trade.setRemainingQuantity(BigDecimal.ZERO.setScale(4));
+            }
+            default -> {
+                // still open
+            }
+        }
+        trade.calculateFields();
+        return trade;
+    }
+
+    public static List<Trade> trades(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Trade> trades = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            trades.add(trade(random, i + 1));
+        }
+        return trades;
+    }
+
+    public static UserHolding holding(SplittableRandom random, long id) {
+        UserHolding holding = UserHolding.builder()
+                .id(id)
+                .userId(random.nextLong(1, 10_000))
+                .market(MARKETS[random.nextInt(MARKETS.length)])
+                .symbol(SYMBOLS[random.nextInt(SYMBOLS.length)])
+                .currency("USD")
+                .quantity(quantity(random))
+                .averageBuyPrice(price(random))
+                .currentPrice(price(random))
+                .boughtOn(LocalDate.of(2024, 3, 1))
+                .build();
+        holding.calculateFields();
+        return holding;
+    }
+}
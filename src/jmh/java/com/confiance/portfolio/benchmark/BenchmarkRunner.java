@@ -0,0 +1,107 @@
+package com.confiance.portfolio.benchmark;
+
+import com.confiance.portfolio.service.HoldingContentionBenchmark;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Runs the benchmarks with the GC profiler (ns/op plus B/op as gc.alloc.rate.norm), writes the
+// JMH JSON to target/jmh-result.json and prints the change against src/jmh/baseline.json.
+// With -Djmh.update-baseline=true the new results become the baseline. Benchmarks that need a
+// database only run when -Djmh.db.url is set.
+public final class BenchmarkRunner {
+
+    private static final Path RESULT = Path.of("target", "jmh-result.json");
+    private static final Path BASELINE = Path.of("src", "jmh", "baseline.json");
+    private static final String ALLOC_METRIC = "gc.alloc.rate.norm";
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Files.createDirectories(RESULT.getParent());
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : ".*")
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(RESULT.toString());
+
+        String dbUrl = System.getProperty(HoldingContentionBenchmark.DB_URL_PROPERTY, "");
+        if (dbUrl.isBlank()) {
+            options.exclude(HoldingContentionBenchmark.class.getSimpleName());
+        } else {
+            options.jvmArgsAppend("-D" + HoldingContentionBenchmark.DB_URL_PROPERTY + "=" + dbUrl);
+        }
+        new Runner(options.build()).run();
+
+        if (Files.exists(BASELINE)) {
+            compare(read(BASELINE), read(RESULT));
+        } else {
+            System.out.println("No baseline at " + BASELINE + "; run with -Djmh.update-baseline=true to record one");
+        }
+
+        if (Boolean.getBoolean("jmh.update-baseline")) {
+            Files.copy(RESULT, BASELINE, StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("Baseline updated: " + BASELINE);
+        }
+    }
+
+    private record Score(double time, String unit, double allocBytes) {
+    }
+
+    // Keyed by benchmark name plus parameters, e.g. "...TradeMappingBenchmark.mapPage{pageSize=100}"
+    private static Map<String, Score> read(Path file) throws IOException {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file.toFile())) {
+            StringBuilder key = new StringBuilder(run.path("benchmark").asText());
+            JsonNode params = run.path("params");
+            if (!params.isMissingNode()) {
+                key.append(params);
+            }
+
+            double alloc = Double.NaN;
+            for (Iterator<Map.Entry<String, JsonNode>> it = run.path("secondaryMetrics").fields(); it.hasNext(); ) {
+                Map.Entry<String, JsonNode> metric = it.next();
+                // Older JMH versions prefix secondary metric names with a middle dot
+                if (metric.getKey().endsWith(ALLOC_METRIC)) {
+                    alloc = metric.getValue().path("score").asDouble();
+                }
+            }
+
+            JsonNode primary = run.path("primaryMetric");
+            scores.put(key.toString(), new Score(primary.path("score").asDouble(), primary.path("scoreUnit").asText(), alloc));
+        }
+        return scores;
+    }
+
+    private static void compare(Map<String, Score> baseline, Map<String, Score> current) {
+        System.out.println();
+        System.out.printf("%-90s %14s %9s %12s %9s%n", "Benchmark", "time", "Δtime", "B/op", "ΔB/op");
+        current.forEach((name, now) -> {
+            Score before = baseline.get(name);
+            System.out.printf("%-90s %10.3f %-3s %9s %12.1f %9s%n", name, now.time(), now.unit(),
+                    before != null ? delta(before.time(), now.time()) : "new",
+                    now.allocBytes(),
+                    before != null ? delta(before.allocBytes(), now.allocBytes()) : "new");
+        });
+    }
+
+    private static String delta(double before, double now) {
+        if (Double.isNaN(before) || Double.isNaN(now) || before == 0) {
+            return "n/a";
+        }
+        return String.format("%+.1f%%", (now - before) / before * 100);
+    }
+}
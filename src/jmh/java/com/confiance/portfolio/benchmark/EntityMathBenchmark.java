@@ -0,0 +1,84 @@
+package com.confiance.portfolio.benchmark;
+
+import com.confiance.portfolio.entity.Trade;
+import com.confiance.portfolio.entity.UserHolding;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// The per-row arithmetic run by the @PrePersist/@PreUpdate hooks and the holding buy path.
+// Rows are cycled through so the JIT cannot specialise on a single set of scales.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class EntityMathBenchmark {
+
+    private static final int ROWS = 1024;
+
+    private List<Trade> trades;
+    private UserHolding[] holdings;
+    private BigDecimal[] buyQuantities;
+    private BigDecimal[] buyPrices;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        trades = BenchmarkData.trades(ROWS, 42);
+        SplittableRandom random = new SplittableRandom(7);
+        holdings = new UserHolding[ROWS];
+        buyQuantities = new BigDecimal[ROWS];
+        buyPrices = new BigDecimal[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            holdings[i] = BenchmarkData.holding(random, i + 1);
+            buyQuantities[i] = BenchmarkData.quantity(random);
+            buyPrices[i] = BenchmarkData.price(random);
+        }
+    }
+
+    private int next() {
+        cursor = (cursor + 1) & (ROWS - 1);
+        return cursor;
+    }
+
+    @Benchmark
+    public Trade tradeCalculateFields() {
+        Trade trade = trades.get(next());
+        trade.calculateFields();
+        return trade;
+    }
+
+    @Benchmark
+    public UserHolding holdingCalculateFields() {
+        UserHolding holding = holdings[next()];
+        holding.calculateFields();
+        return holding;
+    }
+
+    // Starts from a copy so the position size stays representative across iterations
+    @Benchmark
+    public UserHolding holdingAddShares() {
+        int i = next();
+        UserHolding source = holdings[i];
+        UserHolding holding = UserHolding.builder()
+                .quantity(source.getQuantity())
+                .averageBuyPrice(source.getAverageBuyPrice())
+                .build();
+        holding.addShares(buyQuantities[i], buyPrices[i]);
+        return holding;
+    }
+}
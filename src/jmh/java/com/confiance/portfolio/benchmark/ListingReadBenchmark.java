@@ -0,0 +1,106 @@
+package com.confiance.portfolio.benchmark;
+
+import com.confiance.common.dto.PageResponse;
+import com.confiance.common.enums.Market;
+import com.confiance.portfolio.PortfolioServiceApplication;
+import com.confiance.portfolio.dto.TradeResponse;
+import com.confiance.portfolio.entity.Trade;
+import com.confiance.portfolio.repository.TradeRepository;
+import com.confiance.portfolio.service.TradeResponseMapper;
+import com.confiance.portfolio.service.TradeService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// A user's trade listing served two ways against in-memory H2 (MySQL mode), per page size:
+// entityPage is the old read path, managed Trade entities in a read-write transaction mapped
+// field by field; projectionPage is TradeService.getUserTrades, a read-only transaction selecting
+// straight into TradeResponse. B/op from the GC profiler is the allocation difference per call.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListingReadBenchmark {
+
+    private static final long USER_ID = 990_000_011L;
+    private static final Market MARKET = Market.values()[0];
+    private static final int TRADES = 1000;
+
+    @Param({"20", "100", "1000"})
+    private int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private TradeService tradeService;
+    private TradeRepository tradeRepository;
+    private TradeResponseMapper mapper;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup
+    public void setUp() {
+        // Passed as arguments because builder properties rank below application.yml
+        context = new SpringApplicationBuilder(PortfolioServiceApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:listing;MODE=MySQL;DATABASE_TO_LOWER=TRUE;"
+                        + "CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--portfolio.paging.max-size=" + TRADES,
+                "--portfolio.scheduling.enabled=false",
+                "--portfolio.admin-ids.source=stub",
+                "--eureka.client.enabled=false",
+                "--logging.level.root=WARN");
+        tradeService = context.getBean(TradeService.class);
+        tradeRepository = context.getBean(TradeRepository.class);
+        mapper = context.getBean(TradeResponseMapper.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+
+        List<Trade> trades = BenchmarkData.trades(TRADES, 11);
+        for (Trade trade : trades) {
+            trade.setId(null);
+            trade.setUserId(USER_ID);
+            trade.setMarket(MARKET);
+        }
+        tradeRepository.saveAll(trades);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public PageResponse<TradeResponse> entityPage() {
+        return transactionTemplate.execute(status -> {
+            Page<Trade> page = tradeRepository.findByUserIdAndMarket(USER_ID, MARKET,
+                    PageRequest.of(0, pageSize, Sort.by("buyDate").descending()));
+            return mapper.toPageResponse(page.map(mapper::toResponse));
+        });
+    }
+
+    @Benchmark
+    public PageResponse<TradeResponse> projectionPage() {
+        return tradeService.getUserTrades(USER_ID, 0, pageSize, "buyDate", "desc");
+    }
+}
@@ -0,0 +1,150 @@
+package com.confiance.portfolio.benchmark;
+
+import com.confiance.portfolio.util.PositionMath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// PositionMath against the BigDecimal expressions it replaced. Setup first checks that both
+// produce equal results (value and scale) over a wide spread of inputs, including odd scales,
+// negatives and magnitudes that force the BigDecimal fallback; a mismatch fails the run.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PositionMathBenchmark {
+
+    private static final int ROWS = 1024;
+    private static final int CHECKS = 50_000;
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private BigDecimal[] prices;
+    private BigDecimal[] quantities;
+    private BigDecimal[] otherPrices;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        verifyAgainstBigDecimal(new SplittableRandom(2024));
+
+        SplittableRandom random = new SplittableRandom(42);
+        prices = new BigDecimal[ROWS];
+        quantities = new BigDecimal[ROWS];
+        otherPrices = new BigDecimal[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            prices[i] = BenchmarkData.price(random);
+            quantities[i] = BenchmarkData.quantity(random);
+            otherPrices[i] = BenchmarkData.price(random);
+        }
+    }
+
+    private int next() {
+        cursor = (cursor + 1) & (ROWS - 1);
+        return cursor;
+    }
+
+    @Benchmark
+    public BigDecimal valueBigDecimal() {
+        int i = next();
+        return quantities[i].multiply(prices[i]).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    @Benchmark
+    public BigDecimal valueFixed() {
+        int i = next();
+        return PositionMath.value(quantities[i], prices[i]);
+    }
+
+    @Benchmark
+    public BigDecimal realizedReturnBigDecimal() {
+        int i = next();
+        BigDecimal costBasis = prices[i].multiply(quantities[i]);
+        BigDecimal profitLoss = otherPrices[i].multiply(quantities[i]).subtract(costBasis).setScale(2, RoundingMode.HALF_UP);
+        return profitLoss.divide(costBasis, 4, RoundingMode.HALF_UP).multiply(HUNDRED).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    @Benchmark
+    public BigDecimal realizedReturnFixed() {
+        int i = next();
+        BigDecimal profitLoss = PositionMath.realizedPL(otherPrices[i], prices[i], quantities[i]);
+        return PositionMath.returnOnCost(profitLoss, prices[i], quantities[i]);
+    }
+
+    @Benchmark
+    public BigDecimal averagePriceBigDecimal() {
+        int i = next();
+        int j = (i + 1) & (ROWS - 1);
+        return quantities[i].multiply(prices[i]).add(quantities[j].multiply(prices[j]))
+                .divide(quantities[i].add(quantities[j]), 2, RoundingMode.HALF_UP);
+    }
+
+    @Benchmark
+    public BigDecimal averagePriceFixed() {
+        int i = next();
+        int j = (i + 1) & (ROWS - 1);
+        return PositionMath.averagePrice(quantities[i], prices[i], quantities[j], prices[j]);
+    }
+
+    private static void verifyAgainstBigDecimal(SplittableRandom random) {
+        for (int n = 0; n < CHECKS; n++) {
+            BigDecimal a = anyDecimal(random);
+            BigDecimal b = anyDecimal(random);
+            BigDecimal c = anyDecimal(random);
+            BigDecimal d = anyDecimal(random);
+
+            check("value", a, b, PositionMath.value(a, b), a.multiply(b).setScale(2, RoundingMode.HALF_UP));
+            check("difference", a, b, PositionMath.difference(a, b), a.subtract(b).setScale(2, RoundingMode.HALF_UP));
+            check("realizedPL", a, b, PositionMath.realizedPL(a, b, c),
+                    a.multiply(c).subtract(b.multiply(c)).setScale(2, RoundingMode.HALF_UP));
+            if (b.signum() != 0) {
+                check("percentage", a, b, PositionMath.percentage(a, b),
+                        a.divide(b, 4, RoundingMode.HALF_UP).multiply(HUNDRED).setScale(2, RoundingMode.HALF_UP));
+            }
+            if (b.signum() != 0 && c.signum() != 0) {
+                check("returnOnCost", a, b, PositionMath.returnOnCost(a, b, c),
+                        a.divide(b.multiply(c), 4, RoundingMode.HALF_UP).multiply(HUNDRED).setScale(2, RoundingMode.HALF_UP));
+            }
+            if (a.add(c).signum() != 0) {
+                check("averagePrice", a, c, PositionMath.averagePrice(a, b, c, d),
+                        a.multiply(b).add(c.multiply(d)).divide(a.add(c), 2, RoundingMode.HALF_UP));
+            }
+        }
+    }
+
+    // Mostly column-shaped values, with some wider scales, negatives and very large magnitudes
+    private static BigDecimal anyDecimal(SplittableRandom random) {
+        int scale = switch (random.nextInt(8)) {
+            case 0 -> 0;
+            case 1 -> random.nextInt(5, 12);
+            case 2, 3, 4 -> 2;
+            default -> 4;
+        };
+        long unscaled = switch (random.nextInt(10)) {
+            case 0 -> random.nextLong(-1_000_000, 1_000_000);
+            case 1 -> random.nextLong(Long.MAX_VALUE / 4) * (random.nextBoolean() ? 1 : -1);
+            case 2 -> random.nextInt(-5, 6);
+            default -> random.nextLong(1, 50_000_000_000L);
+        };
+        return BigDecimal.valueOf(unscaled, scale);
+    }
+
+    private static void check(String formula, BigDecimal a, BigDecimal b, BigDecimal fixed, BigDecimal expected) {
+        if (!fixed.equals(expected)) {
+            throw new IllegalStateException(formula + "(" + a + ", " + b + ", ...) gave " + fixed + " but BigDecimal gives " + expected);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.confiance.portfolio.benchmark;
+
+import com.confiance.common.dto.ApiResponse;
+import com.confiance.common.dto.PageResponse;
+import com.confiance.portfolio.dto.TradeResponse;
+import com.confiance.portfolio.entity.Trade;
+import com.confiance.portfolio.service.TradeResponseMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Entity-to-response mapping and the JSON body of a trade listing, per page size, through the
+// same TradeResponseMapper the service uses
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class TradeMappingBenchmark {
+
+    @Param({"20", "100", "1000"})
+    private int pageSize;
+
+    private final TradeResponseMapper mapper = new TradeResponseMapper();
+
+    private List<Trade> trades;
+    private PageImpl<TradeResponse> responsePage;
+    private ApiResponse<PageResponse<TradeResponse>> body;
+    private ObjectWriter writer;
+
+    @Setup
+    public void setUp() {
+        trades = BenchmarkData.trades(pageSize, 42);
+        responsePage = toPage(trades.stream().map(mapper::toResponse).toList());
+        body = ApiResponse.success(mapper.toPageResponse(responsePage));
+        // Same modules and date handling as the ObjectMapper Spring Boot configures
+        writer = Jackson2ObjectMapperBuilder.json().build().writer();
+    }
+
+    private PageImpl<TradeResponse> toPage(List<TradeResponse> content) {
+        return new PageImpl<>(content, PageRequest.of(0, pageSize), pageSize * 50L);
+    }
+
+    @Benchmark
+    public PageResponse<TradeResponse> mapPage() {
+        return mapper.toPageResponse(toPage(trades.stream().map(mapper::toResponse).toList()));
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws Exception {
+        return writer.writeValueAsBytes(body);
+    }
+
+    @Benchmark
+    public byte[] mapAndSerializePage() throws Exception {
+        return writer.writeValueAsBytes(ApiResponse.success(mapPage()));
+    }
+}
@@ -0,0 +1,142 @@
+package com.confiance.portfolio.service;
+
+import com.confiance.common.enums.Market;
+import com.confiance.portfolio.PortfolioServiceApplication;
+import com.confiance.portfolio.entity.UserHolding;
+import com.confiance.portfolio.repository.UserHoldingRepository;
+import com.confiance.portfolio.util.PositionMath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// 64 writers on one (user, symbol) holding through the real service and a MySQL database given
+// with -Djmh.db.url (BenchmarkRunner skips this class without it). Each trial ends by checking
+// the stored quantity against the operations that succeeded; findThenSave is the old
+// read-modify-write path, kept to show the updates it loses rather than to be asserted on.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class HoldingContentionBenchmark {
+
+    public static final String DB_URL_PROPERTY = "jmh.db.url";
+
+    private static final long USER_ID = 990_000_001L;
+    private static final Market MARKET = Market.values()[0];
+    private static final String SYMBOL = "JMHCONTEND";
+    private static final BigDecimal PRICE = new BigDecimal("100.00");
+    private static final BigDecimal LOT = BigDecimal.ONE;
+    private static final BigDecimal SEED = new BigDecimal("1000000");
+
+    private ConfigurableApplicationContext context;
+    private UserHoldingService holdingService;
+    private UserHoldingRepository holdingRepository;
+    private TransactionTemplate transactionTemplate;
+
+    private final LongAdder bought = new LongAdder();
+    private final LongAdder sold = new LongAdder();
+
+    @Setup
+    public void setUp() {
+        // Passed as arguments because builder properties rank below application.yml
+        context = new SpringApplicationBuilder(PortfolioServiceApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=" + System.getProperty(DB_URL_PROPERTY),
+                "--spring.datasource.hikari.maximum-pool-size=64",
+                "--eureka.client.enabled=false",
+                "--logging.level.com.confiance.portfolio=WARN");
+        holdingService = context.getBean(UserHoldingService.class);
+        holdingRepository = context.getBean(UserHoldingRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+
+        transactionTemplate.executeWithoutResult(status -> holdingRepository
+                .findByUserIdAndSymbolAndMarket(USER_ID, SYMBOL, MARKET)
+                .ifPresent(holdingRepository::delete));
+        holdingService.addOrUpdateHolding(USER_ID, MARKET, SYMBOL, SEED, PRICE, null, null);
+    }
+
+    @TearDown
+    public void tearDown(BenchmarkParams params) {
+        try {
+            UserHolding holding = holdingRepository.findByUserIdAndSymbolAndMarket(USER_ID, SYMBOL, MARKET)
+                    .orElseThrow();
+            BigDecimal expected = SEED.add(BigDecimal.valueOf(bought.sum())).subtract(BigDecimal.valueOf(sold.sum()));
+            BigDecimal lost = expected.subtract(holding.getQuantity());
+            System.out.printf("%n%s: %d buys, %d sells, quantity %s, expected %s, lost %s%n",
+                    params.getBenchmark(), bought.sum(), sold.sum(),
+                    holding.getQuantity().stripTrailingZeros().toPlainString(),
+                    expected.toPlainString(), lost.stripTrailingZeros().toPlainString());
+
+            if (!params.getBenchmark().endsWith("findThenSave")) {
+                if (lost.signum() != 0) {
+                    throw new IllegalStateException("Lost " + lost + " shares under contention");
+                }
+                if (holding.getAverageBuyPrice().compareTo(PRICE) != 0
+                        || holding.getInvestedAmount().compareTo(PositionMath.value(holding.getQuantity(), PRICE)) != 0) {
+                    throw new IllegalStateException("Average price or invested amount drifted: " + holding);
+                }
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void upsertBuy() {
+        buy();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(32)
+    public void mixedBuy() {
+        buy();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(32)
+    public void mixedSell() {
+        holdingService.reduceHolding(USER_ID, MARKET, SYMBOL, LOT);
+        sold.increment();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void findThenSave() {
+        transactionTemplate.executeWithoutResult(status -> {
+            UserHolding holding = holdingRepository.findByUserIdAndSymbolAndMarket(USER_ID, SYMBOL, MARKET)
+                    .orElseThrow();
+            holding.addShares(LOT, PRICE);
+            holdingRepository.saveAndFlush(holding);
+        });
+        bought.increment();
+    }
+
+    private void buy() {
+        holdingService.addOrUpdateHolding(USER_ID, MARKET, SYMBOL, LOT, PRICE, null, null);
+        bought.increment();
+    }
+}
@@ -0,0 +1,138 @@
+package com.confiance.portfolio.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// With virtual threads Tomcat no longer caps concurrency at its worker pool, so every request
+// would go on to queue inside Hikari until connection-timeout. This caps requests in flight at
+// a multiple of the connection pool and turns the excess away quickly with a 503. An async
+// request, such as a streaming export, keeps its permit until the async processing completes.
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@RequiredArgsConstructor
+@Slf4j
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+
+    // The primary pool's configured size; 10 is Hikari's own default
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int poolSize;
+
+    // 0 sizes the limit from the Hikari pool
+    @Value("${portfolio.concurrency.max-in-flight:0}")
+    private int maxInFlight;
+
+    @Value("${portfolio.concurrency.pool-multiplier:2}")
+    private int poolMultiplier;
+
+    @Value("${portfolio.concurrency.acquire-timeout-ms:2000}")
+    private long acquireTimeoutMs;
+
+    private Semaphore permits;
+    private int limit;
+    private Counter rejectedCounter;
+
+    @PostConstruct
+    void init() {
+        limit = maxInFlight > 0 ? maxInFlight : poolSize * poolMultiplier;
+        permits = new Semaphore(limit, true);
+
+        rejectedCounter = Counter.builder("portfolio.requests.rejected")
+                .description("Requests turned away by the concurrency limit")
+                .register(meterRegistry);
+        Gauge.builder("portfolio.requests.in.flight", () -> limit - permits.availablePermits())
+                .register(meterRegistry);
+        log.info("Virtual-thread mode: limiting requests in flight to {}", limit);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+
+        if (!acquired) {
+            rejectedCounter.increment();
+            response.setHeader("Retry-After", "1");
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Too many concurrent requests");
+            return;
+        }
+
+        Permit permit = new Permit();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(permit);
+            } else {
+                permit.release();
+            }
+        }
+    }
+
+    // Released exactly once, whichever way the async request ends
+    private class Permit implements AsyncListener {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Re-register for the new cycle so the permit is still released when it completes
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.confiance.portfolio.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    // Backs the class-level @Timed on the services
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    // Per-user tags would create a series per user
+    @Bean
+    public MeterFilter ignoreUserTags() {
+        return MeterFilter.ignoreTags("userId", "user.id", "user_id");
+    }
+
+    // Unmatched paths (scans, 404s) fall back to raw URIs; stop adding series past a sane number of routes
+    @Bean
+    public MeterFilter limitUriTags() {
+        return MeterFilter.maximumAllowableTags("http.server.requests", "uri", 200, MeterFilter.deny());
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer statementInspector(SqlStatementCounter statementCounter) {
+        return properties -> properties.put("hibernate.session_factory.statement_inspector", statementCounter);
+    }
+}
@@ -0,0 +1,96 @@
+package com.confiance.portfolio.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Off by default. When enabled, @Transactional(readOnly = true) service methods read from the
+// replica pools and everything else, including non-transactional reads that feed the holdings
+// cache, stays on the primary. Each pool reports hikaricp.* metrics tagged with its name.
+@Configuration
+@ConditionalOnProperty(name = "portfolio.datasource.replicas.enabled", havingValue = "true")
+@Slf4j
+public class ReadReplicaConfig {
+
+    @Value("${portfolio.datasource.replicas.urls}")
+    private List<String> replicaUrls;
+
+    @Value("${portfolio.datasource.replicas.username:${spring.datasource.username}}")
+    private String replicaUsername;
+
+    @Value("${portfolio.datasource.replicas.password:${spring.datasource.password}}")
+    private String replicaPassword;
+
+    @Value("${portfolio.datasource.replicas.pool-size:${spring.datasource.hikari.maximum-pool-size:10}}")
+    private int replicaPoolSize;
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    // Declared as a bean so spring.datasource.hikari binds to it the way it would to Boot's own pool
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryPool(DataSourceProperties properties, MeterRegistry meterRegistry) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName(ReplicaRoutingDataSource.PRIMARY);
+        primary.setMetricRegistry(meterRegistry);
+        return primary;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primary, ReplicaPinning pinning, MeterRegistry meterRegistry,
+                                 Environment environment) {
+        Binder binder = Binder.get(environment);
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(ReplicaRoutingDataSource.PRIMARY, primary);
+        List<String> replicaNames = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            String name = "replica-" + i;
+            // The shared spring.datasource.hikari settings first, then what differs per replica
+            HikariDataSource replica = new HikariDataSource();
+            binder.bind("spring.datasource.hikari", Bindable.ofInstance(replica));
+            replica.setPoolName(name);
+            replica.setJdbcUrl(replicaUrls.get(i).trim());
+            replica.setUsername(replicaUsername);
+            replica.setPassword(replicaPassword);
+            replica.setMaximumPoolSize(replicaPoolSize);
+            replica.setReadOnly(true);
+            replica.setMetricRegistry(meterRegistry);
+            pools.add(replica);
+            targets.put(name, replica);
+            replicaNames.add(name);
+        }
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(replicaNames, pinning, meterRegistry);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+        log.info("Routing read-only transactions to {} replica pool(s)", replicaNames.size());
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    // The proxy returned as the bean is not closeable, so the replica pools are closed here
+    @PreDestroy
+    void closePools() {
+        pools.forEach(HikariDataSource::close);
+    }
+}
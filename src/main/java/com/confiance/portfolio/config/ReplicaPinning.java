@@ -0,0 +1,73 @@
+package com.confiance.portfolio.config;
+
+import com.confiance.portfolio.service.HoldingChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+
+// Read-your-writes for replica routing: a user who wrote within pin-ms has their reads sent to
+// the primary, so a replica that has not caught up cannot hide the write. Tracked per instance,
+// which covers a client that stays on one instance for its write and the reads that follow.
+@Component
+@ConditionalOnProperty(name = "portfolio.datasource.replicas.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ReplicaPinning {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${portfolio.datasource.replicas.pin-ms:5000}")
+    private long pinMs;
+
+    @Value("${portfolio.datasource.replicas.max-pinned-users:100000}")
+    private long maxPinnedUsers;
+
+    private Cache<Long, Boolean> recentWriters;
+    private Counter pinnedRequests;
+    private final ThreadLocal<Boolean> currentRequestPinned = new ThreadLocal<>();
+
+    @PostConstruct
+    void init() {
+        recentWriters = Caffeine.newBuilder()
+                .maximumSize(maxPinnedUsers)
+                .expireAfterWrite(Duration.ofMillis(pinMs))
+                .build();
+        pinnedRequests = Counter.builder("portfolio.datasource.pinned.requests")
+                .description("Requests kept on the primary because the user wrote recently")
+                .register(meterRegistry);
+    }
+
+    public void recordWrite(Long userId) {
+        recentWriters.put(userId, Boolean.TRUE);
+    }
+
+    // Also covers writes that do not come through a user's request, such as imports and reconciliation fixes
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onHoldingChanged(HoldingChangedEvent event) {
+        recordWrite(event.userId());
+    }
+
+    public void beginRequest(Long userId) {
+        if (recentWriters.getIfPresent(userId) != null) {
+            currentRequestPinned.set(Boolean.TRUE);
+            pinnedRequests.increment();
+        }
+    }
+
+    public void endRequest() {
+        currentRequestPinned.remove();
+    }
+
+    public boolean isCurrentRequestPinned() {
+        return currentRequestPinned.get() != null;
+    }
+}
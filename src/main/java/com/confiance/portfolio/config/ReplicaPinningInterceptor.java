@@ -0,0 +1,78 @@
+package com.confiance.portfolio.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.Map;
+
+// Applies ReplicaPinning to requests addressed to a user through a {userId} path variable.
+// A write is recorded both before it runs and after it completes, so reads issued while it
+// commits are pinned too and the window starts from the commit.
+@Component
+@ConditionalOnProperty(name = "portfolio.datasource.replicas.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ReplicaPinningInterceptor implements AsyncHandlerInterceptor, WebMvcConfigurer {
+
+    private final ReplicaPinning pinning;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(this).addPathPatterns("/api/**");
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Long userId = userIdOf(request);
+        if (userId != null) {
+            if (isWrite(request)) {
+                pinning.recordWrite(userId);
+            }
+            pinning.beginRequest(userId);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Long userId = userIdOf(request);
+        if (userId != null && isWrite(request)) {
+            pinning.recordWrite(userId);
+        }
+        pinning.endRequest();
+    }
+
+    // Async requests (exports) leave this thread before afterCompletion
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        pinning.endRequest();
+    }
+
+    private static boolean isWrite(HttpServletRequest request) {
+        return !HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Long userIdOf(HttpServletRequest request) {
+        Object variables = request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (!(variables instanceof Map)) {
+            return null;
+        }
+        String userId = ((Map<String, String>) variables).get("userId");
+        if (userId == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(userId);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.confiance.portfolio.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Sends connections taken inside a read-only transaction to the replicas in turn and everything
+// else to the primary. Only correct behind a LazyConnectionDataSourceProxy: the read-only flag is
+// set after the transaction manager asks for its connection, so the real one must be fetched late.
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+
+    private final List<String> replicas;
+    private final ReplicaPinning pinning;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Map<String, Counter> routed;
+
+    public ReplicaRoutingDataSource(List<String> replicas, ReplicaPinning pinning, MeterRegistry meterRegistry) {
+        this.replicas = replicas;
+        this.pinning = pinning;
+        this.routed = Stream.concat(Stream.of(PRIMARY), replicas.stream())
+                .collect(Collectors.toMap(Function.identity(), pool -> Counter.builder("portfolio.datasource.routed")
+                        .description("Connections handed out per pool")
+                        .tag("pool", pool)
+                        .register(meterRegistry)));
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String pool = PRIMARY;
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !replicas.isEmpty()
+                && !pinning.isCurrentRequestPinned()) {
+            pool = replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+        }
+        routed.get(pool).increment();
+        return pool;
+    }
+}
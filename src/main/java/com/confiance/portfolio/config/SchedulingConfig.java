@@ -0,0 +1,12 @@
+package com.confiance.portfolio.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Off in the test suite, so background flushes do not add statements to the calls it measures
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(prefix = "portfolio.scheduling", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfig {
+}
@@ -0,0 +1,111 @@
+package com.confiance.portfolio.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
+
+// Counts the SQL Hibernate prepares, in total by statement type and per scope opened on the
+// current thread. Scopes nest, and an outer scope also counts its inner scopes' statements.
+// Only the statement type is looked at here; the test suite's budget guard passes a listener
+// to see the SQL itself. JdbcTemplate statements do not pass through here.
+@Component
+@RequiredArgsConstructor
+public class SqlStatementCounter implements StatementInspector {
+
+    private final MeterRegistry meterRegistry;
+
+    // Unset on threads with no open scope, so statements outside a scope cost one lookup
+    private final ThreadLocal<Deque<Scope>> scopes = new ThreadLocal<>();
+
+    private Counter selects;
+    private Counter inserts;
+    private Counter updates;
+    private Counter deletes;
+    private Counter others;
+
+    @PostConstruct
+    void init() {
+        selects = counter("select");
+        inserts = counter("insert");
+        updates = counter("update");
+        deletes = counter("delete");
+        others = counter("other");
+    }
+
+    private Counter counter(String type) {
+        return Counter.builder("portfolio.sql.statements").tag("type", type).register(meterRegistry);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Deque<Scope> open = scopes.get();
+        if (open != null) {
+            for (Scope scope : open) {
+                scope.statements++;
+                if (scope.listener != null) scope.listener.accept(sql);
+            }
+        }
+        typeOf(sql).increment();
+        return sql;
+    }
+
+    private Counter typeOf(String sql) {
+        int start = 0;
+        while (start < sql.length() && Character.isWhitespace(sql.charAt(start))) {
+            start++;
+        }
+        if (sql.regionMatches(true, start, "select", 0, 6)) return selects;
+        if (sql.regionMatches(true, start, "insert", 0, 6)) return inserts;
+        if (sql.regionMatches(true, start, "update", 0, 6)) return updates;
+        if (sql.regionMatches(true, start, "delete", 0, 6)) return deletes;
+        return others;
+    }
+
+    public Scope open() {
+        return open(null);
+    }
+
+    // The listener sees each statement's SQL while the scope is open
+    public Scope open(Consumer<String> listener) {
+        Deque<Scope> open = scopes.get();
+        if (open == null) {
+            open = new ArrayDeque<>();
+            scopes.set(open);
+        }
+        Scope scope = new Scope(listener);
+        open.push(scope);
+        return scope;
+    }
+
+    public class Scope implements AutoCloseable {
+        private final Consumer<String> listener;
+        private long statements;
+
+        private Scope(Consumer<String> listener) {
+            this.listener = listener;
+        }
+
+        public long statements() {
+            return statements;
+        }
+
+        @Override
+        public void close() {
+            Deque<Scope> open = scopes.get();
+            if (open == null) {
+                return;
+            }
+            open.remove(this);
+            if (open.isEmpty()) {
+                scopes.remove();
+            }
+        }
+    }
+}
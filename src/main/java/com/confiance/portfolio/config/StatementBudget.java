@@ -0,0 +1,19 @@
+package com.confiance.portfolio.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Most SQL statements a service method may issue. Checked by the test suite (StatementBudgetTest),
+// which fails the build on a method over budget or on an unbounded scan of trades or
+// user_holdings; methods that scan on purpose (admin listings, full counts) say so with
+// allowUnbounded. Nothing reads it in production.
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface StatementBudget {
+
+    int value();
+
+    boolean allowUnbounded() default false;
+}
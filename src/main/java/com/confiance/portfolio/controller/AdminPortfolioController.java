@@ -1,15 +1,37 @@
 package com.confiance.portfolio.controller;
 
 import com.confiance.common.dto.ApiResponse;
+import com.confiance.common.dto.PageResponse;
+import com.confiance.portfolio.dto.ClientPLSummary;
+import com.confiance.portfolio.dto.CursorPage;
+import com.confiance.portfolio.dto.HoldingMismatchResponse;
+import com.confiance.portfolio.dto.ReconciliationRunResponse;
+import com.confiance.portfolio.dto.SnapshotRunResponse;
+import com.confiance.portfolio.dto.TradePartitionStatus;
+import com.confiance.portfolio.entity.Portfolio;
+import com.confiance.portfolio.entity.ReconciliationRun;
+import com.confiance.portfolio.service.ClientSummaryService;
+import com.confiance.portfolio.service.HoldingReconciler;
+import com.confiance.portfolio.service.PortfolioAggregateService;
+import com.confiance.portfolio.service.PortfolioSnapshotService;
+import com.confiance.portfolio.service.SymbolExposureService;
+import com.confiance.portfolio.service.TradePartitionMigrator;
 import com.confiance.portfolio.service.TradeService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/v1/admin/portfolio")
 @RequiredArgsConstructor
@@ -17,6 +39,12 @@ import org.springframework.web.bind.annotation.RestController;
 public class AdminPortfolioController {
 
     private final TradeService tradeService;
+    private final PortfolioSnapshotService snapshotService;
+    private final PortfolioAggregateService aggregateService;
+    private final ClientSummaryService clientSummaryService;
+    private final TradePartitionMigrator partitionMigrator;
+    private final HoldingReconciler reconciler;
+    private final SymbolExposureService exposureService;
 
     @GetMapping("/stats")
     @Operation(summary = "Get Portfolio Stats", description = "Get aggregated portfolio statistics for admin dashboard")
@@ -24,4 +52,115 @@ public class AdminPortfolioController {
         TradeService.PortfolioStats stats = tradeService.getPortfolioStats();
         return ResponseEntity.ok(ApiResponse.success(stats));
     }
+
+    @GetMapping("/client-summaries")
+    @Operation(summary = "Get Client Summaries", description = "P&L and holding summaries for a page of users with holdings")
+    public ResponseEntity<ApiResponse<CursorPage<ClientPLSummary>>> getClientSummaries(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size,
+            @RequestParam(defaultValue = "false") boolean includeHoldings) {
+        return ResponseEntity.ok(ApiResponse.success(clientSummaryService.getSummariesPage(cursor, size, includeHoldings)));
+    }
+
+    @PostMapping("/client-summaries")
+    @Operation(summary = "Get Client Summaries by Id", description = "P&L and holding summaries for the given user IDs")
+    public ResponseEntity<ApiResponse<List<ClientPLSummary>>> getClientSummariesByUser(
+            @RequestBody List<Long> userIds,
+            @RequestParam(defaultValue = "false") boolean includeHoldings) {
+        return ResponseEntity.ok(ApiResponse.success(clientSummaryService.getSummaries(userIds, includeHoldings)));
+    }
+
+    @PostMapping("/stats/rebuild")
+    @Operation(summary = "Rebuild Portfolio Stats", description = "Recompute the dashboard counters from the trades table")
+    public ResponseEntity<ApiResponse<TradeService.PortfolioStats>> rebuildPortfolioStats() {
+        TradeService.PortfolioStats stats = tradeService.rebuildPortfolioStats();
+        return ResponseEntity.ok(ApiResponse.success("Portfolio stats rebuilt successfully", stats));
+    }
+
+    @GetMapping("/trades/partitioning")
+    @Operation(summary = "Get Trades Partitioning", description = "Partition layout of the trades table and migration progress")
+    public ResponseEntity<ApiResponse<TradePartitionStatus>> getPartitionStatus() {
+        return ResponseEntity.ok(ApiResponse.success(partitionMigrator.getStatus()));
+    }
+
+    @PostMapping("/trades/partitioning/migrate")
+    @Operation(summary = "Partition Trades", description = "Start the online move of trades to a buy-date partitioned table")
+    public ResponseEntity<ApiResponse<TradePartitionStatus>> startPartitionMigration() {
+        TradePartitionStatus status = partitionMigrator.start();
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success("Partition migration started", status));
+    }
+
+    @PostMapping("/trades/partitioning/cancel")
+    @Operation(summary = "Cancel Trades Partitioning", description = "Stop the row copy after the current chunk and drop the copy and its triggers")
+    public ResponseEntity<ApiResponse<TradePartitionStatus>> cancelPartitionMigration() {
+        TradePartitionStatus status = partitionMigrator.cancel();
+        return ResponseEntity.ok(ApiResponse.success("Partition migration cancel requested", status));
+    }
+
+    @GetMapping("/holdings/reconcile")
+    @Operation(summary = "Get Holdings Reconciliation", description = "Progress of the latest holdings reconciliation run")
+    public ResponseEntity<ApiResponse<ReconciliationRunResponse>> getReconciliationStatus() {
+        return ResponseEntity.ok(ApiResponse.success(reconciler.getStatus()));
+    }
+
+    @PostMapping("/holdings/reconcile")
+    @Operation(summary = "Reconcile Holdings", description = "Rebuild holdings from the trade log and report or fix mismatches")
+    public ResponseEntity<ApiResponse<ReconciliationRunResponse>> startReconciliation(
+            @RequestParam(defaultValue = "REPORT") ReconciliationRun.Mode mode,
+            @RequestParam(defaultValue = "false") boolean resume) {
+        ReconciliationRunResponse run = reconciler.start(mode, resume);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success("Holdings reconciliation started", run));
+    }
+
+    @PostMapping("/holdings/reconcile/cancel")
+    @Operation(summary = "Cancel Holdings Reconciliation", description = "Stop after the current shard; start with resume=true continues it")
+    public ResponseEntity<ApiResponse<ReconciliationRunResponse>> cancelReconciliation() {
+        ReconciliationRunResponse run = reconciler.cancel();
+        return ResponseEntity.ok(ApiResponse.success("Holdings reconciliation cancel requested", run));
+    }
+
+    @GetMapping("/holdings/reconcile/{runId}/mismatches")
+    @Operation(summary = "Get Reconciliation Mismatches", description = "Mismatches recorded by a reconciliation run")
+    public ResponseEntity<ApiResponse<PageResponse<HoldingMismatchResponse>>> getReconciliationMismatches(
+            @PathVariable Long runId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(ApiResponse.success(reconciler.getMismatches(runId, page, size)));
+    }
+
+    @GetMapping("/snapshots/run")
+    @Operation(summary = "Get Portfolio Snapshot Run", description = "Progress of the latest portfolio snapshot run")
+    public ResponseEntity<ApiResponse<SnapshotRunResponse>> getSnapshotRun() {
+        return ResponseEntity.ok(ApiResponse.success(snapshotService.getRunStatus()));
+    }
+
+    @PostMapping("/snapshots/run")
+    @Operation(summary = "Take Portfolio Snapshots", description = "Write today's portfolio value snapshot for every user in the background")
+    public ResponseEntity<ApiResponse<SnapshotRunResponse>> takeSnapshots() {
+        SnapshotRunResponse run = snapshotService.startSnapshots();
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success("Portfolio snapshots started", run));
+    }
+
+    @PostMapping("/portfolios/recompute")
+    @Operation(summary = "Recompute Portfolios", description = "Rebuild every portfolio total from holdings and the latest quotes")
+    public ResponseEntity<ApiResponse<Long>> recomputePortfolios() {
+        long users = aggregateService.recomputeAllNow();
+        return ResponseEntity.ok(ApiResponse.success("Portfolios recomputed", users));
+    }
+
+    @PostMapping("/portfolios/{userId}/recompute")
+    @Operation(summary = "Recompute Portfolio", description = "Rebuild one user's portfolio total from holdings and the latest quotes")
+    public ResponseEntity<ApiResponse<Portfolio>> recomputePortfolio(@PathVariable Long userId) {
+        return ResponseEntity.ok(ApiResponse.success("Portfolio recomputed", aggregateService.recompute(userId)));
+    }
+
+    @PostMapping("/exposures/rebuild")
+    @Operation(summary = "Rebuild Symbol Exposures", description = "Recompute the per-symbol exposure totals from holdings")
+    public ResponseEntity<ApiResponse<Long>> rebuildExposures() {
+        long symbols = exposureService.rebuild();
+        return ResponseEntity.ok(ApiResponse.success("Symbol exposures rebuilt", symbols));
+    }
 }
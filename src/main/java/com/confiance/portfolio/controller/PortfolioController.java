@@ -1,27 +1,37 @@
 package com.confiance.portfolio.controller;
 
 import com.confiance.common.dto.ApiResponse;
+import com.confiance.portfolio.dto.PortfolioHistoryResponse;
 import com.confiance.portfolio.entity.Portfolio;
-import com.confiance.portfolio.repository.PortfolioRepository;
+import com.confiance.portfolio.service.PortfolioAggregateService;
+import com.confiance.portfolio.service.PortfolioSnapshotService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+
 @RestController
 @RequestMapping("/api/v1/portfolio")
 @RequiredArgsConstructor
 public class PortfolioController {
 
-    private final PortfolioRepository repository;
+    private final PortfolioAggregateService aggregateService;
+    private final PortfolioSnapshotService snapshotService;
 
     @GetMapping("/user/{userId}")
     public ResponseEntity<ApiResponse<Portfolio>> getUserPortfolio(@PathVariable("userId") Long userId) {
-        return repository.findByUserId(userId)
-                .map(portfolio -> ResponseEntity.ok(ApiResponse.success(portfolio)))
-                .orElseGet(() -> {
-                    Portfolio newPortfolio = Portfolio.builder().userId(userId).build();
-                    Portfolio saved = repository.save(newPortfolio);
-                    return ResponseEntity.ok(ApiResponse.success(saved));
-                });
+        return ResponseEntity.ok(ApiResponse.success(aggregateService.getPortfolio(userId)));
+    }
+
+    // Defaults to the last year; the interval is picked from the range length unless given
+    @GetMapping("/user/{userId}/history")
+    public ResponseEntity<ApiResponse<PortfolioHistoryResponse>> getPortfolioHistory(
+            @PathVariable("userId") Long userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) PortfolioHistoryResponse.Interval interval) {
+        return ResponseEntity.ok(ApiResponse.success(snapshotService.getHistory(userId, from, to, interval)));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,52 @@
+package com.confiance.portfolio.controller;
+
+import com.confiance.common.dto.ApiResponse;
+import com.confiance.common.enums.Market;
+import com.confiance.common.exception.ResourceNotFoundException;
+import com.confiance.portfolio.dto.PriceIngestionResult;
+import com.confiance.portfolio.dto.PriceTickRequest;
+import com.confiance.portfolio.dto.QuoteResponse;
+import com.confiance.portfolio.service.PriceIngestionService;
+import com.confiance.portfolio.service.QuoteStore;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/prices")
+@RequiredArgsConstructor
+@Tag(name = "Prices", description = "Market Price Ingestion APIs")
+public class PriceController {
+
+    private final PriceIngestionService priceIngestionService;
+    private final QuoteStore quoteStore;
+
+    @PostMapping("/ticks")
+    @Operation(summary = "Ingest Price Ticks", description = "Apply a batch of (market, symbol, price) ticks to every affected holding")
+    public ResponseEntity<ApiResponse<PriceIngestionResult>> ingestTicks(@Valid @RequestBody PriceTickRequest request) {
+        PriceIngestionResult response = priceIngestionService.ingest(request.getTicks());
+        return ResponseEntity.ok(ApiResponse.success("Prices applied successfully", response));
+    }
+
+    @GetMapping("/quotes")
+    @Operation(summary = "Get Quotes", description = "Get every quote held in memory with its age and staleness")
+    public ResponseEntity<ApiResponse<List<QuoteResponse>>> getQuotes() {
+        return ResponseEntity.ok(ApiResponse.success(quoteStore.getAll()));
+    }
+
+    @GetMapping("/quotes/{market}/{symbol}")
+    @Operation(summary = "Get Quote", description = "Get the latest quote for a symbol")
+    public ResponseEntity<ApiResponse<QuoteResponse>> getQuote(
+            @PathVariable Market market,
+            @PathVariable String symbol) {
+        QuoteResponse response = quoteStore.get(market, symbol)
+                .map(quoteStore::toResponse)
+                .orElseThrow(() -> new ResourceNotFoundException("Quote", "symbol", symbol));
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+}
@@ -4,20 +4,34 @@ import com.confiance.common.dto.ApiResponse;
 import com.confiance.common.dto.PageResponse;
 import com.confiance.common.enums.Market;
 import com.confiance.common.enums.TradeStatus;
+import com.confiance.portfolio.dto.CursorPage;
+import com.confiance.portfolio.dto.PositionSellRequest;
+import com.confiance.portfolio.dto.PositionSellResult;
+import com.confiance.portfolio.dto.RealizedPositionResponse;
+import com.confiance.portfolio.dto.SellAllocationResponse;
 import com.confiance.portfolio.dto.SellTradeRequest;
+import com.confiance.portfolio.dto.TradeFileFormat;
+import com.confiance.portfolio.dto.TradeImportResult;
 import com.confiance.portfolio.dto.TradeRequest;
 import com.confiance.portfolio.dto.TradeResponse;
+import com.confiance.portfolio.service.TradeExportService;
 import com.confiance.portfolio.service.TradeService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDate;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1/trades")
@@ -37,6 +51,16 @@ public class TradeController {
                 .body(ApiResponse.success("Trade recorded successfully", response));
     }
 
+    @PostMapping(value = "/user/{userId}/import", consumes = {"text/csv", "application/x-ndjson"})
+    @Operation(summary = "Import Trades", description = "Bulk import trades from a streamed CSV (with header row) or NDJSON body")
+    public ResponseEntity<ApiResponse<TradeImportResult>> importTrades(
+            @PathVariable Long userId,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) throws IOException {
+        TradeImportResult response = tradeService.importTrades(userId, TradeFileFormat.fromContentType(contentType), body);
+        return ResponseEntity.ok(ApiResponse.success("Trades imported", response));
+    }
+
     @PutMapping("/{tradeId}/user/{userId}")
     @Operation(summary = "Update Trade", description = "Update an existing trade")
     public ResponseEntity<ApiResponse<TradeResponse>> updateTrade(
@@ -57,6 +81,24 @@ public class TradeController {
         return ResponseEntity.ok(ApiResponse.success("Sell recorded successfully", response));
     }
 
+    @PostMapping("/user/{userId}/sell")
+    @Operation(summary = "Sell Position", description = "Sell shares of a symbol across open buy trades, oldest first (FIFO)")
+    public ResponseEntity<ApiResponse<PositionSellResult>> sellPosition(
+            @PathVariable Long userId,
+            @Valid @RequestBody PositionSellRequest request) {
+        PositionSellResult response = tradeService.sellPosition(userId, request);
+        return ResponseEntity.ok(ApiResponse.success("Sell recorded successfully", response));
+    }
+
+    @GetMapping("/{tradeId}/user/{userId}/allocations")
+    @Operation(summary = "Get Sell Allocations", description = "Get the sells matched against a buy trade")
+    public ResponseEntity<ApiResponse<List<SellAllocationResponse>>> getSellAllocations(
+            @PathVariable Long tradeId,
+            @PathVariable Long userId) {
+        List<SellAllocationResponse> response = tradeService.getSellAllocations(userId, tradeId);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
     @GetMapping("/{tradeId}/user/{userId}")
     @Operation(summary = "Get Trade", description = "Get trade by ID")
     public ResponseEntity<ApiResponse<TradeResponse>> getTrade(
@@ -78,15 +120,29 @@ public class TradeController {
         return ResponseEntity.ok(ApiResponse.success(response));
     }
 
+    @GetMapping("/user/{userId}/cursor")
+    @Operation(summary = "Get User Trades (Cursor)", description = "Keyset-paginated trades for a user, newest buy date first")
+    public ResponseEntity<ApiResponse<CursorPage<TradeResponse>>> getUserTradesByCursor(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        CursorPage<TradeResponse> response = tradeService.getUserTradesByCursor(userId, cursor, size, includeTotal);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
     @GetMapping("/user/{userId}/filter")
-    @Operation(summary = "Get Trades with Filters", description = "Get trades filtered by market and status")
+    @Operation(summary = "Get Trades with Filters", description = "Get trades filtered by market, status and buy date range")
     public ResponseEntity<ApiResponse<PageResponse<TradeResponse>>> getTradesWithFilters(
             @PathVariable Long userId,
             @RequestParam(required = false) Market market,
             @RequestParam(required = false) TradeStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
-        PageResponse<TradeResponse> response = tradeService.getUserTradesWithFilters(userId, market, status, page, size);
+        PageResponse<TradeResponse> response = tradeService.getUserTradesWithFilters(userId, market, status,
+                startDate, endDate, page, size);
         return ResponseEntity.ok(ApiResponse.success(response));
     }
 
@@ -120,6 +176,23 @@ public class TradeController {
         return ResponseEntity.ok(ApiResponse.success(summary));
     }
 
+    @GetMapping("/user/{userId}/realized")
+    @Operation(summary = "Get Realized P&L", description = "Get realized profit/loss per symbol for a user")
+    public ResponseEntity<ApiResponse<List<RealizedPositionResponse>>> getRealizedPositions(@PathVariable Long userId) {
+        List<RealizedPositionResponse> response = tradeService.getRealizedPositions(userId);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
+    @GetMapping("/user/{userId}/realized/{market}/{symbol}")
+    @Operation(summary = "Get Realized P&L for Symbol", description = "Get realized profit/loss for one symbol")
+    public ResponseEntity<ApiResponse<RealizedPositionResponse>> getRealizedPosition(
+            @PathVariable Long userId,
+            @PathVariable Market market,
+            @PathVariable String symbol) {
+        RealizedPositionResponse response = tradeService.getRealizedPosition(userId, market, symbol);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
     // Admin endpoints
     @GetMapping("/admin/all")
     @Operation(summary = "Get All Trades (Admin)", description = "Get all trades across all users")
@@ -130,6 +203,55 @@ public class TradeController {
         return ResponseEntity.ok(ApiResponse.success(response));
     }
 
+    @GetMapping("/admin/all/cursor")
+    @Operation(summary = "Get All Trades (Admin, Cursor)", description = "Keyset-paginated trades across all users, newest first")
+    public ResponseEntity<ApiResponse<CursorPage<TradeResponse>>> getAllTradesByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        CursorPage<TradeResponse> response = tradeService.getAllTradesByCursor(cursor, size, includeTotal);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
+    @GetMapping("/user/{userId}/export")
+    @Operation(summary = "Export User Trades", description = "Stream a user's trades as NDJSON or CSV, optionally gzip-compressed")
+    public ResponseEntity<StreamingResponseBody> exportUserTrades(
+            @PathVariable Long userId,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) Market market,
+            @RequestParam(required = false) TradeStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        return export(new TradeExportService.ExportFilter(userId, market, status, startDate, endDate),
+                TradeFileFormat.fromName(format), gzip, "trades-user-" + userId);
+    }
+
+    @GetMapping("/admin/export")
+    @Operation(summary = "Export All Trades (Admin)", description = "Stream trades across all users as NDJSON or CSV, optionally gzip-compressed")
+    public ResponseEntity<StreamingResponseBody> exportAllTrades(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) Market market,
+            @RequestParam(required = false) TradeStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        return export(new TradeExportService.ExportFilter(null, market, status, startDate, endDate),
+                TradeFileFormat.fromName(format), gzip, "trades-all");
+    }
+
+    private ResponseEntity<StreamingResponseBody> export(TradeExportService.ExportFilter filter,
+                                                         TradeFileFormat format, boolean gzip, String fileName) {
+        // A gzip export is a .gz file, not an encoded response, so clients save it as it was sent
+        String extension = format == TradeFileFormat.CSV ? ".csv" : ".ndjson";
+        return ResponseEntity.ok()
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip")
+                        : MediaType.parseMediaType(format.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + extension
+                        + (gzip ? ".gz" : "") + "\"")
+                .body(out -> tradeService.exportTrades(filter, format, gzip, out));
+    }
+
     @DeleteMapping("/{tradeId}/user/{userId}")
     @Operation(summary = "Delete Trade", description = "Delete a trade")
     public ResponseEntity<ApiResponse<Void>> deleteTrade(
@@ -3,8 +3,11 @@ package com.confiance.portfolio.controller;
 import com.confiance.common.dto.ApiResponse;
 import com.confiance.common.dto.PageResponse;
 import com.confiance.common.enums.Market;
+import com.confiance.portfolio.dto.CursorPage;
 import com.confiance.portfolio.dto.HoldingSummary;
+import com.confiance.portfolio.dto.SymbolExposureResponse;
 import com.confiance.portfolio.dto.UserHoldingResponse;
+import com.confiance.portfolio.service.SymbolExposureService;
 import com.confiance.portfolio.service.UserHoldingService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -21,6 +24,7 @@ import java.util.List;
 public class UserHoldingController {
 
     private final UserHoldingService holdingService;
+    private final SymbolExposureService exposureService;
 
     @GetMapping("/user/{userId}")
     @Operation(summary = "Get User Holdings", description = "Get all holdings for a user")
@@ -39,6 +43,17 @@ public class UserHoldingController {
         return ResponseEntity.ok(ApiResponse.success(response));
     }
 
+    @GetMapping("/user/{userId}/cursor")
+    @Operation(summary = "Get User Holdings (Cursor)", description = "Keyset-paginated holdings for a user, largest investment first")
+    public ResponseEntity<ApiResponse<CursorPage<UserHoldingResponse>>> getUserHoldingsByCursor(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        CursorPage<UserHoldingResponse> response = holdingService.getUserHoldingsByCursor(userId, cursor, size, includeTotal);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
     @GetMapping("/user/{userId}/market/{market}")
     @Operation(summary = "Get Holdings by Market", description = "Get holdings for a user filtered by market")
     public ResponseEntity<ApiResponse<List<UserHoldingResponse>>> getUserHoldingsByMarket(
@@ -73,6 +88,25 @@ public class UserHoldingController {
         return ResponseEntity.ok(ApiResponse.success(response));
     }
 
+    // Bounded alternative to the endpoint above: per-market totals plus the largest holders
+    @GetMapping("/admin/symbol/{symbol}/exposure")
+    @Operation(summary = "Get Symbol Exposure (Admin)", description = "Per-market totals and largest holders for a specific symbol")
+    public ResponseEntity<ApiResponse<List<SymbolExposureResponse>>> getSymbolExposure(
+            @PathVariable String symbol,
+            @RequestParam(required = false) Integer top) {
+        List<SymbolExposureResponse> response = exposureService.getExposuresBySymbol(symbol, top);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
+    @GetMapping("/admin/exposures/top")
+    @Operation(summary = "Get Top Exposures (Admin)", description = "Symbols ranked by total invested amount across all holders")
+    public ResponseEntity<ApiResponse<List<SymbolExposureResponse>>> getTopExposures(
+            @RequestParam(required = false) Market market,
+            @RequestParam(defaultValue = "20") int limit) {
+        List<SymbolExposureResponse> response = exposureService.getTopExposures(market, limit);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
     @GetMapping("/admin/users-with-holdings")
     @Operation(summary = "Get Users with Holdings (Admin)", description = "Get list of all user IDs that have holdings")
     public ResponseEntity<ApiResponse<List<Long>>> getUsersWithHoldings() {
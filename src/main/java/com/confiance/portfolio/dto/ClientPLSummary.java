@@ -0,0 +1,18 @@
+package com.confiance.portfolio.dto;
+
+import com.confiance.portfolio.service.TradeService;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One row of the admin client P&L page: the trade and holding summaries of a single user
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClientPLSummary {
+    private Long userId;
+    private TradeService.UserPLSummary profitLoss;
+    private HoldingSummary holdings;
+}
@@ -0,0 +1,22 @@
+package com.confiance.portfolio.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    // Pass back as ?cursor= to fetch the following page; null on the last page
+    private String nextCursor;
+    // Only filled when includeTotal=true, since it costs a COUNT(*)
+    private Long totalElements;
+}
@@ -0,0 +1,31 @@
+package com.confiance.portfolio.dto;
+
+import com.confiance.common.enums.Market;
+import com.confiance.portfolio.entity.HoldingMismatch;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HoldingMismatchResponse {
+
+    private Long id;
+    private Long runId;
+    private Long userId;
+    private Market market;
+    private String symbol;
+    private HoldingMismatch.Kind kind;
+    private BigDecimal expectedQuantity;
+    private BigDecimal expectedAveragePrice;
+    private BigDecimal actualQuantity;
+    private BigDecimal actualAveragePrice;
+    private boolean fixed;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,53 @@
+package com.confiance.portfolio.dto;
+
+import com.confiance.common.exception.BadRequestException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.function.Function;
+
+// Position after the last row of a keyset page: the sort key and the id tie-breaker.
+// Clients only see the opaque encoded token.
+public record PageCursor(String sortKey, long id) {
+
+    public static PageCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new PageCursor(raw.substring(0, separator), Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    public LocalDate dateKey() {
+        return parseKey(LocalDate::parse);
+    }
+
+    public LocalDateTime dateTimeKey() {
+        return parseKey(LocalDateTime::parse);
+    }
+
+    public BigDecimal decimalKey() {
+        return parseKey(BigDecimal::new);
+    }
+
+    private <T> T parseKey(Function<String, T> parser) {
+        try {
+            return parser.apply(sortKey);
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((sortKey + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,25 @@
+package com.confiance.portfolio.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PortfolioHistoryResponse {
+
+    public enum Interval { DAY, WEEK, MONTH }
+
+    private Long userId;
+    private LocalDate from;
+    private LocalDate to;
+    // Each point is the last snapshot in its interval
+    private Interval interval;
+    private List<PortfolioSnapshotResponse> points;
+}
@@ -0,0 +1,22 @@
+package com.confiance.portfolio.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PortfolioSnapshotResponse {
+
+    private LocalDate date;
+    private BigDecimal investedValue;
+    private BigDecimal currentValue;
+    private BigDecimal unrealizedPL;
+    private BigDecimal realizedPL;
+}
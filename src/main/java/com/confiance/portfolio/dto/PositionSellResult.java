@@ -0,0 +1,24 @@
+package com.confiance.portfolio.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PositionSellResult {
+
+    private String sellId;
+    private BigDecimal quantity;
+    private BigDecimal costBasis;
+    private BigDecimal proceeds;
+    private BigDecimal realizedProfitLoss;
+    private List<SellAllocationResponse> allocations;
+    private List<TradeResponse> lots;
+}
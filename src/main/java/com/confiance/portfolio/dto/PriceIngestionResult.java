@@ -0,0 +1,20 @@
+package com.confiance.portfolio.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceIngestionResult {
+    private int receivedTicks;
+    // Distinct (market, symbol) pairs after keeping the last tick for each
+    private int appliedTicks;
+    private long rowsUpdated;
+    private long durationMillis;
+    private double ticksPerSecond;
+    private double rowsPerSecond;
+}
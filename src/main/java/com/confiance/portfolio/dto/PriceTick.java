@@ -0,0 +1,29 @@
+package com.confiance.portfolio.dto;
+
+import com.confiance.common.enums.Market;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceTick {
+
+    @NotNull(message = "Market is required")
+    private Market market;
+
+    @NotBlank(message = "Symbol is required")
+    private String symbol;
+
+    @NotNull(message = "Price is required")
+    @Positive(message = "Price must be positive")
+    private BigDecimal price;
+}
@@ -0,0 +1,20 @@
+package com.confiance.portfolio.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceTickRequest {
+
+    @NotEmpty(message = "At least one tick is required")
+    private List<@Valid PriceTick> ticks;
+}
@@ -0,0 +1,23 @@
+package com.confiance.portfolio.dto;
+
+import com.confiance.common.enums.Market;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuoteResponse {
+    private Market market;
+    private String symbol;
+    private BigDecimal price;
+    private Instant asOf;
+    private long ageMillis;
+    private boolean stale;
+}
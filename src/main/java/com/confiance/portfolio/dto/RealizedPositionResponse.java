@@ -0,0 +1,28 @@
+package com.confiance.portfolio.dto;
+
+import com.confiance.common.enums.Market;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RealizedPositionResponse {
+
+    private Long userId;
+    private Market market;
+    private String symbol;
+    private BigDecimal soldQuantity;
+    private BigDecimal costBasis;
+    private BigDecimal proceeds;
+    private BigDecimal realizedProfitLoss;
+    private BigDecimal realizedProfitLossPercentage;
+    private long sellCount;
+    private LocalDate lastSellDate;
+}
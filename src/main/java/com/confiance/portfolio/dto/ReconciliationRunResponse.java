@@ -0,0 +1,30 @@
+package com.confiance.portfolio.dto;
+
+import com.confiance.portfolio.entity.ReconciliationRun;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationRunResponse {
+
+    private Long id;
+    private ReconciliationRun.Mode mode;
+    private ReconciliationRun.Status status;
+    private Long lastUserId;
+    private long usersChecked;
+    private long holdingsChecked;
+    private long mismatches;
+    private long fixed;
+    private long skipped;
+    private LocalDateTime startedAt;
+    private LocalDateTime heartbeatAt;
+    private LocalDateTime finishedAt;
+    private String error;
+}
@@ -0,0 +1,32 @@
+package com.confiance.portfolio.dto;
+
+import com.confiance.common.enums.Market;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SellAllocationResponse {
+
+    private Long id;
+    private String sellId;
+    private Long tradeId;
+    private Market market;
+    private String symbol;
+    private LocalDate sellDate;
+    private BigDecimal sellPrice;
+    private BigDecimal quantity;
+    private BigDecimal buyPrice;
+    private BigDecimal costBasis;
+    private BigDecimal proceeds;
+    private BigDecimal realizedProfitLoss;
+    private LocalDateTime createdAt;
+}
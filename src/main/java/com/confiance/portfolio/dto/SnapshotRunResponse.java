@@ -0,0 +1,26 @@
+package com.confiance.portfolio.dto;
+
+import com.confiance.portfolio.entity.SnapshotRun;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SnapshotRunResponse {
+
+    private Long id;
+    private LocalDate snapshotDate;
+    private SnapshotRun.Status status;
+    private long usersWritten;
+    private LocalDateTime startedAt;
+    private LocalDateTime heartbeatAt;
+    private LocalDateTime finishedAt;
+    private String error;
+}
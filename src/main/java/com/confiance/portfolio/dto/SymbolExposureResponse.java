@@ -0,0 +1,30 @@
+package com.confiance.portfolio.dto;
+
+import com.confiance.common.enums.Market;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SymbolExposureResponse {
+
+    private Market market;
+    private String symbol;
+    private BigDecimal totalQuantity;
+    private long holders;
+    private BigDecimal totalInvested;
+    // Valued at the latest quote; null when there is none
+    private BigDecimal currentPrice;
+    private BigDecimal currentValue;
+    private LocalDateTime updatedAt;
+    // Largest holders by quantity; only filled for single-symbol lookups
+    private List<UserHoldingResponse> topHolders;
+}
@@ -0,0 +1,38 @@
+package com.confiance.portfolio.dto;
+
+import com.confiance.common.exception.BadRequestException;
+import org.springframework.http.MediaType;
+
+public enum TradeFileFormat {
+    CSV("text/csv"),
+    NDJSON("application/x-ndjson");
+
+    private final String mediaType;
+
+    TradeFileFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public static TradeFileFormat fromName(String name) {
+        for (TradeFileFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new BadRequestException("Unsupported format: " + name);
+    }
+
+    public static TradeFileFormat fromContentType(String contentType) {
+        MediaType type = MediaType.parseMediaType(contentType);
+        for (TradeFileFormat format : values()) {
+            if (MediaType.parseMediaType(format.mediaType).isCompatibleWith(type)) {
+                return format;
+            }
+        }
+        throw new BadRequestException("Unsupported content type: " + contentType);
+    }
+}
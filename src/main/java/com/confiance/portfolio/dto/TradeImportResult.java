@@ -0,0 +1,35 @@
+package com.confiance.portfolio.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TradeImportResult {
+
+    private Long userId;
+    private long totalRows;
+    private long importedRows;
+    private long failedRows;
+    private int holdingsUpdated;
+    private long durationMillis;
+
+    // Capped at portfolio.import.max-reported-errors; errorsTruncated is set when more were dropped
+    private List<RowError> errors;
+    private boolean errorsTruncated;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private long line;
+        private String message;
+    }
+}
@@ -0,0 +1,29 @@
+package com.confiance.portfolio.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TradePartitionStatus {
+
+    public enum State { IDLE, RUNNING, CANCELLED, COMPLETED, FAILED }
+
+    private State state;
+    private String phase;
+    private boolean partitioned;
+    private List<String> partitions;
+    private long copiedThroughId;
+    private long maxId;
+    private LocalDateTime startedAt;
+    private LocalDateTime heartbeatAt;
+    private LocalDateTime finishedAt;
+    private String error;
+}
@@ -7,11 +7,12 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class UserHoldingResponse {
@@ -30,6 +31,20 @@ public class UserHoldingResponse {
     private BigDecimal currentValue;
     private BigDecimal unrealizedPL;
     private BigDecimal unrealizedPLPercentage;
+    // Set when the valuation comes from the live quote store rather than the stored price
+    private Instant priceAsOf;
+    private Boolean priceStale;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+
+    // Stored columns only; used by the constructor projections in UserHoldingRepository
+    public UserHoldingResponse(Long id, Long userId, Market market, String symbol, String companyName,
+                               String currency, BigDecimal quantity, BigDecimal averageBuyPrice,
+                               LocalDate boughtOn, BigDecimal investedAmount, BigDecimal currentPrice,
+                               BigDecimal currentValue, BigDecimal unrealizedPL, BigDecimal unrealizedPLPercentage,
+                               LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this(id, userId, market, symbol, companyName, currency, quantity, averageBuyPrice, boughtOn,
+                investedAmount, currentPrice, currentValue, unrealizedPL, unrealizedPLPercentage,
+                null, null, createdAt, updatedAt);
+    }
 }
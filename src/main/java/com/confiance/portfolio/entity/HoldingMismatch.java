@@ -0,0 +1,71 @@
+package com.confiance.portfolio.entity;
+
+import com.confiance.common.enums.Market;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// A holding that disagrees with the open trades of its (user, symbol, market), as found by a
+// reconciliation run. Expected values are derived from the trades; actual values are the row.
+@Entity
+@Table(name = "holding_mismatches", indexes = {
+        @Index(name = "idx_mismatch_run", columnList = "runId, id")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HoldingMismatch {
+
+    public enum Kind {
+        // Open trades but no holding row
+        MISSING,
+        // Holding quantity with no open trades behind it
+        EXTRA,
+        QUANTITY,
+        PRICE
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long runId;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Market market;
+
+    @Column(nullable = false, length = 20)
+    private String symbol;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Kind kind;
+
+    @Column(precision = 19, scale = 4)
+    private BigDecimal expectedQuantity;
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal expectedAveragePrice;
+
+    @Column(precision = 19, scale = 4)
+    private BigDecimal actualQuantity;
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal actualAveragePrice;
+
+    private boolean fixed;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
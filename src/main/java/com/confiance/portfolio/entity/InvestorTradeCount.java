@@ -0,0 +1,24 @@
+package com.confiance.portfolio.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Per-user trade count behind the investors counter. The upsert on this row both counts the
+// trade and serializes a user's writers, so the first and last trade are detected atomically.
+@Entity
+@Table(name = "investor_trade_counts")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvestorTradeCount {
+
+    @Id
+    private Long userId;
+
+    @Column(nullable = false)
+    private long tradeCount;
+}
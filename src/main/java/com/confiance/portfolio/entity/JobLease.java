@@ -0,0 +1,30 @@
+package com.confiance.portfolio.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Cluster-wide lease on a background job. Only written through JobLeases, which takes and
+// renews it with a single conditional upsert.
+@Entity
+@Table(name = "job_leases")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobLease {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(nullable = false, length = 64)
+    private String owner;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,52 @@
+package com.confiance.portfolio.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// One TradePartitionMigrator run, kept so any instance can report progress or ask it to stop
+@Entity
+@Table(name = "partition_migration_runs")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PartitionMigrationRun {
+
+    public enum Status {
+        RUNNING, CANCELLED, COMPLETED, FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Status status;
+
+    @Column(length = 20)
+    private String phase;
+
+    private long copiedThroughId;
+
+    private long maxId;
+
+    // Set only by the cancel update, so the worker's progress saves cannot clear it
+    @Column(updatable = false)
+    private boolean cancelRequested;
+
+    @Column(nullable = false)
+    private LocalDateTime startedAt;
+
+    private LocalDateTime heartbeatAt;
+
+    private LocalDateTime finishedAt;
+
+    @Column(length = 1000)
+    private String error;
+}
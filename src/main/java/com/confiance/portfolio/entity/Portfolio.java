@@ -9,6 +9,8 @@ import lombok.NoArgsConstructor;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+// Per-user totals over the open holdings, kept current by PortfolioAggregateService.
+// totalReturns is unrealized; realized P&L lives in realized_positions.
 @Entity
 @Table(name = "portfolios")
 @Data
@@ -25,17 +27,23 @@ public class Portfolio {
     private Long userId;
 
     @Column(precision = 19, scale = 2)
+    @Builder.Default
     private BigDecimal totalInvested = BigDecimal.ZERO;
 
     @Column(precision = 19, scale = 2)
+    @Builder.Default
     private BigDecimal currentValue = BigDecimal.ZERO;
 
     @Column(precision = 19, scale = 2)
+    @Builder.Default
     private BigDecimal totalReturns = BigDecimal.ZERO;
 
     @Column(precision = 5, scale = 2)
+    @Builder.Default
     private BigDecimal returnsPercentage = BigDecimal.ZERO;
 
+    @Builder.Default
     private LocalDateTime createdAt = LocalDateTime.now();
+    @Builder.Default
     private LocalDateTime updatedAt = LocalDateTime.now();
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+package com.confiance.portfolio.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// End-of-day value of one user's portfolio. One row per user per day; the unique key
+// doubles as the index a history range is read from.
+@Entity
+@Table(name = "portfolio_snapshots", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_snapshot_user_date", columnNames = {"userId", "snapshotDate"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PortfolioSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private LocalDate snapshotDate;
+
+    @Column(nullable = false, precision = 21, scale = 2)
+    private BigDecimal investedValue;
+
+    @Column(nullable = false, precision = 21, scale = 2)
+    private BigDecimal currentValue;
+
+    @Column(nullable = false, precision = 21, scale = 2)
+    private BigDecimal unrealizedPL;
+
+    // Running realized total from realized_positions at snapshot time
+    @Column(nullable = false, precision = 21, scale = 2)
+    private BigDecimal realizedPL;
+}
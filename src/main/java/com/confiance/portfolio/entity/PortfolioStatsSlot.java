@@ -0,0 +1,42 @@
+package com.confiance.portfolio.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// One stripe of the admin dashboard counters. Trades are assigned to a slot by
+// userId so concurrent writers for different users rarely contend on the same row.
+@Entity
+@Table(name = "portfolio_stats_slots")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PortfolioStatsSlot {
+
+    @Id
+    private Integer slot;
+
+    @Column(nullable = false)
+    private long totalTrades;
+
+    // Trades in OPEN or PARTIALLY_SOLD status
+    @Column(nullable = false)
+    private long openTrades;
+
+    // Sum of currentValue over open trades
+    @Column(nullable = false, precision = 21, scale = 2)
+    @Builder.Default
+    private BigDecimal totalAum = BigDecimal.ZERO;
+
+    // Distinct users with at least one trade (a user always maps to a single slot)
+    @Column(nullable = false)
+    private long investors;
+
+    private LocalDateTime rebuiltAt;
+}
@@ -0,0 +1,58 @@
+package com.confiance.portfolio.entity;
+
+import com.confiance.common.enums.Market;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Running realized totals per (user, symbol), incremented by each recorded sell so realized
+// P&L is read by key instead of summing the allocation ledger.
+@Entity
+@Table(name = "realized_positions", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_realized_user_symbol_market", columnNames = {"userId", "symbol", "market"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RealizedPosition {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Market market;
+
+    @Column(nullable = false, length = 20)
+    private String symbol;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal soldQuantity;
+
+    @Column(nullable = false, precision = 21, scale = 2)
+    private BigDecimal costBasis;
+
+    @Column(nullable = false, precision = 21, scale = 2)
+    private BigDecimal proceeds;
+
+    @Column(nullable = false, precision = 21, scale = 2)
+    private BigDecimal realizedProfitLoss;
+
+    @Column(nullable = false)
+    private long sellCount;
+
+    private LocalDate lastSellDate;
+
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,67 @@
+package com.confiance.portfolio.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// One pass of HoldingReconciler over all users. lastUserId is the checkpoint a resumed run
+// continues after; heartbeatAt tells other instances whether the run is still alive.
+@Entity
+@Table(name = "reconciliation_runs")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationRun {
+
+    public enum Mode {
+        REPORT, FIX
+    }
+
+    public enum Status {
+        RUNNING, CANCELLED, COMPLETED, FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Mode mode;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Status status;
+
+    private Long lastUserId;
+
+    private long usersChecked;
+
+    private long holdingsChecked;
+
+    private long mismatches;
+
+    private long fixed;
+
+    // Mismatches left alone because the holding changed after it was read
+    private long skipped;
+
+    // Set only by the cancel update, so the worker's progress saves cannot clear it
+    @Column(updatable = false)
+    private boolean cancelRequested;
+
+    @Column(nullable = false)
+    private LocalDateTime startedAt;
+
+    private LocalDateTime heartbeatAt;
+
+    private LocalDateTime finishedAt;
+
+    @Column(length = 1000)
+    private String error;
+}
@@ -0,0 +1,76 @@
+package com.confiance.portfolio.entity;
+
+import com.confiance.common.enums.Market;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// One slice of a sell matched against one buy lot (a Trade). Rows are only ever appended;
+// all allocations written for the same sell share a sellId.
+@Entity
+@Table(name = "sell_allocations", indexes = {
+        @Index(name = "idx_allocation_trade", columnList = "tradeId, id"),
+        @Index(name = "idx_allocation_user_symbol", columnList = "userId, market, symbol, sellDate"),
+        @Index(name = "idx_allocation_sell_id", columnList = "sellId")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EntityListeners(AuditingEntityListener.class)
+public class SellAllocation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 36)
+    private String sellId;
+
+    @Column(nullable = false)
+    private Long tradeId;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Market market;
+
+    @Column(nullable = false, length = 20)
+    private String symbol;
+
+    @Column(nullable = false)
+    private LocalDate sellDate;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal sellPrice;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal quantity;
+
+    // Buy price of the lot at the time of the sell
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal buyPrice;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal costBasis;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal proceeds;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal realizedProfitLoss;
+
+    @CreatedDate
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,49 @@
+package com.confiance.portfolio.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// One pass of PortfolioSnapshotService over all users, kept so any instance can report progress
+@Entity
+@Table(name = "snapshot_runs", indexes = {
+        @Index(name = "idx_snapshot_run_date", columnList = "snapshotDate, status")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SnapshotRun {
+
+    public enum Status {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate snapshotDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Status status;
+
+    private long usersWritten;
+
+    @Column(nullable = false)
+    private LocalDateTime startedAt;
+
+    private LocalDateTime heartbeatAt;
+
+    private LocalDateTime finishedAt;
+
+    @Column(length = 1000)
+    private String error;
+}
@@ -0,0 +1,50 @@
+package com.confiance.portfolio.entity;
+
+import com.confiance.common.enums.Market;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Totals over every open holding of one (market, symbol), kept current by SymbolExposureService
+// so the risk views read one row instead of every holder
+@Entity
+@Table(name = "symbol_exposures", indexes = {
+        @Index(name = "idx_exposure_invested", columnList = "totalInvested"),
+        @Index(name = "idx_exposure_market_invested", columnList = "market, totalInvested")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_exposure_symbol_market", columnNames = {"symbol", "market"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SymbolExposure {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Market market;
+
+    @Column(nullable = false, length = 20)
+    private String symbol;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal totalQuantity;
+
+    // Users with a non-zero quantity
+    @Column(nullable = false)
+    private long holders;
+
+    @Column(nullable = false, precision = 21, scale = 2)
+    private BigDecimal totalInvested;
+
+    private LocalDateTime updatedAt;
+}
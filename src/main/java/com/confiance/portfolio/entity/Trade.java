@@ -2,6 +2,7 @@ package com.confiance.portfolio.entity;
 
 import com.confiance.common.enums.Market;
 import com.confiance.common.enums.TradeStatus;
+import com.confiance.portfolio.util.PositionMath;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -12,18 +13,19 @@ import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 
 @Entity
+// Composite indexes follow the repository query shapes; date-range reads prune partitions once
+// the table is range-partitioned on buyDate (see TradePartitionMigrator)
 @Table(name = "trades", indexes = {
-        @Index(name = "idx_trade_user_id", columnList = "userId"),
-        @Index(name = "idx_trade_symbol", columnList = "symbol"),
-        @Index(name = "idx_trade_market", columnList = "market"),
-        @Index(name = "idx_trade_status", columnList = "status"),
-        @Index(name = "idx_trade_buy_date", columnList = "buyDate")
+        @Index(name = "idx_trade_user_buy_date", columnList = "userId, buyDate, id"),
+        @Index(name = "idx_trade_user_status_buy_date", columnList = "userId, status, buyDate"),
+        @Index(name = "idx_trade_user_symbol", columnList = "userId, symbol, market, status"),
+        @Index(name = "idx_trade_symbol_status", columnList = "symbol, status"),
+        @Index(name = "idx_trade_created_at", columnList = "createdAt, id")
 })
 @Data
 @Builder
@@ -79,6 +81,10 @@ public class Trade {
 
     private Integer positionHeldDays;
 
+    // Realized P&L accumulated from the sell allocation ledger; null until the first ledger sell
+    @Column(precision = 19, scale = 2)
+    private BigDecimal realizedProfitLoss;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     @Builder.Default
@@ -111,7 +117,7 @@ public class Trade {
     public void calculateFields() {
         // Calculate invested amount
         if (buyPrice != null && buyQuantity != null) {
-            this.investedAmount = buyPrice.multiply(buyQuantity).setScale(2, RoundingMode.HALF_UP);
+            this.investedAmount = PositionMath.value(buyQuantity, buyPrice);
         }
 
         // Initialize remaining quantity on first save
@@ -119,15 +125,20 @@ public class Trade {
             this.remainingQuantity = buyQuantity;
         }
 
-        // Calculate profit/loss if sell data exists
-        if (sellPrice != null && sellQuantity != null && buyPrice != null) {
-            BigDecimal soldValue = sellPrice.multiply(sellQuantity);
-            BigDecimal costBasis = buyPrice.multiply(sellQuantity);
-            this.profitLoss = soldValue.subtract(costBasis).setScale(2, RoundingMode.HALF_UP);
+        // Lots sold through the ledger carry their realized P&L; sellQuantity is then the total
+        // sold and sellPrice the average sell price
+        if (realizedProfitLoss != null) {
+            this.profitLoss = realizedProfitLoss;
+            if (buyPrice != null && sellQuantity != null && buyPrice.signum() * sellQuantity.signum() > 0) {
+                this.profitLossPercentage = PositionMath.returnOnCost(profitLoss, buyPrice, sellQuantity);
+            }
+        } else if (sellPrice != null && sellQuantity != null && buyPrice != null) {
+            // Calculate profit/loss if sell data exists
+            this.profitLoss = PositionMath.realizedPL(sellPrice, buyPrice, sellQuantity);
 
-            if (costBasis.compareTo(BigDecimal.ZERO) > 0) {
-                this.profitLossPercentage = profitLoss.divide(costBasis, 4, RoundingMode.HALF_UP)
-                        .multiply(BigDecimal.valueOf(100)).setScale(2, RoundingMode.HALF_UP);
+            // Cost basis (buyPrice * sellQuantity) is positive
+            if (buyPrice.signum() * sellQuantity.signum() > 0) {
+                this.profitLossPercentage = PositionMath.returnOnCost(profitLoss, buyPrice, sellQuantity);
             }
         }
 
@@ -139,7 +150,7 @@ public class Trade {
 
         // Update current value
         if (sellPrice != null && sellQuantity != null) {
-            this.currentValue = sellPrice.multiply(sellQuantity).setScale(2, RoundingMode.HALF_UP);
+            this.currentValue = PositionMath.value(sellQuantity, sellPrice);
         }
 
         // Update status based on quantities
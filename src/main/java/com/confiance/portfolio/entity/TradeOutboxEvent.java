@@ -0,0 +1,87 @@
+package com.confiance.portfolio.entity;
+
+import com.confiance.common.enums.Market;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Trade event written in the same transaction as the trade itself and delivered
+// to the notification service by TradeOutboxDispatcher after commit.
+@Entity
+@Table(name = "trade_outbox", indexes = {
+        @Index(name = "idx_outbox_status_next_attempt", columnList = "status, nextAttemptAt"),
+        @Index(name = "idx_outbox_claim_token", columnList = "claimToken")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TradeOutboxEvent {
+
+    public enum EventType {
+        TRADE_CREATED,
+        TRADES_IMPORTED
+    }
+
+    public enum Status {
+        PENDING, DISPATCHING, SENT, FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private EventType eventType;
+
+    private Long tradeId;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    private Market market;
+
+    @Column(length = 20)
+    private String symbol;
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal price;
+
+    @Column(precision = 19, scale = 4)
+    private BigDecimal quantity;
+
+    // Number of trades covered by a TRADES_IMPORTED event
+    private Integer tradeCount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private Status status = Status.PENDING;
+
+    @Builder.Default
+    private int attempts = 0;
+
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    // Set while a dispatcher instance owns the event
+    @Column(length = 36)
+    private String claimToken;
+
+    private LocalDateTime claimedAt;
+
+    @Column(length = 500)
+    private String lastError;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime sentAt;
+}
@@ -1,6 +1,7 @@
 package com.confiance.portfolio.entity;
 
 import com.confiance.common.enums.Market;
+import com.confiance.portfolio.util.PositionMath;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -11,7 +12,6 @@ import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
@@ -19,7 +19,10 @@ import java.time.LocalDateTime;
 @Table(name = "user_holdings", indexes = {
         @Index(name = "idx_holding_user_id", columnList = "userId"),
         @Index(name = "idx_holding_symbol", columnList = "symbol"),
-        @Index(name = "idx_holding_market", columnList = "market")
+        @Index(name = "idx_holding_market", columnList = "market"),
+        @Index(name = "idx_holding_user_invested", columnList = "userId, investedAmount, id"),
+        // Covers the symbol exposure totals as well as the largest-holder reads
+        @Index(name = "idx_holding_symbol_exposure", columnList = "symbol, market, quantity, investedAmount")
 }, uniqueConstraints = {
         @UniqueConstraint(name = "uk_user_symbol_market", columnNames = {"userId", "symbol", "market"})
 })
@@ -93,30 +96,24 @@ public class UserHolding {
     public void calculateFields() {
         // Calculate invested amount
         if (quantity != null && averageBuyPrice != null) {
-            this.investedAmount = quantity.multiply(averageBuyPrice).setScale(2, RoundingMode.HALF_UP);
+            this.investedAmount = PositionMath.value(quantity, averageBuyPrice);
         }
 
         // Calculate current value and unrealized P&L if current price is available
         if (currentPrice != null && quantity != null) {
-            this.currentValue = quantity.multiply(currentPrice).setScale(2, RoundingMode.HALF_UP);
+            this.currentValue = PositionMath.value(quantity, currentPrice);
 
             if (investedAmount != null && investedAmount.compareTo(BigDecimal.ZERO) > 0) {
-                this.unrealizedPL = currentValue.subtract(investedAmount).setScale(2, RoundingMode.HALF_UP);
-                this.unrealizedPLPercentage = unrealizedPL.divide(investedAmount, 4, RoundingMode.HALF_UP)
-                        .multiply(BigDecimal.valueOf(100)).setScale(2, RoundingMode.HALF_UP);
+                this.unrealizedPL = PositionMath.difference(currentValue, investedAmount);
+                this.unrealizedPLPercentage = PositionMath.percentage(unrealizedPL, investedAmount);
             }
         }
     }
 
     // Helper method to update average price when adding more shares
     public void addShares(BigDecimal newQuantity, BigDecimal newPrice) {
-        BigDecimal totalOldValue = this.quantity.multiply(this.averageBuyPrice);
-        BigDecimal totalNewValue = newQuantity.multiply(newPrice);
-        BigDecimal totalQuantity = this.quantity.add(newQuantity);
-
-        this.averageBuyPrice = totalOldValue.add(totalNewValue)
-                .divide(totalQuantity, 2, RoundingMode.HALF_UP);
-        this.quantity = totalQuantity;
+        this.averageBuyPrice = PositionMath.averagePrice(this.quantity, this.averageBuyPrice, newQuantity, newPrice);
+        this.quantity = this.quantity.add(newQuantity);
     }
 
     // Helper method to remove shares
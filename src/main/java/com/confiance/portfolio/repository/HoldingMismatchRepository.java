@@ -0,0 +1,13 @@
+package com.confiance.portfolio.repository;
+
+import com.confiance.portfolio.entity.HoldingMismatch;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface HoldingMismatchRepository extends JpaRepository<HoldingMismatch, Long> {
+
+    Page<HoldingMismatch> findByRunIdOrderById(Long runId, Pageable pageable);
+}
@@ -0,0 +1,25 @@
+package com.confiance.portfolio.repository;
+
+import com.confiance.portfolio.entity.InvestorTradeCount;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface InvestorTradeCountRepository extends JpaRepository<InvestorTradeCount, Long> {
+
+    // Locks the user's row until the caller commits
+    @Modifying
+    @Query(value = "INSERT INTO investor_trade_counts (user_id, trade_count) VALUES (:userId, :trades) " +
+           "ON DUPLICATE KEY UPDATE trade_count = trade_count + VALUES(trade_count)", nativeQuery = true)
+    int addTrades(@Param("userId") Long userId, @Param("trades") long trades);
+
+    @Query(value = "SELECT c.trade_count FROM investor_trade_counts c WHERE c.user_id = :userId", nativeQuery = true)
+    long findTradeCount(@Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = "UPDATE investor_trade_counts SET trade_count = 0 WHERE trade_count <> 0", nativeQuery = true)
+    int resetAll();
+}
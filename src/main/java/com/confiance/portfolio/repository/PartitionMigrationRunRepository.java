@@ -0,0 +1,25 @@
+package com.confiance.portfolio.repository;
+
+import com.confiance.portfolio.entity.PartitionMigrationRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Repository
+public interface PartitionMigrationRunRepository extends JpaRepository<PartitionMigrationRun, Long> {
+
+    Optional<PartitionMigrationRun> findFirstByOrderByIdDesc();
+
+    @Query("SELECT r.cancelRequested FROM PartitionMigrationRun r WHERE r.id = :id")
+    boolean isCancelRequested(@Param("id") Long id);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE PartitionMigrationRun r SET r.cancelRequested = true WHERE r.status = :running")
+    int requestCancel(@Param("running") PartitionMigrationRun.Status running);
+}
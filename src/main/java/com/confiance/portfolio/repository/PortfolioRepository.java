@@ -2,9 +2,15 @@ package com.confiance.portfolio.repository;
 
 import com.confiance.portfolio.entity.Portfolio;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface PortfolioRepository extends JpaRepository<Portfolio, Long> {
     Optional<Portfolio> findByUserId(Long userId);
+
+    @Query("SELECT p.userId FROM Portfolio p WHERE p.userId BETWEEN :firstUser AND :lastUser")
+    List<Long> findUserIdsBetween(@Param("firstUser") Long firstUser, @Param("lastUser") Long lastUser);
 }
\ No newline at end of file
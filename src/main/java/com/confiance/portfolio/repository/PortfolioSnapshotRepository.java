@@ -0,0 +1,14 @@
+package com.confiance.portfolio.repository;
+
+import com.confiance.portfolio.entity.PortfolioSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface PortfolioSnapshotRepository extends JpaRepository<PortfolioSnapshot, Long> {
+
+    List<PortfolioSnapshot> findByUserIdAndSnapshotDateBetweenOrderBySnapshotDate(Long userId, LocalDate from, LocalDate to);
+}
@@ -0,0 +1,32 @@
+package com.confiance.portfolio.repository;
+
+import com.confiance.portfolio.entity.PortfolioStatsSlot;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+public interface PortfolioStatsSlotRepository extends JpaRepository<PortfolioStatsSlot, Integer> {
+
+    @Modifying
+    @Query("UPDATE PortfolioStatsSlot s SET s.totalTrades = s.totalTrades + :trades, " +
+           "s.openTrades = s.openTrades + :openTrades, s.totalAum = s.totalAum + :aum, " +
+           "s.investors = s.investors + :investors WHERE s.slot = :slot")
+    int applyDelta(@Param("slot") Integer slot,
+                   @Param("trades") long trades,
+                   @Param("openTrades") long openTrades,
+                   @Param("aum") BigDecimal aum,
+                   @Param("investors") long investors);
+
+    // Taken before a rebuild so in-flight trade writes queue behind it instead of being lost
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM PortfolioStatsSlot s ORDER BY s.slot")
+    List<PortfolioStatsSlot> lockAllSlots();
+}
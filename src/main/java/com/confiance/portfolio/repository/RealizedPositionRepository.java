@@ -0,0 +1,42 @@
+package com.confiance.portfolio.repository;
+
+import com.confiance.common.enums.Market;
+import com.confiance.portfolio.entity.RealizedPosition;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface RealizedPositionRepository extends JpaRepository<RealizedPosition, Long> {
+
+    List<RealizedPosition> findByUserIdOrderBySymbol(Long userId);
+
+    Optional<RealizedPosition> findByUserIdAndSymbolAndMarket(Long userId, String symbol, Market market);
+
+    // Adds one sell to the running totals, creating the row on the first sell of the symbol
+    @Modifying
+    @Query(value = "INSERT INTO realized_positions (user_id, market, symbol, sold_quantity, cost_basis, proceeds, " +
+           "realized_profit_loss, sell_count, last_sell_date, updated_at) " +
+           "VALUES (:userId, :market, :symbol, :quantity, :costBasis, :proceeds, :realized, 1, :sellDate, NOW(6)) " +
+           "ON DUPLICATE KEY UPDATE sold_quantity = sold_quantity + VALUES(sold_quantity), " +
+           "cost_basis = cost_basis + VALUES(cost_basis), proceeds = proceeds + VALUES(proceeds), " +
+           "realized_profit_loss = realized_profit_loss + VALUES(realized_profit_loss), " +
+           "sell_count = sell_count + 1, " +
+           "last_sell_date = GREATEST(COALESCE(last_sell_date, VALUES(last_sell_date)), VALUES(last_sell_date)), " +
+           "updated_at = NOW(6)", nativeQuery = true)
+    int addSell(@Param("userId") Long userId,
+                @Param("market") String market,
+                @Param("symbol") String symbol,
+                @Param("quantity") BigDecimal quantity,
+                @Param("costBasis") BigDecimal costBasis,
+                @Param("proceeds") BigDecimal proceeds,
+                @Param("realized") BigDecimal realized,
+                @Param("sellDate") LocalDate sellDate);
+}
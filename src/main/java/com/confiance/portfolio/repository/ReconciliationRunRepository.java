@@ -0,0 +1,31 @@
+package com.confiance.portfolio.repository;
+
+import com.confiance.portfolio.entity.ReconciliationRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Repository
+public interface ReconciliationRunRepository extends JpaRepository<ReconciliationRun, Long> {
+
+    Optional<ReconciliationRun> findFirstByOrderByIdDesc();
+
+    @Query("SELECT r.cancelRequested FROM ReconciliationRun r WHERE r.id = :id")
+    boolean isCancelRequested(@Param("id") Long id);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ReconciliationRun r SET r.cancelRequested = true WHERE r.status = :running")
+    int requestCancel(@Param("running") ReconciliationRun.Status running);
+
+    // A resumed run starts without the cancel that stopped it
+    @Modifying
+    @Transactional
+    @Query("UPDATE ReconciliationRun r SET r.cancelRequested = false WHERE r.id = :id")
+    int clearCancel(@Param("id") Long id);
+}
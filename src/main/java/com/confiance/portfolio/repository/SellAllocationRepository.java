@@ -0,0 +1,15 @@
+package com.confiance.portfolio.repository;
+
+import com.confiance.portfolio.entity.SellAllocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface SellAllocationRepository extends JpaRepository<SellAllocation, Long> {
+
+    List<SellAllocation> findByTradeIdOrderById(Long tradeId);
+
+    boolean existsByTradeId(Long tradeId);
+}
@@ -0,0 +1,16 @@
+package com.confiance.portfolio.repository;
+
+import com.confiance.portfolio.entity.SnapshotRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+@Repository
+public interface SnapshotRunRepository extends JpaRepository<SnapshotRun, Long> {
+
+    Optional<SnapshotRun> findFirstByOrderByIdDesc();
+
+    boolean existsBySnapshotDateAndStatus(LocalDate snapshotDate, SnapshotRun.Status status);
+}
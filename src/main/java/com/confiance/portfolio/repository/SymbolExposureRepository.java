@@ -0,0 +1,27 @@
+package com.confiance.portfolio.repository;
+
+import com.confiance.common.enums.Market;
+import com.confiance.portfolio.entity.SymbolExposure;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SymbolExposureRepository extends JpaRepository<SymbolExposure, Long> {
+
+    Optional<SymbolExposure> findByMarketAndSymbol(Market market, String symbol);
+
+    List<SymbolExposure> findBySymbolAndHoldersGreaterThan(String symbol, long holders);
+
+    // Walks idx_exposure_invested / idx_exposure_market_invested from the top
+    @Query("SELECT e FROM SymbolExposure e WHERE e.holders > 0 ORDER BY e.totalInvested DESC")
+    List<SymbolExposure> findTop(Pageable pageable);
+
+    @Query("SELECT e FROM SymbolExposure e WHERE e.market = :market AND e.holders > 0 ORDER BY e.totalInvested DESC")
+    List<SymbolExposure> findTopByMarket(@Param("market") Market market, Pageable pageable);
+}
@@ -0,0 +1,53 @@
+package com.confiance.portfolio.repository;
+
+import com.confiance.portfolio.entity.TradeOutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TradeOutboxRepository extends JpaRepository<TradeOutboxEvent, Long> {
+
+    @Query("SELECT e.id FROM TradeOutboxEvent e WHERE e.status = :status AND e.nextAttemptAt <= :now ORDER BY e.id")
+    List<Long> findDueIds(@Param("status") TradeOutboxEvent.Status status,
+                          @Param("now") LocalDateTime now,
+                          Pageable pageable);
+
+    // Conditional claim: only rows still PENDING are taken, so concurrent dispatchers never share an event
+    @Modifying
+    @Transactional
+    @Query("UPDATE TradeOutboxEvent e SET e.status = :claimed, e.claimToken = :token, e.claimedAt = :now " +
+           "WHERE e.id IN :ids AND e.status = :pending AND e.nextAttemptAt <= :now")
+    int claim(@Param("ids") Collection<Long> ids,
+              @Param("token") String token,
+              @Param("now") LocalDateTime now,
+              @Param("pending") TradeOutboxEvent.Status pending,
+              @Param("claimed") TradeOutboxEvent.Status claimed);
+
+    List<TradeOutboxEvent> findByClaimToken(String claimToken);
+
+    // Returns events claimed by a dispatcher that died before finishing them
+    @Modifying
+    @Transactional
+    @Query("UPDATE TradeOutboxEvent e SET e.status = :pending, e.claimToken = NULL " +
+           "WHERE e.status = :claimed AND e.claimedAt < :cutoff")
+    int releaseExpiredClaims(@Param("cutoff") LocalDateTime cutoff,
+                             @Param("pending") TradeOutboxEvent.Status pending,
+                             @Param("claimed") TradeOutboxEvent.Status claimed);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM TradeOutboxEvent e WHERE e.status = :status AND e.sentAt < :cutoff")
+    int deleteSentBefore(@Param("status") TradeOutboxEvent.Status status,
+                         @Param("cutoff") LocalDateTime cutoff);
+
+    long countByStatus(TradeOutboxEvent.Status status);
+}
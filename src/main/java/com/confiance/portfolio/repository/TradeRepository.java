@@ -2,24 +2,46 @@ package com.confiance.portfolio.repository;
 
 import com.confiance.common.enums.Market;
 import com.confiance.common.enums.TradeStatus;
+import com.confiance.portfolio.dto.TradeResponse;
 import com.confiance.portfolio.entity.Trade;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface TradeRepository extends JpaRepository<Trade, Long> {
 
-    Page<Trade> findByUserId(Long userId, Pageable pageable);
+    // Read queries select straight into TradeResponse, so no managed entities or dirty-checking
+    // snapshots are created; entity-returning methods are kept for the write paths
+    String TRADE_RESPONSE = "SELECT new com.confiance.portfolio.dto.TradeResponse(t.id, t.userId, t.market, " +
+            "t.symbol, t.companyName, t.currency, t.buyDate, t.buyPrice, t.buyQuantity, t.sellDate, t.sellPrice, " +
+            "t.sellQuantity, t.profitLoss, t.profitLossPercentage, t.positionHeldDays, t.remainingQuantity, " +
+            "t.investedAmount, t.currentValue, t.status, t.notes, t.createdAt, t.updatedAt) ";
 
-    Page<Trade> findByUserIdAndStatus(Long userId, TradeStatus status, Pageable pageable);
+    @Query(TRADE_RESPONSE + "FROM Trade t WHERE t.id = :id AND t.userId = :userId")
+    Optional<TradeResponse> findResponseByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    @Query(value = TRADE_RESPONSE + "FROM Trade t WHERE t.userId = :userId",
+           countQuery = "SELECT COUNT(t) FROM Trade t WHERE t.userId = :userId")
+    Page<TradeResponse> findByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(value = TRADE_RESPONSE + "FROM Trade t WHERE t.userId = :userId AND t.status = :status",
+           countQuery = "SELECT COUNT(t) FROM Trade t WHERE t.userId = :userId AND t.status = :status")
+    Page<TradeResponse> findByUserIdAndStatus(@Param("userId") Long userId,
+                                              @Param("status") TradeStatus status,
+                                              Pageable pageable);
 
     Page<Trade> findByUserIdAndMarket(Long userId, Market market, Pageable pageable);
 
@@ -27,35 +49,120 @@ public interface TradeRepository extends JpaRepository<Trade, Long> {
 
     List<Trade> findByUserIdAndStatus(Long userId, TradeStatus status);
 
-    @Query("SELECT t FROM Trade t WHERE t.userId = :userId AND t.buyDate BETWEEN :startDate AND :endDate ORDER BY t.buyDate DESC")
-    Page<Trade> findByUserIdAndDateRange(@Param("userId") Long userId,
+    long countByUserId(Long userId);
+
+    @Query(value = TRADE_RESPONSE + "FROM Trade t WHERE t.userId = :userId AND t.buyDate BETWEEN :startDate AND :endDate ORDER BY t.buyDate DESC",
+           countQuery = "SELECT COUNT(t) FROM Trade t WHERE t.userId = :userId AND t.buyDate BETWEEN :startDate AND :endDate")
+    Page<TradeResponse> findByUserIdAndDateRange(@Param("userId") Long userId,
                                           @Param("startDate") LocalDate startDate,
                                           @Param("endDate") LocalDate endDate,
                                           Pageable pageable);
 
-    @Query("SELECT SUM(t.profitLoss) FROM Trade t WHERE t.userId = :userId AND t.status = 'CLOSED'")
-    BigDecimal getTotalProfitLossForUser(@Param("userId") Long userId);
+    // Everything UserPLSummary needs in one pass over the user's trades
+    String PL_AGGREGATE = "SUM(CASE WHEN t.status IN ('CLOSED', 'PARTIALLY_SOLD') THEN t.profit_loss ELSE 0 END) AS totalProfitLoss, " +
+            "SUM(CASE WHEN t.status IN ('OPEN', 'PARTIALLY_SOLD') THEN t.invested_amount ELSE 0 END) AS totalInvestedAmount, " +
+            "SUM(CASE WHEN t.status = 'OPEN' THEN 1 ELSE 0 END) AS openTradesCount, " +
+            "SUM(CASE WHEN t.status = 'CLOSED' THEN 1 ELSE 0 END) AS closedTradesCount, " +
+            "SUM(CASE WHEN t.status = 'PARTIALLY_SOLD' THEN 1 ELSE 0 END) AS partiallySoldTradesCount ";
+
+    @Query(value = "SELECT " + PL_AGGREGATE + "FROM trades t WHERE t.user_id = :userId", nativeQuery = true)
+    UserPLAggregate aggregatePLForUser(@Param("userId") Long userId);
 
-    @Query("SELECT SUM(t.investedAmount) FROM Trade t WHERE t.userId = :userId AND t.status IN ('OPEN', 'PARTIALLY_SOLD')")
-    BigDecimal getTotalInvestedAmountForUser(@Param("userId") Long userId);
+    // Same figures for many users in one grouped read; users without trades have no row
+    @Query(value = "SELECT t.user_id AS userId, " + PL_AGGREGATE +
+           "FROM trades t WHERE t.user_id IN (:userIds) GROUP BY t.user_id", nativeQuery = true)
+    List<UserPLAggregateByUser> aggregatePLForUsers(@Param("userIds") Collection<Long> userIds);
 
     @Query("SELECT t FROM Trade t WHERE t.userId = :userId ORDER BY t.buyDate DESC")
     List<Trade> findRecentTradesByUser(@Param("userId") Long userId);
 
-    @Query("SELECT t FROM Trade t WHERE t.userId = :userId AND " +
+    // Optional buy-date bounds are compared on the bare column so MySQL can prune partitions
+    @Query(value = TRADE_RESPONSE + "FROM Trade t WHERE t.userId = :userId AND " +
            "(:market IS NULL OR t.market = :market) AND " +
-           "(:status IS NULL OR t.status = :status) " +
-           "ORDER BY t.buyDate DESC")
-    Page<Trade> findWithFilters(@Param("userId") Long userId,
+           "(:status IS NULL OR t.status = :status) AND " +
+           "(:startDate IS NULL OR t.buyDate >= :startDate) AND " +
+           "(:endDate IS NULL OR t.buyDate <= :endDate) " +
+           "ORDER BY t.buyDate DESC",
+           countQuery = "SELECT COUNT(t) FROM Trade t WHERE t.userId = :userId AND " +
+           "(:market IS NULL OR t.market = :market) AND " +
+           "(:status IS NULL OR t.status = :status) AND " +
+           "(:startDate IS NULL OR t.buyDate >= :startDate) AND " +
+           "(:endDate IS NULL OR t.buyDate <= :endDate)")
+    Page<TradeResponse> findWithFilters(@Param("userId") Long userId,
                                  @Param("market") Market market,
                                  @Param("status") TradeStatus status,
+                                 @Param("startDate") LocalDate startDate,
+                                 @Param("endDate") LocalDate endDate,
                                  Pageable pageable);
 
     // For admin to see all users' trades
-    @Query("SELECT t FROM Trade t ORDER BY t.createdAt DESC")
-    Page<Trade> findAllTrades(Pageable pageable);
+    @Query(value = TRADE_RESPONSE + "FROM Trade t ORDER BY t.createdAt DESC",
+           countQuery = "SELECT COUNT(t) FROM Trade t")
+    Page<TradeResponse> findAllTrades(Pageable pageable);
 
     // Get open positions for a specific symbol across all users (for admin reporting)
     @Query("SELECT t FROM Trade t WHERE t.symbol = :symbol AND t.status IN ('OPEN', 'PARTIALLY_SOLD')")
     List<Trade> findOpenPositionsBySymbol(@Param("symbol") String symbol);
+
+    // Open buy lots for a symbol, oldest first, locked for the duration of a FIFO sell
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Trade t WHERE t.userId = :userId AND t.market = :market AND t.symbol = :symbol " +
+           "AND t.status IN ('OPEN', 'PARTIALLY_SOLD') ORDER BY t.buyDate, t.id")
+    List<Trade> lockOpenLots(@Param("userId") Long userId,
+                             @Param("market") Market market,
+                             @Param("symbol") String symbol);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Trade t WHERE t.id = :id")
+    Optional<Trade> lockById(@Param("id") Long id);
+
+    // Keyset pages: rows strictly after the (sort key, id) of the previous page's last row
+    @Query(TRADE_RESPONSE + "FROM Trade t WHERE t.userId = :userId ORDER BY t.buyDate DESC, t.id DESC")
+    List<TradeResponse> findUserTradesFirstPage(@Param("userId") Long userId, Pageable pageable);
+
+    // The leading buyDate bound lets MySQL prune partitions newer than the cursor
+    @Query(TRADE_RESPONSE + "FROM Trade t WHERE t.userId = :userId AND t.buyDate <= :buyDate AND " +
+           "(t.buyDate < :buyDate OR (t.buyDate = :buyDate AND t.id < :id)) " +
+           "ORDER BY t.buyDate DESC, t.id DESC")
+    List<TradeResponse> findUserTradesAfter(@Param("userId") Long userId,
+                                    @Param("buyDate") LocalDate buyDate,
+                                    @Param("id") Long id,
+                                    Pageable pageable);
+
+    @Query(TRADE_RESPONSE + "FROM Trade t ORDER BY t.createdAt DESC, t.id DESC")
+    List<TradeResponse> findAllTradesFirstPage(Pageable pageable);
+
+    @Query(TRADE_RESPONSE + "FROM Trade t WHERE t.createdAt < :createdAt OR (t.createdAt = :createdAt AND t.id < :id) " +
+           "ORDER BY t.createdAt DESC, t.id DESC")
+    List<TradeResponse> findAllTradesAfter(@Param("createdAt") LocalDateTime createdAt,
+                                   @Param("id") Long id,
+                                   Pageable pageable);
+
+    // Single pass over trades used to rebuild the striped admin stats counters
+    @Query(value = "SELECT MOD(t.user_id, :slots) AS slot, COUNT(*) AS totalTrades, " +
+           "SUM(CASE WHEN t.status IN ('OPEN', 'PARTIALLY_SOLD') THEN 1 ELSE 0 END) AS openTrades, " +
+           "SUM(CASE WHEN t.status IN ('OPEN', 'PARTIALLY_SOLD') THEN COALESCE(t.current_value, 0) ELSE 0 END) AS totalAum, " +
+           "COUNT(DISTINCT t.user_id) AS investors " +
+           "FROM trades t GROUP BY MOD(t.user_id, :slots)", nativeQuery = true)
+    List<StatsSlotTotals> aggregateStatsBySlot(@Param("slots") int slots);
+
+    interface UserPLAggregate {
+        BigDecimal getTotalProfitLoss();
+        BigDecimal getTotalInvestedAmount();
+        Number getOpenTradesCount();
+        Number getClosedTradesCount();
+        Number getPartiallySoldTradesCount();
+    }
+
+    interface UserPLAggregateByUser extends UserPLAggregate {
+        Number getUserId();
+    }
+
+    interface StatsSlotTotals {
+        Number getSlot();
+        Number getTotalTrades();
+        Number getOpenTrades();
+        BigDecimal getTotalAum();
+        Number getInvestors();
+    }
 }
@@ -1,53 +1,157 @@
 package com.confiance.portfolio.repository;
 
 import com.confiance.common.enums.Market;
+import com.confiance.portfolio.dto.UserHoldingResponse;
 import com.confiance.portfolio.entity.UserHolding;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserHoldingRepository extends JpaRepository<UserHolding, Long> {
 
+    // Read queries select straight into UserHoldingResponse; valuation is applied afterwards
+    String HOLDING_RESPONSE = "SELECT new com.confiance.portfolio.dto.UserHoldingResponse(h.id, h.userId, h.market, " +
+            "h.symbol, h.companyName, h.currency, h.quantity, h.averageBuyPrice, h.boughtOn, h.investedAmount, " +
+            "h.currentPrice, h.currentValue, h.unrealizedPL, h.unrealizedPLPercentage, h.createdAt, h.updatedAt) ";
+
+    // The stored valuation columns recalculated as UserHolding.calculateFields does, for updates that
+    // have just assigned quantity, average_buy_price or current_price. MySQL applies the assignments
+    // left to right, so each one sees the columns set before it. The percentage is PositionMath.percentage,
+    // HALF_UP of unrealizedpl * 100 / invested_amount at scale 2: the extra decimals on the literal keep
+    // the intermediate quotient (rounded at its scale + 4) too precise to tip the final ROUND.
+    String RECALCULATE_VALUATION = "h.invested_amount = ROUND(h.quantity * h.average_buy_price, 2), " +
+            "h.current_value = CASE WHEN h.current_price IS NOT NULL " +
+            "THEN ROUND(h.quantity * h.current_price, 2) ELSE h.current_value END, " +
+            "h.unrealizedpl = CASE WHEN h.current_price IS NOT NULL AND h.invested_amount > 0 " +
+            "THEN h.current_value - h.invested_amount ELSE h.unrealizedpl END, " +
+            "h.unrealizedplpercentage = CASE WHEN h.current_price IS NOT NULL AND h.invested_amount > 0 " +
+            "THEN ROUND(h.unrealizedpl * 100.00000000000000000000 / h.invested_amount, 2) " +
+            "ELSE h.unrealizedplpercentage END, h.updated_at = NOW(6) ";
+
     List<UserHolding> findByUserId(Long userId);
 
-    Page<UserHolding> findByUserId(Long userId, Pageable pageable);
+    @Query(value = HOLDING_RESPONSE + "FROM UserHolding h WHERE h.userId = :userId",
+           countQuery = "SELECT COUNT(h) FROM UserHolding h WHERE h.userId = :userId")
+    Page<UserHoldingResponse> findByUserId(@Param("userId") Long userId, Pageable pageable);
 
     List<UserHolding> findByUserIdAndMarket(Long userId, Market market);
 
     Optional<UserHolding> findByUserIdAndSymbolAndMarket(Long userId, String symbol, Market market);
 
-    @Query("SELECT h FROM UserHolding h WHERE h.userId = :userId AND h.quantity > 0 ORDER BY h.investedAmount DESC")
-    List<UserHolding> findActiveHoldingsByUser(@Param("userId") Long userId);
+    // Inserts an empty holding if there is none and row-locks it either way. Concurrent first buys
+    // of a symbol queue on the unique key here instead of failing on it (each call may use up an
+    // auto-increment value).
+    @Modifying
+    @Query(value = "INSERT INTO user_holdings (user_id, market, symbol, company_name, currency, quantity, " +
+           "average_buy_price, bought_on, invested_amount, created_at, updated_at) " +
+           "VALUES (:userId, :market, :symbol, :companyName, :currency, 0, 0, :boughtOn, 0, NOW(6), NOW(6)) " +
+           "ON DUPLICATE KEY UPDATE id = id", nativeQuery = true)
+    int claimHolding(@Param("userId") Long userId,
+                     @Param("market") String market,
+                     @Param("symbol") String symbol,
+                     @Param("companyName") String companyName,
+                     @Param("currency") String currency,
+                     @Param("boughtOn") LocalDate boughtOn);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM UserHolding h WHERE h.userId = :userId AND h.symbol = :symbol AND h.market = :market")
+    Optional<UserHolding> lockByUserIdAndSymbolAndMarket(@Param("userId") Long userId,
+                                                          @Param("symbol") String symbol,
+                                                          @Param("market") Market market);
 
-    @Query("SELECT SUM(h.investedAmount) FROM UserHolding h WHERE h.userId = :userId AND h.quantity > 0")
-    BigDecimal getTotalInvestedByUser(@Param("userId") Long userId);
+    // Guarded decrement: matches no row when the holding is missing or too small
+    @Modifying
+    @Query(value = "UPDATE user_holdings h SET h.quantity = h.quantity - :quantity, " + RECALCULATE_VALUATION +
+           "WHERE h.user_id = :userId AND h.symbol = :symbol AND h.market = :market AND h.quantity >= :quantity",
+           nativeQuery = true)
+    int removeShares(@Param("userId") Long userId,
+                     @Param("market") String market,
+                     @Param("symbol") String symbol,
+                     @Param("quantity") BigDecimal quantity);
 
-    @Query("SELECT SUM(h.currentValue) FROM UserHolding h WHERE h.userId = :userId AND h.quantity > 0")
-    BigDecimal getTotalCurrentValueByUser(@Param("userId") Long userId);
+    @Query(HOLDING_RESPONSE + "FROM UserHolding h WHERE h.userId = :userId AND h.symbol = :symbol AND h.market = :market")
+    Optional<UserHoldingResponse> findResponseByUserIdAndSymbolAndMarket(@Param("userId") Long userId,
+                                                                          @Param("symbol") String symbol,
+                                                                          @Param("market") Market market);
 
-    @Query("SELECT SUM(h.unrealizedPL) FROM UserHolding h WHERE h.userId = :userId AND h.quantity > 0")
-    BigDecimal getTotalUnrealizedPLByUser(@Param("userId") Long userId);
+    @Query(HOLDING_RESPONSE + "FROM UserHolding h WHERE h.userId = :userId AND h.quantity > 0 ORDER BY h.investedAmount DESC")
+    List<UserHoldingResponse> findActiveHoldingsByUser(@Param("userId") Long userId);
+
+    @Query(HOLDING_RESPONSE + "FROM UserHolding h WHERE h.userId IN :userIds AND h.quantity > 0 " +
+           "ORDER BY h.userId, h.investedAmount DESC")
+    List<UserHoldingResponse> findActiveHoldingsByUsers(@Param("userIds") Collection<Long> userIds);
 
     // For admin - get all holdings for a specific symbol
-    @Query("SELECT h FROM UserHolding h WHERE h.symbol = :symbol AND h.quantity > 0")
-    List<UserHolding> findAllHoldingsBySymbol(@Param("symbol") String symbol);
+    @Query(HOLDING_RESPONSE + "FROM UserHolding h WHERE h.symbol = :symbol AND h.quantity > 0")
+    List<UserHoldingResponse> findAllHoldingsBySymbol(@Param("symbol") String symbol);
+
+    // Largest holders of one symbol, read from idx_holding_symbol_exposure
+    @Query(HOLDING_RESPONSE + "FROM UserHolding h WHERE h.symbol = :symbol AND h.market = :market " +
+           "AND h.quantity > 0 ORDER BY h.quantity DESC")
+    List<UserHoldingResponse> findTopHolders(@Param("symbol") String symbol,
+                                             @Param("market") Market market,
+                                             Pageable pageable);
 
     // For admin - get all users with holdings
     @Query("SELECT DISTINCT h.userId FROM UserHolding h WHERE h.quantity > 0")
     List<Long> findAllUsersWithHoldings();
 
+    // Keyset page of the same users, in id order
+    @Query("SELECT DISTINCT h.userId FROM UserHolding h WHERE h.quantity > 0 AND h.userId > :afterUserId ORDER BY h.userId")
+    List<Long> findUsersWithHoldingsAfter(@Param("afterUserId") Long afterUserId, Pageable pageable);
+
     @Query("SELECT h FROM UserHolding h WHERE h.userId = :userId AND " +
            "(:market IS NULL OR h.market = :market) AND h.quantity > 0 " +
            "ORDER BY h.investedAmount DESC")
     Page<UserHolding> findWithFilters(@Param("userId") Long userId,
                                        @Param("market") Market market,
                                        Pageable pageable);
+
+    // Keyset pages in the same order as getUserHoldingsPaged
+    @Query(HOLDING_RESPONSE + "FROM UserHolding h WHERE h.userId = :userId ORDER BY h.investedAmount DESC, h.id DESC")
+    List<UserHoldingResponse> findUserHoldingsFirstPage(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(HOLDING_RESPONSE + "FROM UserHolding h WHERE h.userId = :userId AND " +
+           "(h.investedAmount < :investedAmount OR (h.investedAmount = :investedAmount AND h.id < :id)) " +
+           "ORDER BY h.investedAmount DESC, h.id DESC")
+    List<UserHoldingResponse> findUserHoldingsAfter(@Param("userId") Long userId,
+                                            @Param("investedAmount") BigDecimal investedAmount,
+                                            @Param("id") Long id,
+                                            Pageable pageable);
+
+    long countByUserId(Long userId);
+
+    // Upper id of the next revaluation chunk for a symbol, walking the symbol index in id order
+    @Query(value = "SELECT MAX(x.id) FROM (SELECT h.id FROM user_holdings h WHERE h.symbol = :symbol " +
+           "AND h.market = :market AND h.id > :afterId ORDER BY h.id LIMIT :limit) x", nativeQuery = true)
+    Long findRevaluationChunkEnd(@Param("market") String market,
+                                 @Param("symbol") String symbol,
+                                 @Param("afterId") long afterId,
+                                 @Param("limit") int limit);
+
+    // Set-based equivalent of setting currentPrice and running UserHolding.calculateFields
+    // (the unrealizedPL fields map to unrealizedpl* columns under the default naming strategy)
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE user_holdings h SET h.current_price = :price, " + RECALCULATE_VALUATION +
+           "WHERE h.symbol = :symbol AND h.market = :market AND h.id > :afterId AND h.id <= :toId", nativeQuery = true)
+    int revalueChunk(@Param("market") String market,
+                     @Param("symbol") String symbol,
+                     @Param("price") BigDecimal price,
+                     @Param("afterId") long afterId,
+                     @Param("toId") long toId);
 }
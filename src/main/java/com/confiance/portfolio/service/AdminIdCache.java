@@ -0,0 +1,142 @@
+package com.confiance.portfolio.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Admin user IDs from user-service. The list is served from memory and refreshed in the
+// background once it is older than refresh-after; a stale list keeps being served while
+// user-service is slow or down, so callers never wait longer than fetch-timeout.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AdminIdCache {
+
+    private final AdminIdSource source;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${portfolio.admin-ids.refresh-after-ms:300000}")
+    private long refreshAfterMs;
+
+    @Value("${portfolio.admin-ids.expire-after-ms:3600000}")
+    private long expireAfterMs;
+
+    @Value("${portfolio.admin-ids.fetch-timeout-ms:2000}")
+    private long fetchTimeoutMs;
+
+    private record Entry(List<Long> adminIds, long fetchedAtMillis) {
+    }
+
+    private final AtomicReference<Entry> entry = new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<List<Long>>> inFlight = new AtomicReference<>();
+    private ExecutorService refreshExecutor;
+
+    private Counter hitCounter;
+    private Counter staleCounter;
+    private Counter missCounter;
+    private Counter refreshSuccessCounter;
+    private Counter refreshFailureCounter;
+
+    @PostConstruct
+    void init() {
+        refreshExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "admin-id-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        hitCounter = Counter.builder("portfolio.admin.ids.cache.requests").tag("result", "hit").register(meterRegistry);
+        staleCounter = Counter.builder("portfolio.admin.ids.cache.requests").tag("result", "stale").register(meterRegistry);
+        missCounter = Counter.builder("portfolio.admin.ids.cache.requests").tag("result", "miss").register(meterRegistry);
+        refreshSuccessCounter = Counter.builder("portfolio.admin.ids.cache.refreshes").tag("outcome", "success").register(meterRegistry);
+        refreshFailureCounter = Counter.builder("portfolio.admin.ids.cache.refreshes").tag("outcome", "failure").register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        refreshAsync();
+    }
+
+    public List<Long> getAdminIds() {
+        Entry current = entry.get();
+        if (current != null) {
+            long age = System.currentTimeMillis() - current.fetchedAtMillis();
+            if (age < refreshAfterMs) {
+                hitCounter.increment();
+                return current.adminIds();
+            }
+            if (age < expireAfterMs) {
+                staleCounter.increment();
+                refreshAsync();
+                return current.adminIds();
+            }
+        }
+
+        missCounter.increment();
+        try {
+            return refreshAsync().get(fetchTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (TimeoutException e) {
+            log.debug("Admin ID fetch exceeded {} ms, serving cached value", fetchTimeoutMs);
+        } catch (Exception e) {
+            log.debug("Admin ID fetch failed: {}", e.getMessage());
+        }
+        return current != null ? current.adminIds() : List.of();
+    }
+
+    // At most one fetch runs at a time; concurrent callers share its result
+    private CompletableFuture<List<Long>> refreshAsync() {
+        CompletableFuture<List<Long>> existing = inFlight.get();
+        if (existing != null && !existing.isDone()) {
+            return existing;
+        }
+
+        CompletableFuture<List<Long>> next = new CompletableFuture<>();
+        if (!inFlight.compareAndSet(existing, next)) {
+            return inFlight.get();
+        }
+
+        refreshExecutor.execute(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            try {
+                List<Long> adminIds = source.fetchAdminIds();
+                sample.stop(fetchTimer("success"));
+                entry.set(new Entry(List.copyOf(adminIds), System.currentTimeMillis()));
+                refreshSuccessCounter.increment();
+                next.complete(adminIds);
+            } catch (Exception e) {
+                sample.stop(fetchTimer("failure"));
+                refreshFailureCounter.increment();
+                log.debug("Admin ID refresh failed: {}", e.getMessage());
+                next.completeExceptionally(e);
+            }
+        });
+        return next;
+    }
+
+    private Timer fetchTimer(String outcome) {
+        return Timer.builder("portfolio.admin.ids.fetch").tag("outcome", outcome).register(meterRegistry);
+    }
+}
@@ -0,0 +1,9 @@
+package com.confiance.portfolio.service;
+
+import java.util.List;
+
+// Where AdminIdCache loads admin user IDs from; implementations throw when the lookup fails
+public interface AdminIdSource {
+
+    List<Long> fetchAdminIds();
+}
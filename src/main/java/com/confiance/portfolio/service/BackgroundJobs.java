@@ -0,0 +1,54 @@
+package com.confiance.portfolio.service;
+
+import com.confiance.common.exception.BadRequestException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+// Bounded pool for long admin jobs (reconciliation, partition migration, snapshots), kept apart
+// from request threads and the scheduler. Not exposed as an Executor bean, which would replace
+// Boot's applicationTaskExecutor. Shutdown interrupts running jobs; each one keeps a checkpoint.
+@Component
+@Slf4j
+public class BackgroundJobs {
+
+    @Value("${portfolio.jobs.pool-size:4}")
+    private int poolSize;
+
+    private ThreadPoolTaskExecutor executor;
+
+    @PostConstruct
+    void init() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("portfolio-job-");
+        executor.setDaemon(true);
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    public void submit(String name, Runnable job) {
+        try {
+            executor.execute(() -> {
+                try {
+                    job.run();
+                } catch (RuntimeException e) {
+                    log.error("Background job {} failed: {}", name, e.getMessage(), e);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            throw new BadRequestException("Too many background jobs are running, try again later");
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.confiance.portfolio.service;
+
+import com.confiance.common.exception.BadRequestException;
+import com.confiance.portfolio.config.StatementBudget;
+import com.confiance.portfolio.dto.ClientPLSummary;
+import com.confiance.portfolio.dto.CursorPage;
+import com.confiance.portfolio.dto.HoldingSummary;
+import com.confiance.portfolio.dto.PageCursor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+// Trade and holding summaries for a batch of users, as the admin client P&L page shows them.
+// Each side is one grouped read over the whole batch instead of two requests per user.
+@Service
+@RequiredArgsConstructor
+public class ClientSummaryService {
+
+    private final TradeService tradeService;
+    private final UserHoldingService holdingService;
+
+    @Value("${portfolio.client-summaries.max-users:500}")
+    private int maxUsers;
+
+    @StatementBudget(2)
+    public List<ClientPLSummary> getSummaries(List<Long> userIds, boolean includeHoldings) {
+        List<Long> users = userIds == null ? List.of() : userIds.stream().filter(Objects::nonNull).distinct().toList();
+        if (users.isEmpty()) {
+            throw new BadRequestException("At least one userId is required");
+        }
+        if (users.size() > maxUsers) {
+            throw new BadRequestException("At most " + maxUsers + " users can be summarized per request");
+        }
+        return summarize(users, includeHoldings);
+    }
+
+    // Walks the users that have holdings in id order; the cursor is the last user of the previous page
+    @StatementBudget(3)
+    public CursorPage<ClientPLSummary> getSummariesPage(String cursor, int size, boolean includeHoldings) {
+        if (size < 1 || size > maxUsers) {
+            throw new BadRequestException("Page size must be between 1 and " + maxUsers);
+        }
+        PageCursor after = PageCursor.decode(cursor);
+        List<Long> users = holdingService.getUsersWithHoldingsAfter(after != null ? after.id() : Long.MIN_VALUE, size + 1);
+        boolean hasNext = users.size() > size;
+        List<Long> page = hasNext ? users.subList(0, size) : users;
+        String nextCursor = null;
+        if (hasNext) {
+            Long last = page.get(page.size() - 1);
+            nextCursor = new PageCursor(String.valueOf(last), last).encode();
+        }
+
+        return CursorPage.<ClientPLSummary>builder()
+                .content(page.isEmpty() ? List.of() : summarize(page, includeHoldings))
+                .size(size)
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    private List<ClientPLSummary> summarize(List<Long> userIds, boolean includeHoldings) {
+        List<TradeService.UserPLSummary> profitLoss = tradeService.getUserPLSummaries(userIds);
+        List<HoldingSummary> holdings = holdingService.getUserHoldingSummaries(userIds, includeHoldings);
+
+        // Both lists come back in userIds order
+        List<ClientPLSummary> summaries = new ArrayList<>(userIds.size());
+        for (int i = 0; i < userIds.size(); i++) {
+            summaries.add(ClientPLSummary.builder()
+                    .userId(userIds.get(i))
+                    .profitLoss(profitLoss.get(i))
+                    .holdings(holdings.get(i))
+                    .build());
+        }
+        return summaries;
+    }
+}
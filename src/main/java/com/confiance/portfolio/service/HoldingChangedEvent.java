@@ -0,0 +1,16 @@
+package com.confiance.portfolio.service;
+
+import com.confiance.common.enums.Market;
+
+import java.math.BigDecimal;
+
+// Published by UserHoldingService whenever a holding row changes; before values are zero
+// for a new holding
+public record HoldingChangedEvent(Long userId,
+                                  Market market,
+                                  String symbol,
+                                  BigDecimal quantityBefore,
+                                  BigDecimal quantityAfter,
+                                  BigDecimal investedBefore,
+                                  BigDecimal investedAfter) {
+}
@@ -0,0 +1,88 @@
+package com.confiance.portfolio.service;
+
+import com.confiance.portfolio.dto.UserHoldingResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+// Per-user active holdings as mapped responses, before quote valuation. Valuation is applied
+// on every read, so price moves never need an invalidation; holding writes evict the user
+// once their transaction commits. Bounded by total cached rows rather than users, since
+// holdings per user vary widely.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class HoldingReadCache {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${portfolio.holdings-cache.max-rows:5000000}")
+    private long maxRows;
+
+    @Value("${portfolio.holdings-cache.ttl-ms:300000}")
+    private long ttlMs;
+
+    // Rough retained size of one cached UserHoldingResponse, used for the memory gauge
+    @Value("${portfolio.holdings-cache.bytes-per-row:640}")
+    private long bytesPerRow;
+
+    private Cache<Long, List<UserHoldingResponse>> cache;
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maxRows)
+                .weigher((Long userId, List<UserHoldingResponse> holdings) -> holdings.size() + 1)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "user-holdings");
+        Gauge.builder("portfolio.holdings.cache.estimated.bytes", this, HoldingReadCache::estimatedBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("portfolio.holdings.cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .register(meterRegistry);
+    }
+
+    public List<UserHoldingResponse> get(Long userId, Function<Long, List<UserHoldingResponse>> loader) {
+        return cache.get(userId, loader);
+    }
+
+    // Misses are loaded together by one call to the loader, which must return every user it is given
+    public Map<Long, List<UserHoldingResponse>> getAll(Collection<Long> userIds,
+                                                        Function<Set<? extends Long>, Map<Long, List<UserHoldingResponse>>> loader) {
+        return cache.getAll(userIds, loader);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onHoldingChanged(HoldingChangedEvent event) {
+        cache.invalidate(event.userId());
+    }
+
+    public void invalidate(Long userId) {
+        cache.invalidate(userId);
+    }
+
+    private double estimatedBytes() {
+        return cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L) * (double) bytesPerRow;
+    }
+}
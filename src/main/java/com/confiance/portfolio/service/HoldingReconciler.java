@@ -0,0 +1,560 @@
+package com.confiance.portfolio.service;
+
+import com.confiance.common.dto.PageResponse;
+import com.confiance.common.enums.Market;
+import com.confiance.common.exception.BadRequestException;
+import com.confiance.portfolio.dto.HoldingMismatchResponse;
+import com.confiance.portfolio.dto.ReconciliationRunResponse;
+import com.confiance.portfolio.entity.HoldingMismatch;
+import com.confiance.portfolio.entity.ReconciliationRun;
+import com.confiance.portfolio.repository.HoldingMismatchRepository;
+import com.confiance.portfolio.repository.ReconciliationRunRepository;
+import com.confiance.portfolio.repository.UserHoldingRepository;
+import com.confiance.portfolio.util.PositionMath;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Rebuilds the holdings implied by the trade log and diffs them against user_holdings, one
+// shard of users at a time. A shard's trades, sells and holdings are read from one snapshot,
+// the per-user diffs run in parallel on a dedicated fork-join pool, and mismatches (plus fixes
+// in FIX mode) are written in one transaction together with the run's checkpoint. Runs pause
+// between shards and cap the rows read per second so they can run against production.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class HoldingReconciler {
+
+    // Next shard of user ids that have trades or holdings, in id order
+    private static final String NEXT_USERS_SQL = "SELECT u.user_id FROM (" +
+            "(SELECT DISTINCT t.user_id FROM trades t WHERE t.user_id > ? ORDER BY t.user_id LIMIT ?) UNION " +
+            "(SELECT DISTINCT h.user_id FROM user_holdings h WHERE h.user_id > ? ORDER BY h.user_id LIMIT ?)" +
+            ") u ORDER BY u.user_id LIMIT ?";
+
+    private static final String LOTS_SQL = "SELECT t.id, t.user_id, t.market, t.symbol, t.company_name, t.currency, " +
+            "t.buy_date, t.buy_price, t.buy_quantity, t.sell_quantity, t.remaining_quantity, t.status, " +
+            "t.created_at, t.updated_at FROM trades t WHERE t.user_id BETWEEN ? AND ?";
+
+    private static final String SELLS_SQL = "SELECT a.id, a.trade_id, a.user_id, a.market, a.symbol, a.quantity, " +
+            "a.created_at FROM sell_allocations a WHERE a.user_id BETWEEN ? AND ?";
+
+    private static final String HOLDINGS_SQL = "SELECT h.id, h.user_id, h.market, h.symbol, h.quantity, " +
+            "h.average_buy_price FROM user_holdings h WHERE h.user_id BETWEEN ? AND ?";
+
+    // Guarded on the values that were diffed, so a holding written since then is left for the next run
+    private static final String FIX_SQL = "UPDATE user_holdings h SET h.quantity = ?, h.average_buy_price = ?, " +
+            UserHoldingRepository.RECALCULATE_VALUATION + "WHERE h.id = ? AND h.quantity = ? AND h.average_buy_price = ?";
+
+    private static final String INSERT_SQL = "INSERT IGNORE INTO user_holdings (user_id, market, symbol, " +
+            "company_name, currency, quantity, average_buy_price, bought_on, invested_amount, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ROUND(? * ?, 2), NOW(6), NOW(6))";
+
+    private static final String MISMATCH_SQL = "INSERT INTO holding_mismatches (run_id, user_id, market, symbol, " +
+            "kind, expected_quantity, expected_average_price, actual_quantity, actual_average_price, fixed, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String LEASE = "holding-reconciliation";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final JobLeases leases;
+    private final BackgroundJobs jobs;
+    private final ReconciliationRunRepository runRepository;
+    private final HoldingMismatchRepository mismatchRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${portfolio.reconciliation.shard-users:500}")
+    private int shardUsers;
+
+    // 0 uses every core
+    @Value("${portfolio.reconciliation.parallelism:0}")
+    private int parallelism;
+
+    @Value("${portfolio.reconciliation.pause-ms:200}")
+    private long pauseMs;
+
+    // 0 disables the rate cap
+    @Value("${portfolio.reconciliation.max-rows-per-second:20000}")
+    private long maxRowsPerSecond;
+
+    // Holding averages are rounded at every buy, so they can sit slightly off the exact weighted price
+    @Value("${portfolio.reconciliation.price-tolerance:0.05}")
+    private BigDecimal priceTolerance;
+
+    // Renewed after every shard; a run whose instance died is free to resume after this long
+    @Value("${portfolio.reconciliation.lease-ms:600000}")
+    private long leaseMs;
+
+    @Value("${portfolio.paging.max-size:200}")
+    private int maxPageSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private TransactionTemplate snapshotTemplate;
+
+    private record HoldingKey(Market market, String symbol) {
+    }
+
+    private record Lot(Long id, HoldingKey key, String companyName, String currency, LocalDate buyDate,
+                       BigDecimal buyPrice, BigDecimal buyQuantity, BigDecimal remaining, boolean open,
+                       LocalDateTime createdAt, LocalDateTime updatedAt) {
+    }
+
+    private record Sell(Long id, Long tradeId, HoldingKey key, BigDecimal quantity, LocalDateTime createdAt) {
+    }
+
+    // One buy or sell in the order it reached the holding
+    private record Event(LocalDateTime at, int order, long id, BigDecimal quantity, BigDecimal price) {
+    }
+
+    private record ActualHolding(Long id, BigDecimal quantity, BigDecimal averagePrice) {
+    }
+
+    private static class ExpectedHolding {
+        private String companyName;
+        private String currency;
+        private LocalDate boughtOn;
+        private BigDecimal quantity = BigDecimal.ZERO;
+        private BigDecimal averagePrice;
+    }
+
+    private record Diff(Long userId, HoldingKey key, HoldingMismatch.Kind kind, ExpectedHolding expected,
+                        BigDecimal expectedQuantity, BigDecimal expectedPrice, ActualHolding actual) {
+    }
+
+    private record UserResult(int holdings, List<Diff> diffs) {
+    }
+
+    private record Shard(Map<Long, List<Lot>> lots, Map<Long, List<Sell>> sells,
+                         Map<Long, Map<HoldingKey, ActualHolding>> holdings, long rows) {
+    }
+
+    // Trades, sells and holdings of a shard are read from one snapshot, so a buy committed
+    // between the reads cannot make a correct holding look wrong
+    @PostConstruct
+    void init() {
+        snapshotTemplate = new TransactionTemplate(transactionManager);
+        snapshotTemplate.setReadOnly(true);
+        snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    public ReconciliationRunResponse getStatus() {
+        return runRepository.findFirstByOrderByIdDesc().map(this::toResponse).orElse(null);
+    }
+
+    public PageResponse<HoldingMismatchResponse> getMismatches(Long runId, int page, int size) {
+        if (size < 1 || size > maxPageSize) {
+            throw new BadRequestException("Page size must be between 1 and " + maxPageSize);
+        }
+        if (page < 0) {
+            throw new BadRequestException("Page number must not be negative");
+        }
+        Page<HoldingMismatch> mismatches = mismatchRepository.findByRunIdOrderById(runId, PageRequest.of(page, size));
+        return PageResponse.<HoldingMismatchResponse>builder()
+                .content(mismatches.getContent().stream().map(this::toResponse).toList())
+                .pageNumber(mismatches.getNumber())
+                .pageSize(mismatches.getSize())
+                .totalElements(mismatches.getTotalElements())
+                .totalPages(mismatches.getTotalPages())
+                .last(mismatches.isLast())
+                .first(mismatches.isFirst())
+                .empty(mismatches.isEmpty())
+                .build();
+    }
+
+    // With resume, an unfinished previous run continues after its checkpoint in its original mode
+    public ReconciliationRunResponse start(ReconciliationRun.Mode mode, boolean resume) {
+        if (!running.compareAndSet(false, true)) {
+            throw new BadRequestException("Reconciliation is already running");
+        }
+        boolean leased = false;
+        try {
+            if (!leases.acquire(LEASE, leaseMs)) {
+                throw new BadRequestException("Reconciliation is in progress on another instance");
+            }
+            leased = true;
+            LocalDateTime now = LocalDateTime.now();
+            ReconciliationRun latest = runRepository.findFirstByOrderByIdDesc().orElse(null);
+
+            ReconciliationRun run;
+            if (resume && latest != null && latest.getStatus() != ReconciliationRun.Status.COMPLETED) {
+                run = latest;
+                run.setStatus(ReconciliationRun.Status.RUNNING);
+                run.setFinishedAt(null);
+                run.setError(null);
+            } else {
+                run = ReconciliationRun.builder()
+                        .mode(mode)
+                        .status(ReconciliationRun.Status.RUNNING)
+                        .startedAt(now)
+                        .build();
+            }
+            run.setHeartbeatAt(now);
+            ReconciliationRun saved = runRepository.save(run);
+            if (run.isCancelRequested()) {
+                runRepository.clearCancel(saved.getId());
+            }
+
+            jobs.submit("holding-reconciler", () -> run(saved));
+            return toResponse(saved);
+        } catch (RuntimeException e) {
+            if (leased) {
+                leases.release(LEASE);
+            }
+            running.set(false);
+            throw e;
+        }
+    }
+
+    // Stored on the run, so the instance holding the lease sees it after its current shard
+    public ReconciliationRunResponse cancel() {
+        runRepository.requestCancel(ReconciliationRun.Status.RUNNING);
+        return getStatus();
+    }
+
+    private void run(ReconciliationRun run) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        log.info("Reconciliation run {} ({}) starting after user {}", run.getId(), run.getMode(), run.getLastUserId());
+        try {
+            long after = run.getLastUserId() != null ? run.getLastUserId() : Long.MIN_VALUE;
+            boolean cancelled;
+            while (!(cancelled = runRepository.isCancelRequested(run.getId()))) {
+                List<Long> users = jdbcTemplate.queryForList(NEXT_USERS_SQL, Long.class,
+                        after, shardUsers, after, shardUsers, shardUsers);
+                if (users.isEmpty()) {
+                    break;
+                }
+                long started = System.currentTimeMillis();
+                Shard shard = snapshotTemplate.execute(status -> readShard(users.get(0), users.get(users.size() - 1)));
+                run = reconcileShard(run, users, shard, pool);
+                after = users.get(users.size() - 1);
+                if (!leases.acquire(LEASE, leaseMs)) {
+                    throw new IllegalStateException("Reconciliation lease was taken over by another instance");
+                }
+                throttle(shard.rows(), started);
+            }
+            finish(run, cancelled ? ReconciliationRun.Status.CANCELLED : ReconciliationRun.Status.COMPLETED, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            finish(run, ReconciliationRun.Status.CANCELLED, null);
+        } catch (Exception e) {
+            log.error("Reconciliation run {} failed: {}", run.getId(), e.getMessage(), e);
+            finish(run, ReconciliationRun.Status.FAILED, e.getMessage());
+        } finally {
+            pool.shutdown();
+            leases.release(LEASE);
+            running.set(false);
+        }
+    }
+
+    private Shard readShard(long firstUser, long lastUser) {
+        Map<Long, List<Lot>> lots = new HashMap<>();
+        Map<Long, List<Sell>> sells = new HashMap<>();
+        Map<Long, Map<HoldingKey, ActualHolding>> holdings = new HashMap<>();
+        long[] rows = new long[1];
+
+        jdbcTemplate.query(LOTS_SQL, rs -> {
+            rows[0]++;
+            BigDecimal bought = rs.getBigDecimal("buy_quantity");
+            BigDecimal remaining = rs.getBigDecimal("remaining_quantity");
+            if (remaining == null) {
+                BigDecimal sold = rs.getBigDecimal("sell_quantity");
+                remaining = sold != null ? bought.subtract(sold) : bought;
+            }
+            String status = rs.getString("status");
+            Date buyDate = rs.getDate("buy_date");
+            Timestamp createdAt = rs.getTimestamp("created_at");
+            Timestamp updatedAt = rs.getTimestamp("updated_at");
+            lots.computeIfAbsent(rs.getLong("user_id"), k -> new ArrayList<>()).add(new Lot(rs.getLong("id"),
+                    new HoldingKey(Market.valueOf(rs.getString("market")), rs.getString("symbol")),
+                    rs.getString("company_name"), rs.getString("currency"),
+                    buyDate != null ? buyDate.toLocalDate() : null,
+                    rs.getBigDecimal("buy_price"), bought, remaining,
+                    "OPEN".equals(status) || "PARTIALLY_SOLD".equals(status),
+                    createdAt != null ? createdAt.toLocalDateTime() : LocalDateTime.MIN,
+                    updatedAt != null ? updatedAt.toLocalDateTime() : null));
+        }, firstUser, lastUser);
+
+        jdbcTemplate.query(SELLS_SQL, rs -> {
+            rows[0]++;
+            sells.computeIfAbsent(rs.getLong("user_id"), k -> new ArrayList<>()).add(new Sell(rs.getLong("id"),
+                    rs.getLong("trade_id"),
+                    new HoldingKey(Market.valueOf(rs.getString("market")), rs.getString("symbol")),
+                    rs.getBigDecimal("quantity"), rs.getTimestamp("created_at").toLocalDateTime()));
+        }, firstUser, lastUser);
+
+        jdbcTemplate.query(HOLDINGS_SQL, rs -> {
+            rows[0]++;
+            holdings.computeIfAbsent(rs.getLong("user_id"), k -> new HashMap<>()).put(
+                    new HoldingKey(Market.valueOf(rs.getString("market")), rs.getString("symbol")),
+                    new ActualHolding(rs.getLong("id"), rs.getBigDecimal("quantity"), rs.getBigDecimal("average_buy_price")));
+        }, firstUser, lastUser);
+
+        return new Shard(lots, sells, holdings, rows[0]);
+    }
+
+    private ReconciliationRun reconcileShard(ReconciliationRun run, List<Long> users, Shard shard, ForkJoinPool pool)
+            throws Exception {
+        // A parallel stream started from inside the pool runs on that pool rather than the common one
+        List<UserResult> results = pool.submit(() -> users.parallelStream()
+                .map(userId -> diffUser(userId, shard.lots().getOrDefault(userId, List.of()),
+                        shard.sells().getOrDefault(userId, List.of()),
+                        shard.holdings().getOrDefault(userId, Map.of())))
+                .toList()).get();
+
+        List<Diff> diffs = new ArrayList<>();
+        long holdingsChecked = 0;
+        for (UserResult result : results) {
+            holdingsChecked += result.holdings();
+            diffs.addAll(result.diffs());
+        }
+
+        long checked = holdingsChecked;
+        return transactionTemplate.execute(status -> {
+            boolean[] fixed = run.getMode() == ReconciliationRun.Mode.FIX ? fix(diffs) : new boolean[diffs.size()];
+            recordMismatches(run.getId(), diffs, fixed);
+
+            long fixedCount = 0;
+            for (boolean f : fixed) {
+                if (f) fixedCount++;
+            }
+            run.setLastUserId(users.get(users.size() - 1));
+            run.setUsersChecked(run.getUsersChecked() + users.size());
+            run.setHoldingsChecked(run.getHoldingsChecked() + checked);
+            run.setMismatches(run.getMismatches() + diffs.size());
+            if (run.getMode() == ReconciliationRun.Mode.FIX) {
+                run.setFixed(run.getFixed() + fixedCount);
+                run.setSkipped(run.getSkipped() + diffs.size() - fixedCount);
+            }
+            run.setHeartbeatAt(LocalDateTime.now());
+            return runRepository.save(run);
+        });
+    }
+
+    private UserResult diffUser(Long userId, List<Lot> lots, List<Sell> sells, Map<HoldingKey, ActualHolding> actual) {
+        // Quantity is what the open lots still hold
+        Map<HoldingKey, ExpectedHolding> expected = new HashMap<>();
+        for (Lot lot : lots) {
+            if (!lot.open() || lot.remaining().signum() <= 0) continue;
+            ExpectedHolding holding = expected.computeIfAbsent(lot.key(), k -> new ExpectedHolding());
+            if (holding.companyName == null) holding.companyName = lot.companyName();
+            if (holding.currency == null) holding.currency = lot.currency();
+            if (lot.buyDate() != null && (holding.boughtOn == null || lot.buyDate().isBefore(holding.boughtOn))) {
+                holding.boughtOn = lot.buyDate();
+            }
+            holding.quantity = holding.quantity.add(lot.remaining());
+        }
+        replayAveragePrices(lots, sells, expected);
+
+        List<Diff> diffs = new ArrayList<>();
+        Set<HoldingKey> keys = new HashSet<>(expected.keySet());
+        keys.addAll(actual.keySet());
+        for (Map.Entry<HoldingKey, ExpectedHolding> entry : expected.entrySet()) {
+            ExpectedHolding holding = entry.getValue();
+            BigDecimal price = holding.averagePrice;
+            ActualHolding row = actual.get(entry.getKey());
+
+            HoldingMismatch.Kind kind = null;
+            if (row == null) {
+                kind = HoldingMismatch.Kind.MISSING;
+            } else if (row.quantity().compareTo(holding.quantity) != 0) {
+                kind = HoldingMismatch.Kind.QUANTITY;
+            } else if (row.averagePrice().subtract(price).abs().compareTo(priceTolerance) > 0) {
+                kind = HoldingMismatch.Kind.PRICE;
+            }
+            if (kind != null) {
+                diffs.add(new Diff(userId, entry.getKey(), kind, holding, holding.quantity, price, row));
+            }
+        }
+        for (Map.Entry<HoldingKey, ActualHolding> entry : actual.entrySet()) {
+            ActualHolding row = entry.getValue();
+            if (!expected.containsKey(entry.getKey()) && row.quantity().signum() > 0) {
+                diffs.add(new Diff(userId, entry.getKey(), HoldingMismatch.Kind.EXTRA, null,
+                        BigDecimal.ZERO, row.averagePrice(), row));
+            }
+        }
+        return new UserResult(keys.size(), diffs);
+    }
+
+    // The holding keeps an average cost: every buy is folded in as addOrUpdateHolding does, a sell
+    // only lowers the quantity, and a buy after the position went flat starts a new average. Buys
+    // are replayed from all lots, closed ones included, in the order they were recorded. Sells
+    // come from the ledger; quantity sold from a lot before the ledger existed is placed at the
+    // lot's last update, the best time the trades table still has.
+    private void replayAveragePrices(List<Lot> lots, List<Sell> sells, Map<HoldingKey, ExpectedHolding> expected) {
+        Map<HoldingKey, List<Event>> events = new HashMap<>();
+        Map<Long, BigDecimal> ledgered = new HashMap<>();
+        for (Sell sell : sells) {
+            if (!expected.containsKey(sell.key())) continue;
+            ledgered.merge(sell.tradeId(), sell.quantity(), BigDecimal::add);
+            events.computeIfAbsent(sell.key(), k -> new ArrayList<>())
+                    .add(new Event(sell.createdAt(), 1, sell.id(), sell.quantity().negate(), null));
+        }
+        for (Lot lot : lots) {
+            if (!expected.containsKey(lot.key())) continue;
+            List<Event> keyEvents = events.computeIfAbsent(lot.key(), k -> new ArrayList<>());
+            keyEvents.add(new Event(lot.createdAt(), 0, lot.id(), lot.buyQuantity(), lot.buyPrice()));
+            BigDecimal unledgered = lot.buyQuantity().subtract(lot.remaining())
+                    .subtract(ledgered.getOrDefault(lot.id(), BigDecimal.ZERO));
+            if (unledgered.signum() > 0) {
+                keyEvents.add(new Event(lot.updatedAt() != null ? lot.updatedAt() : lot.createdAt(), 1, lot.id(),
+                        unledgered.negate(), null));
+            }
+        }
+
+        events.forEach((key, keyEvents) -> {
+            keyEvents.sort(Comparator.comparing(Event::at).thenComparingInt(Event::order).thenComparingLong(Event::id));
+            BigDecimal quantity = BigDecimal.ZERO;
+            BigDecimal average = BigDecimal.ZERO;
+            for (Event event : keyEvents) {
+                if (event.price() != null) {
+                    average = PositionMath.averagePrice(quantity, average, event.quantity(), event.price());
+                    quantity = quantity.add(event.quantity());
+                } else {
+                    quantity = quantity.add(event.quantity()).max(BigDecimal.ZERO);
+                }
+            }
+            expected.get(key).averagePrice = average;
+        });
+    }
+
+    // Returns which diffs were applied; each applied fix is published like any other holding change
+    private boolean[] fix(List<Diff> diffs) {
+        boolean[] fixed = new boolean[diffs.size()];
+        List<Object[]> updates = new ArrayList<>();
+        List<Integer> updateIndexes = new ArrayList<>();
+
+        for (int i = 0; i < diffs.size(); i++) {
+            Diff diff = diffs.get(i);
+            if (diff.actual() != null) {
+                updates.add(new Object[] {diff.expectedQuantity(), diff.expectedPrice(), diff.actual().id(),
+                        diff.actual().quantity(), diff.actual().averagePrice()});
+                updateIndexes.add(i);
+            } else {
+                // Inserted one at a time: rewritten batch inserts do not report which rows were ignored
+                ExpectedHolding holding = diff.expected();
+                fixed[i] = jdbcTemplate.update(INSERT_SQL, diff.userId(), diff.key().market().name(),
+                        diff.key().symbol(), holding.companyName,
+                        holding.currency != null ? holding.currency : diff.key().market().getDefaultCurrency(),
+                        diff.expectedQuantity(), diff.expectedPrice(),
+                        holding.boughtOn != null ? Date.valueOf(holding.boughtOn) : null,
+                        diff.expectedQuantity(), diff.expectedPrice()) == 1;
+            }
+        }
+
+        if (!updates.isEmpty()) {
+            int[] counts = jdbcTemplate.batchUpdate(FIX_SQL, updates);
+            for (int j = 0; j < counts.length; j++) {
+                fixed[updateIndexes.get(j)] = counts[j] == 1;
+            }
+        }
+
+        for (int i = 0; i < diffs.size(); i++) {
+            if (!fixed[i]) continue;
+            Diff diff = diffs.get(i);
+            BigDecimal quantityBefore = diff.actual() != null ? diff.actual().quantity() : BigDecimal.ZERO;
+            BigDecimal investedBefore = diff.actual() != null
+                    ? PositionMath.value(diff.actual().quantity(), diff.actual().averagePrice()) : BigDecimal.ZERO;
+            eventPublisher.publishEvent(new HoldingChangedEvent(diff.userId(), diff.key().market(), diff.key().symbol(),
+                    quantityBefore, diff.expectedQuantity(),
+                    investedBefore, PositionMath.value(diff.expectedQuantity(), diff.expectedPrice())));
+        }
+        return fixed;
+    }
+
+    private void recordMismatches(Long runId, List<Diff> diffs, boolean[] fixed) {
+        if (diffs.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(diffs.size());
+        for (int i = 0; i < diffs.size(); i++) {
+            Diff diff = diffs.get(i);
+            rows.add(new Object[] {runId, diff.userId(), diff.key().market().name(), diff.key().symbol(),
+                    diff.kind().name(), diff.expectedQuantity(), diff.expectedPrice(),
+                    diff.actual() != null ? diff.actual().quantity() : null,
+                    diff.actual() != null ? diff.actual().averagePrice() : null,
+                    fixed[i], now});
+        }
+        jdbcTemplate.batchUpdate(MISMATCH_SQL, rows);
+    }
+
+    // Sleeps at least pause-ms, and long enough to keep the shard under max-rows-per-second
+    private void throttle(long rows, long startedMillis) throws InterruptedException {
+        long elapsed = System.currentTimeMillis() - startedMillis;
+        long budget = maxRowsPerSecond > 0 ? rows * 1000 / maxRowsPerSecond : 0;
+        long sleep = Math.max(pauseMs, budget - elapsed);
+        if (sleep > 0) {
+            Thread.sleep(sleep);
+        }
+    }
+
+    private void finish(ReconciliationRun run, ReconciliationRun.Status status, String error) {
+        run.setStatus(status);
+        run.setError(error != null && error.length() > 1000 ? error.substring(0, 1000) : error);
+        run.setFinishedAt(LocalDateTime.now());
+        run.setHeartbeatAt(run.getFinishedAt());
+        runRepository.save(run);
+        log.info("Reconciliation run {} {}: {} users, {} holdings, {} mismatches, {} fixed", run.getId(), status,
+                run.getUsersChecked(), run.getHoldingsChecked(), run.getMismatches(), run.getFixed());
+    }
+
+    private ReconciliationRunResponse toResponse(ReconciliationRun run) {
+        return ReconciliationRunResponse.builder()
+                .id(run.getId())
+                .mode(run.getMode())
+                .status(run.getStatus())
+                .lastUserId(run.getLastUserId())
+                .usersChecked(run.getUsersChecked())
+                .holdingsChecked(run.getHoldingsChecked())
+                .mismatches(run.getMismatches())
+                .fixed(run.getFixed())
+                .skipped(run.getSkipped())
+                .startedAt(run.getStartedAt())
+                .heartbeatAt(run.getHeartbeatAt())
+                .finishedAt(run.getFinishedAt())
+                .error(run.getError())
+                .build();
+    }
+
+    private HoldingMismatchResponse toResponse(HoldingMismatch m) {
+        return HoldingMismatchResponse.builder()
+                .id(m.getId())
+                .runId(m.getRunId())
+                .userId(m.getUserId())
+                .market(m.getMarket())
+                .symbol(m.getSymbol())
+                .kind(m.getKind())
+                .expectedQuantity(m.getExpectedQuantity())
+                .expectedAveragePrice(m.getExpectedAveragePrice())
+                .actualQuantity(m.getActualQuantity())
+                .actualAveragePrice(m.getActualAveragePrice())
+                .fixed(m.isFixed())
+                .createdAt(m.getCreatedAt())
+                .build();
+    }
+}
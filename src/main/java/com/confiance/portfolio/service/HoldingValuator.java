@@ -0,0 +1,51 @@
+package com.confiance.portfolio.service;
+
+import com.confiance.common.enums.Market;
+import com.confiance.portfolio.dto.UserHoldingResponse;
+import com.confiance.portfolio.util.PositionMath;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+// Values a holding against the latest quote when the response is built. Same arithmetic
+// as UserHolding.calculateFields; holdings without a quote keep their stored values.
+@Component
+@RequiredArgsConstructor
+public class HoldingValuator {
+
+    private final QuoteStore quoteStore;
+
+    public UserHoldingResponse value(UserHoldingResponse holding) {
+        return quoteStore.get(holding.getMarket(), holding.getSymbol())
+                .map(quote -> {
+                    UserHoldingResponse.UserHoldingResponseBuilder valued = holding.toBuilder()
+                            .currentPrice(quote.price())
+                            .priceAsOf(quote.asOf())
+                            .priceStale(quoteStore.isStale(quote));
+
+                    BigDecimal quantity = holding.getQuantity();
+                    BigDecimal invested = holding.getInvestedAmount();
+                    if (quantity != null) {
+                        BigDecimal currentValue = PositionMath.value(quantity, quote.price());
+                        valued.currentValue(currentValue);
+
+                        if (invested != null && invested.compareTo(BigDecimal.ZERO) > 0) {
+                            BigDecimal unrealizedPL = PositionMath.difference(currentValue, invested);
+                            valued.unrealizedPL(unrealizedPL)
+                                    .unrealizedPLPercentage(PositionMath.percentage(unrealizedPL, invested));
+                        }
+                    }
+                    return valued.build();
+                })
+                .orElse(holding);
+    }
+
+    // Value of a stored holding row: live quote, then the stored value, then cost
+    public BigDecimal currentValue(Market market, String symbol, BigDecimal quantity,
+                                   BigDecimal storedValue, BigDecimal invested) {
+        return quoteStore.get(market, symbol)
+                .map(quote -> PositionMath.value(quantity, quote.price()))
+                .orElse(storedValue != null ? storedValue : invested);
+    }
+}
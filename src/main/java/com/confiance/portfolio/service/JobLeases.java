@@ -0,0 +1,48 @@
+package com.confiance.portfolio.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+// Leases that keep a job to one instance at a time. Taking or renewing a lease is one upsert that
+// only changes the row when it is free, expired or already ours; the owner is then read back.
+// Runs outside any transaction so the lease is visible to other instances straight away.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class JobLeases {
+
+    // MySQL applies the assignments left to right, so expires_at sees the owner just written
+    private static final String ACQUIRE_SQL = "INSERT INTO job_leases (name, owner, expires_at) " +
+            "VALUES (?, ?, NOW(6) + INTERVAL ? MICROSECOND) " +
+            "ON DUPLICATE KEY UPDATE owner = IF(expires_at < NOW(6) OR owner = VALUES(owner), VALUES(owner), owner), " +
+            "expires_at = IF(owner = VALUES(owner), VALUES(expires_at), expires_at)";
+
+    private static final String OWNER_SQL = "SELECT owner FROM job_leases WHERE name = ?";
+
+    private static final String RELEASE_SQL = "DELETE FROM job_leases WHERE name = ? AND owner = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    // Also renews a lease this instance already holds
+    public boolean acquire(String name, long leaseMs) {
+        jdbcTemplate.update(ACQUIRE_SQL, name, instanceId, leaseMs * 1000);
+        List<String> owner = jdbcTemplate.queryForList(OWNER_SQL, String.class, name);
+        return !owner.isEmpty() && instanceId.equals(owner.get(0));
+    }
+
+    public void release(String name) {
+        try {
+            jdbcTemplate.update(RELEASE_SQL, name, instanceId);
+        } catch (RuntimeException e) {
+            // It expires on its own
+            log.warn("Could not release job lease {}: {}", name, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.confiance.portfolio.service;
+
+import com.confiance.common.enums.Market;
+import com.confiance.common.exception.BadRequestException;
+import com.confiance.portfolio.entity.Portfolio;
+import com.confiance.portfolio.repository.PortfolioRepository;
+import com.confiance.portfolio.util.PositionMath;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Maintains the portfolios row per user. Committed holding changes mark the user dirty in memory;
+// each flush rewrites the dirty users' rows from user_holdings with the portfolio rows locked, so
+// a row is always an absolute total that any instance can recompute, and flushes from several
+// instances or the recompute cannot double-count or lose a change. Price moves between changes are
+// picked up by the scheduled recompute, which runs the same rewrite over every user.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PortfolioAggregateService {
+
+    private static final BigDecimal MAX_PERCENTAGE = new BigDecimal("999.99");
+
+    // A row for every user being rewritten, so the lock below has something to hold
+    private static final String SEED_SQL = "INSERT IGNORE INTO portfolios (user_id, total_invested, current_value, " +
+            "total_returns, returns_percentage, created_at, updated_at) VALUES (?, 0, 0, 0, 0, NOW(6), NOW(6))";
+
+    private static final String LOCK_SQL = "SELECT p.user_id FROM portfolios p WHERE p.user_id BETWEEN ? AND ? " +
+            "ORDER BY p.user_id FOR UPDATE";
+
+    private static final String SET_SQL = "INSERT INTO portfolios (user_id, total_invested, current_value, " +
+            "total_returns, returns_percentage, created_at, updated_at) VALUES (?, ?, ?, ?, ?, NOW(6), NOW(6)) " +
+            "ON DUPLICATE KEY UPDATE total_invested = VALUES(total_invested), current_value = VALUES(current_value), " +
+            "total_returns = VALUES(total_returns), returns_percentage = VALUES(returns_percentage), updated_at = NOW(6)";
+
+    private static final String NEXT_USERS_SQL = "SELECT u.user_id FROM (" +
+            "(SELECT DISTINCT h.user_id FROM user_holdings h WHERE h.user_id > ? ORDER BY h.user_id LIMIT ?) UNION " +
+            "(SELECT p.user_id FROM portfolios p WHERE p.user_id > ? ORDER BY p.user_id LIMIT ?)" +
+            ") u ORDER BY u.user_id LIMIT ?";
+
+    // Locking read, so it sees every holding change committed before the rows were locked
+    private static final String HOLDINGS_SQL = "SELECT h.user_id, h.market, h.symbol, h.quantity, " +
+            "h.invested_amount, h.current_value FROM user_holdings h " +
+            "WHERE h.user_id BETWEEN ? AND ? AND h.quantity > 0 FOR SHARE";
+
+    private static final String LEASE = "portfolio-recompute";
+
+    private final PortfolioRepository portfolioRepository;
+    private final HoldingValuator valuator;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final JobLeases leases;
+
+    @Value("${portfolio.aggregate.recompute-chunk-users:1000}")
+    private int chunkUsers;
+
+    @Value("${portfolio.aggregate.recompute-pause-ms:50}")
+    private long chunkPauseMs;
+
+    // Dirty users are rewritten in ranges of at most this many ids
+    @Value("${portfolio.aggregate.flush-batch-users:200}")
+    private int flushBatchUsers;
+
+    @Value("${portfolio.aggregate.recompute-lease-ms:3600000}")
+    private long leaseMs;
+
+    private record Totals(BigDecimal invested, BigDecimal current) {
+        Totals add(Totals other) {
+            return new Totals(invested.add(other.invested), current.add(other.current));
+        }
+    }
+
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean recomputing = new AtomicBoolean();
+
+    // A user without a row yet gets zeros; nothing is written on the read path
+    @Transactional(readOnly = true)
+    public Portfolio getPortfolio(Long userId) {
+        return portfolioRepository.findByUserId(userId)
+                .orElseGet(() -> Portfolio.builder().userId(userId).build());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onHoldingChanged(HoldingChangedEvent event) {
+        dirty.add(event.userId());
+    }
+
+    @Scheduled(fixedDelayString = "${portfolio.aggregate.flush-interval-ms:1000}")
+    public void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        TreeSet<Long> batch = new TreeSet<>();
+        for (Long userId : dirty) {
+            if (dirty.remove(userId)) {
+                batch.add(userId);
+            }
+        }
+
+        // Contiguous ids share one range read; a sparse batch is split so each range stays small
+        List<Long> range = new ArrayList<>();
+        for (Long userId : batch) {
+            if (!range.isEmpty() && (range.size() >= flushBatchUsers || userId - range.get(0) >= flushBatchUsers)) {
+                flushRange(range);
+                range = new ArrayList<>();
+            }
+            range.add(userId);
+        }
+        if (!range.isEmpty()) {
+            flushRange(range);
+        }
+    }
+
+    private void flushRange(List<Long> userIds) {
+        try {
+            recomputeUsers(userIds, userIds.get(0), userIds.get(userIds.size() - 1));
+        } catch (RuntimeException e) {
+            // Marked dirty again so the next flush retries them
+            dirty.addAll(userIds);
+            log.warn("Portfolio flush of {} users failed, will retry: {}", userIds.size(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    public Portfolio recompute(Long userId) {
+        recomputeUsers(List.of(userId), userId, userId);
+        return getPortfolio(userId);
+    }
+
+    // Every instance fires the cron; the lease lets one of them do the work
+    @Scheduled(cron = "${portfolio.aggregate.recompute-cron:0 30 23 * * *}")
+    public void recomputeAllScheduled() {
+        recomputeAll();
+    }
+
+    public long recomputeAllNow() {
+        long users = recomputeAll();
+        if (users < 0) {
+            throw new BadRequestException("Portfolio recompute is already running");
+        }
+        return users;
+    }
+
+    // Returns the number of users rewritten, or -1 when a recompute is already running
+    private long recomputeAll() {
+        if (!recomputing.compareAndSet(false, true)) {
+            return -1;
+        }
+        if (!leases.acquire(LEASE, leaseMs)) {
+            recomputing.set(false);
+            return -1;
+        }
+        long started = System.currentTimeMillis();
+        long users = 0;
+        try {
+            long after = Long.MIN_VALUE;
+            while (true) {
+                List<Long> chunk = jdbcTemplate.queryForList(NEXT_USERS_SQL, Long.class,
+                        after, chunkUsers, after, chunkUsers, chunkUsers);
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                users += recomputeUsers(chunk, chunk.get(0), chunk.get(chunk.size() - 1));
+                after = chunk.get(chunk.size() - 1);
+                if (chunkPauseMs > 0) {
+                    Thread.sleep(chunkPauseMs);
+                }
+            }
+            log.info("Recomputed {} portfolios in {} ms", users, System.currentTimeMillis() - started);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Portfolio recompute interrupted after {} users", users);
+        } finally {
+            leases.release(LEASE);
+            recomputing.set(false);
+        }
+        return users;
+    }
+
+    // Rewrites the rows of the range from user_holdings in one transaction: userIds (when given) get
+    // a row first, every row in the range is locked in id order, then holdings are read and the
+    // totals written. Existing rows without holdings drop to zero.
+    private int recomputeUsers(List<Long> userIds, long firstUser, long lastUser) {
+        Integer written = transactionTemplate.execute(status -> {
+            if (userIds != null) {
+                jdbcTemplate.batchUpdate(SEED_SQL, userIds.stream().map(userId -> new Object[] {userId}).toList());
+            }
+            List<Long> locked = jdbcTemplate.queryForList(LOCK_SQL, Long.class, firstUser, lastUser);
+            return writeTotals(locked, firstUser, lastUser);
+        });
+        return written != null ? written : 0;
+    }
+
+    private int writeTotals(List<Long> lockedUsers, long firstUser, long lastUser) {
+        Map<Long, Totals> totals = new TreeMap<>();
+        for (Long userId : lockedUsers) {
+            totals.put(userId, new Totals(BigDecimal.ZERO, BigDecimal.ZERO));
+        }
+        jdbcTemplate.query(HOLDINGS_SQL, rs -> {
+            BigDecimal invested = rs.getBigDecimal("invested_amount");
+            if (invested == null) invested = BigDecimal.ZERO;
+            BigDecimal current = valuator.currentValue(Market.valueOf(rs.getString("market")),
+                    rs.getString("symbol"), rs.getBigDecimal("quantity"), rs.getBigDecimal("current_value"), invested);
+            Long userId = rs.getLong("user_id");
+            if (totals.containsKey(userId)) {
+                totals.merge(userId, new Totals(invested, current), Totals::add);
+            }
+        }, firstUser, lastUser);
+
+        List<Object[]> rows = new ArrayList<>(totals.size());
+        totals.forEach((userId, t) -> rows.add(row(userId, t.invested(), t.current())));
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(SET_SQL, rows);
+        }
+        return rows.size();
+    }
+
+    private static Object[] row(Long userId, BigDecimal invested, BigDecimal current) {
+        BigDecimal returns = PositionMath.difference(current, invested);
+        BigDecimal percentage = invested.signum() > 0
+                ? PositionMath.percentage(returns, invested).max(MAX_PERCENTAGE.negate()).min(MAX_PERCENTAGE)
+                : BigDecimal.ZERO;
+        return new Object[] {userId, invested, current, returns, percentage};
+    }
+}
@@ -0,0 +1,291 @@
+package com.confiance.portfolio.service;
+
+import com.confiance.common.enums.Market;
+import com.confiance.common.exception.BadRequestException;
+import com.confiance.portfolio.dto.PortfolioHistoryResponse;
+import com.confiance.portfolio.dto.PortfolioSnapshotResponse;
+import com.confiance.portfolio.dto.SnapshotRunResponse;
+import com.confiance.portfolio.entity.PortfolioSnapshot;
+import com.confiance.portfolio.entity.SnapshotRun;
+import com.confiance.portfolio.repository.PortfolioSnapshotRepository;
+import com.confiance.portfolio.repository.SnapshotRunRepository;
+import com.confiance.portfolio.util.PositionMath;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Records each user's end-of-day portfolio value and serves it back as a time series. The job
+// walks users in id order, values their holdings against the latest quotes and upserts one
+// row per user per day in batches, so a rerun on the same day just overwrites that day.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PortfolioSnapshotService {
+
+    private static final String NEXT_USERS_SQL = "SELECT u.user_id FROM (" +
+            "(SELECT DISTINCT h.user_id FROM user_holdings h WHERE h.user_id > ? ORDER BY h.user_id LIMIT ?) UNION " +
+            "(SELECT DISTINCT r.user_id FROM realized_positions r WHERE r.user_id > ? ORDER BY r.user_id LIMIT ?)" +
+            ") u ORDER BY u.user_id LIMIT ?";
+
+    private static final String HOLDINGS_SQL = "SELECT h.user_id, h.market, h.symbol, h.quantity, " +
+            "h.invested_amount, h.current_value FROM user_holdings h " +
+            "WHERE h.user_id BETWEEN ? AND ? AND h.quantity > 0";
+
+    private static final String REALIZED_SQL = "SELECT r.user_id, SUM(r.realized_profit_loss) AS realized " +
+            "FROM realized_positions r WHERE r.user_id BETWEEN ? AND ? GROUP BY r.user_id";
+
+    private static final String UPSERT_SQL = "INSERT INTO portfolio_snapshots (user_id, snapshot_date, " +
+            "invested_value, current_value, unrealizedpl, realizedpl) VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE invested_value = VALUES(invested_value), current_value = VALUES(current_value), " +
+            "unrealizedpl = VALUES(unrealizedpl), realizedpl = VALUES(realizedpl)";
+
+    private static final String LEASE = "portfolio-snapshots";
+
+    private final PortfolioSnapshotRepository snapshotRepository;
+    private final SnapshotRunRepository runRepository;
+    private final HoldingValuator valuator;
+    private final JdbcTemplate jdbcTemplate;
+    private final JobLeases leases;
+    private final BackgroundJobs jobs;
+
+    @Value("${portfolio.snapshots.chunk-users:1000}")
+    private int chunkUsers;
+
+    @Value("${portfolio.snapshots.chunk-pause-ms:50}")
+    private long chunkPauseMs;
+
+    @Value("${portfolio.snapshots.lease-ms:600000}")
+    private long leaseMs;
+
+    // Ranges up to daily-max-days come back daily, up to weekly-max-days weekly, longer ones monthly
+    @Value("${portfolio.snapshots.daily-max-days:366}")
+    private long dailyMaxDays;
+
+    @Value("${portfolio.snapshots.weekly-max-days:1830}")
+    private long weeklyMaxDays;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private static class Totals {
+        private BigDecimal invested = BigDecimal.ZERO;
+        private BigDecimal current = BigDecimal.ZERO;
+        private BigDecimal realized = BigDecimal.ZERO;
+    }
+
+    // Every instance fires the cron; the lease lets one of them take the day's snapshots and
+    // the others skip a day that is already done
+    @Scheduled(cron = "${portfolio.snapshots.cron:0 0 23 * * *}")
+    public void takeDailySnapshots() {
+        LocalDate today = LocalDate.now();
+        if (runRepository.existsBySnapshotDateAndStatus(today, SnapshotRun.Status.COMPLETED)) {
+            return;
+        }
+        SnapshotRun run;
+        try {
+            run = claim(today);
+        } catch (BadRequestException e) {
+            log.info("Skipping portfolio snapshots for {}: {}", today, e.getMessage());
+            return;
+        }
+        takeSnapshots(run);
+    }
+
+    public SnapshotRunResponse startSnapshots() {
+        SnapshotRun run = claim(LocalDate.now());
+        try {
+            jobs.submit("portfolio-snapshots", () -> takeSnapshots(run));
+            return toResponse(run);
+        } catch (RuntimeException e) {
+            finish(run, SnapshotRun.Status.FAILED, e.getMessage());
+            leases.release(LEASE);
+            running.set(false);
+            throw e;
+        }
+    }
+
+    public SnapshotRunResponse getRunStatus() {
+        return runRepository.findFirstByOrderByIdDesc().map(this::toResponse).orElse(null);
+    }
+
+    private SnapshotRun claim(LocalDate date) {
+        if (!running.compareAndSet(false, true)) {
+            throw new BadRequestException("Snapshots are already being taken");
+        }
+        boolean leased = false;
+        try {
+            if (!leases.acquire(LEASE, leaseMs)) {
+                throw new BadRequestException("Snapshots are being taken on another instance");
+            }
+            leased = true;
+            LocalDateTime now = LocalDateTime.now();
+            return runRepository.save(SnapshotRun.builder()
+                    .snapshotDate(date)
+                    .status(SnapshotRun.Status.RUNNING)
+                    .startedAt(now)
+                    .heartbeatAt(now)
+                    .build());
+        } catch (RuntimeException e) {
+            if (leased) {
+                leases.release(LEASE);
+            }
+            running.set(false);
+            throw e;
+        }
+    }
+
+    private void takeSnapshots(SnapshotRun run) {
+        LocalDate date = run.getSnapshotDate();
+        long started = System.currentTimeMillis();
+        try {
+            long after = Long.MIN_VALUE;
+            while (true) {
+                List<Long> chunk = jdbcTemplate.queryForList(NEXT_USERS_SQL, Long.class,
+                        after, chunkUsers, after, chunkUsers, chunkUsers);
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                run.setUsersWritten(run.getUsersWritten() + snapshotChunk(date, chunk.get(0), chunk.get(chunk.size() - 1)));
+                run.setHeartbeatAt(LocalDateTime.now());
+                run = runRepository.save(run);
+                after = chunk.get(chunk.size() - 1);
+                if (!leases.acquire(LEASE, leaseMs)) {
+                    throw new IllegalStateException("Snapshot lease was taken over by another instance");
+                }
+                if (chunkPauseMs > 0) {
+                    Thread.sleep(chunkPauseMs);
+                }
+            }
+            finish(run, SnapshotRun.Status.COMPLETED, null);
+            log.info("Portfolio snapshots for {}: {} users in {} ms", date, run.getUsersWritten(),
+                    System.currentTimeMillis() - started);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            finish(run, SnapshotRun.Status.FAILED, "Interrupted");
+            log.warn("Portfolio snapshots for {} interrupted after {} users", date, run.getUsersWritten());
+        } catch (Exception e) {
+            log.error("Portfolio snapshots for {} failed: {}", date, e.getMessage(), e);
+            finish(run, SnapshotRun.Status.FAILED, e.getMessage());
+        } finally {
+            leases.release(LEASE);
+            running.set(false);
+        }
+    }
+
+    private void finish(SnapshotRun run, SnapshotRun.Status status, String error) {
+        run.setStatus(status);
+        run.setError(error != null && error.length() > 1000 ? error.substring(0, 1000) : error);
+        run.setFinishedAt(LocalDateTime.now());
+        run.setHeartbeatAt(run.getFinishedAt());
+        runRepository.save(run);
+    }
+
+    private int snapshotChunk(LocalDate date, long firstUser, long lastUser) {
+        Map<Long, Totals> totals = new TreeMap<>();
+
+        jdbcTemplate.query(HOLDINGS_SQL, rs -> {
+            Totals user = totals.computeIfAbsent(rs.getLong("user_id"), k -> new Totals());
+            BigDecimal quantity = rs.getBigDecimal("quantity");
+            BigDecimal invested = rs.getBigDecimal("invested_amount");
+            BigDecimal stored = rs.getBigDecimal("current_value");
+            if (invested == null) invested = BigDecimal.ZERO;
+            BigDecimal current = valuator.currentValue(Market.valueOf(rs.getString("market")),
+                    rs.getString("symbol"), quantity, stored, invested);
+            user.invested = user.invested.add(invested);
+            user.current = user.current.add(current);
+        }, firstUser, lastUser);
+
+        jdbcTemplate.query(REALIZED_SQL, rs -> {
+            totals.computeIfAbsent(rs.getLong("user_id"), k -> new Totals()).realized = rs.getBigDecimal("realized");
+        }, firstUser, lastUser);
+
+        Date day = Date.valueOf(date);
+        List<Object[]> rows = new ArrayList<>(totals.size());
+        totals.forEach((userId, t) -> rows.add(new Object[] {userId, day, t.invested, t.current,
+                PositionMath.difference(t.current, t.invested), t.realized}));
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+        }
+        return rows.size();
+    }
+
+    @Transactional(readOnly = true)
+    public PortfolioHistoryResponse getHistory(Long userId, LocalDate from, LocalDate to,
+                                               PortfolioHistoryResponse.Interval interval) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusYears(1);
+        if (start.isAfter(end)) {
+            throw new BadRequestException("from must not be after to");
+        }
+        if (interval == null) {
+            long days = ChronoUnit.DAYS.between(start, end);
+            interval = days <= dailyMaxDays ? PortfolioHistoryResponse.Interval.DAY
+                    : days <= weeklyMaxDays ? PortfolioHistoryResponse.Interval.WEEK
+                    : PortfolioHistoryResponse.Interval.MONTH;
+        }
+
+        List<PortfolioSnapshot> snapshots =
+                snapshotRepository.findByUserIdAndSnapshotDateBetweenOrderBySnapshotDate(userId, start, end);
+
+        // Rows arrive in date order, so the last one put for a bucket is its closing value
+        Map<LocalDate, PortfolioSnapshot> buckets = new LinkedHashMap<>();
+        for (PortfolioSnapshot snapshot : snapshots) {
+            buckets.put(bucketOf(snapshot.getSnapshotDate(), interval), snapshot);
+        }
+
+        return PortfolioHistoryResponse.builder()
+                .userId(userId)
+                .from(start)
+                .to(end)
+                .interval(interval)
+                .points(buckets.values().stream().map(this::toResponse).toList())
+                .build();
+    }
+
+    private static LocalDate bucketOf(LocalDate date, PortfolioHistoryResponse.Interval interval) {
+        return switch (interval) {
+            case DAY -> date;
+            case WEEK -> date.with(DayOfWeek.MONDAY);
+            case MONTH -> date.withDayOfMonth(1);
+        };
+    }
+
+    private SnapshotRunResponse toResponse(SnapshotRun run) {
+        return SnapshotRunResponse.builder()
+                .id(run.getId())
+                .snapshotDate(run.getSnapshotDate())
+                .status(run.getStatus())
+                .usersWritten(run.getUsersWritten())
+                .startedAt(run.getStartedAt())
+                .heartbeatAt(run.getHeartbeatAt())
+                .finishedAt(run.getFinishedAt())
+                .error(run.getError())
+                .build();
+    }
+
+    private PortfolioSnapshotResponse toResponse(PortfolioSnapshot snapshot) {
+        return PortfolioSnapshotResponse.builder()
+                .date(snapshot.getSnapshotDate())
+                .investedValue(snapshot.getInvestedValue())
+                .currentValue(snapshot.getCurrentValue())
+                .unrealizedPL(snapshot.getUnrealizedPL())
+                .realizedPL(snapshot.getRealizedPL())
+                .build();
+    }
+}
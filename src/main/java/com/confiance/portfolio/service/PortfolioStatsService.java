@@ -0,0 +1,172 @@
+package com.confiance.portfolio.service;
+
+import com.confiance.common.enums.TradeStatus;
+import com.confiance.portfolio.entity.PortfolioStatsSlot;
+import com.confiance.portfolio.entity.Trade;
+import com.confiance.portfolio.repository.InvestorTradeCountRepository;
+import com.confiance.portfolio.repository.PortfolioStatsSlotRepository;
+import com.confiance.portfolio.repository.TradeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PortfolioStatsService {
+
+    static final int SLOT_COUNT = 16;
+
+    private static final int REBUILD_BATCH = 1000;
+
+    // Consistent (non-locking) read, so a rebuild never waits on trades that writers are inserting
+    private static final String TRADE_COUNTS_SQL = "SELECT t.user_id, COUNT(*) AS trade_count FROM trades t GROUP BY t.user_id";
+
+    private static final String SET_COUNT_SQL = "INSERT INTO investor_trade_counts (user_id, trade_count) VALUES (?, ?) " +
+            "ON DUPLICATE KEY UPDATE trade_count = VALUES(trade_count)";
+
+    private final PortfolioStatsSlotRepository slotRepository;
+    private final InvestorTradeCountRepository tradeCountRepository;
+    private final TradeRepository tradeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+
+    // What a single trade adds to the counters; compared before and after each write
+    public record Contribution(boolean exists, boolean open, BigDecimal aum) {
+        public static final Contribution NONE = new Contribution(false, false, BigDecimal.ZERO);
+    }
+
+    public Contribution contributionOf(Trade trade) {
+        boolean open = trade.getStatus() == TradeStatus.OPEN || trade.getStatus() == TradeStatus.PARTIALLY_SOLD;
+        BigDecimal aum = open && trade.getCurrentValue() != null ? trade.getCurrentValue() : BigDecimal.ZERO;
+        return new Contribution(true, open, aum);
+    }
+
+    // Must run inside the caller's write transaction, after the trade change has been flushed
+    @Transactional
+    public void applyChange(Long userId, Contribution before, Contribution after) {
+        applyDelta(userId,
+                (after.exists() ? 1 : 0) - (before.exists() ? 1 : 0),
+                (after.open() ? 1 : 0) - (before.open() ? 1 : 0),
+                after.aum().subtract(before.aum()));
+    }
+
+    // The slot row is locked before the user's count row, the same order a rebuild takes them in.
+    // The user's first trade and last delete are read off the count row after the upsert, which
+    // holds its lock until commit, so concurrent writers for one user cannot both see a change.
+    @Transactional
+    public void applyDelta(Long userId, long trades, long openTrades, BigDecimal aum) {
+        if (trades == 0 && openTrades == 0 && aum.signum() == 0) {
+            return;
+        }
+        int slot = slotOf(userId);
+        slotRepository.applyDelta(slot, trades, openTrades, aum, 0);
+        if (trades == 0) {
+            return;
+        }
+
+        tradeCountRepository.addTrades(userId, trades);
+        long after = tradeCountRepository.findTradeCount(userId);
+        long investors = (after > 0 ? 1 : 0) - (after - trades > 0 ? 1 : 0);
+        if (investors != 0) {
+            slotRepository.applyDelta(slot, 0, 0, BigDecimal.ZERO, investors);
+        }
+    }
+
+    public TradeService.PortfolioStats getStats() {
+        long totalTrades = 0;
+        long openTrades = 0;
+        long investors = 0;
+        BigDecimal totalAum = BigDecimal.ZERO;
+        for (PortfolioStatsSlot slot : slotRepository.findAll()) {
+            totalTrades += slot.getTotalTrades();
+            openTrades += slot.getOpenTrades();
+            investors += slot.getInvestors();
+            totalAum = totalAum.add(slot.getTotalAum());
+        }
+
+        return TradeService.PortfolioStats.builder()
+                .totalTrades(totalTrades)
+                .openTrades(openTrades)
+                .totalAUM(totalAum)
+                .usersWithInvestments(investors)
+                .build();
+    }
+
+    // Recomputes every slot from the trades table in one grouped pass. Slot rows are locked
+    // first, so trade writes that commit during the rebuild apply their delta afterwards.
+    @Transactional
+    public TradeService.PortfolioStats rebuild() {
+        log.info("Rebuilding portfolio stats from trades");
+        List<PortfolioStatsSlot> slots = slotRepository.lockAllSlots();
+
+        Map<Integer, TradeRepository.StatsSlotTotals> totals = new HashMap<>();
+        for (TradeRepository.StatsSlotTotals row : tradeRepository.aggregateStatsBySlot(SLOT_COUNT)) {
+            totals.put(row.getSlot().intValue(), row);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (PortfolioStatsSlot slot : slots) {
+            TradeRepository.StatsSlotTotals row = totals.get(slot.getSlot());
+            slot.setTotalTrades(row != null ? row.getTotalTrades().longValue() : 0);
+            slot.setOpenTrades(row != null && row.getOpenTrades() != null ? row.getOpenTrades().longValue() : 0);
+            slot.setTotalAum(row != null && row.getTotalAum() != null ? row.getTotalAum() : BigDecimal.ZERO);
+            slot.setInvestors(row != null ? row.getInvestors().longValue() : 0);
+            slot.setRebuiltAt(now);
+        }
+        rebuildTradeCounts();
+
+        return getStats();
+    }
+
+    // Read from the same snapshot as the slot totals; writers queued on the slot locks add their
+    // trades afterwards
+    private void rebuildTradeCounts() {
+        tradeCountRepository.resetAll();
+        List<Object[]> batch = new ArrayList<>(REBUILD_BATCH);
+        jdbcTemplate.query(TRADE_COUNTS_SQL, rs -> {
+            batch.add(new Object[] {rs.getLong("user_id"), rs.getLong("trade_count")});
+            if (batch.size() >= REBUILD_BATCH) {
+                jdbcTemplate.batchUpdate(SET_COUNT_SQL, batch);
+                batch.clear();
+            }
+        });
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(SET_COUNT_SQL, batch);
+        }
+    }
+
+    // Creates any missing slot rows; a fresh table is populated from the existing trades
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialiseSlots() {
+        if (slotRepository.count() >= SLOT_COUNT) {
+            return;
+        }
+        for (int i = 0; i < SLOT_COUNT; i++) {
+            if (slotRepository.existsById(i)) continue;
+            try {
+                slotRepository.save(PortfolioStatsSlot.builder().slot(i).build());
+            } catch (DataIntegrityViolationException e) {
+                log.debug("Stats slot {} created concurrently", i);
+            }
+        }
+        transactionTemplate.execute(status -> rebuild());
+    }
+
+    private int slotOf(Long userId) {
+        return (int) Math.floorMod(userId, (long) SLOT_COUNT);
+    }
+}
@@ -0,0 +1,104 @@
+package com.confiance.portfolio.service;
+
+import com.confiance.common.enums.Market;
+import com.confiance.portfolio.dto.PriceIngestionResult;
+import com.confiance.portfolio.dto.PriceTick;
+import com.confiance.portfolio.repository.UserHoldingRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Applies a batch of market ticks to the quote store, which holdings are valued against
+// when read. With portfolio.prices.persist-valuations the stored valuation columns are also
+// rewritten with set-based UPDATEs over id ranges of portfolio.prices.chunk-size rows.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PriceIngestionService {
+
+    private final UserHoldingRepository holdingRepository;
+    private final QuoteStore quoteStore;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${portfolio.prices.chunk-size:2000}")
+    private int chunkSize;
+
+    @Value("${portfolio.prices.persist-valuations:false}")
+    private boolean persistValuations;
+
+    private Counter tickCounter;
+    private Counter rowCounter;
+    private Timer batchTimer;
+
+    private record QuoteKey(Market market, String symbol) {
+    }
+
+    @PostConstruct
+    void init() {
+        tickCounter = Counter.builder("portfolio.prices.ticks").register(meterRegistry);
+        rowCounter = Counter.builder("portfolio.prices.rows.revalued").register(meterRegistry);
+        batchTimer = Timer.builder("portfolio.prices.batch").register(meterRegistry);
+    }
+
+    public PriceIngestionResult ingest(List<PriceTick> ticks) {
+        long started = System.nanoTime();
+
+        // Last tick wins for each symbol
+        Map<QuoteKey, BigDecimal> latest = new LinkedHashMap<>();
+        for (PriceTick tick : ticks) {
+            latest.put(new QuoteKey(tick.getMarket(), tick.getSymbol().toUpperCase()), tick.getPrice());
+        }
+
+        Instant asOf = Instant.now();
+        long rowsUpdated = 0;
+        for (Map.Entry<QuoteKey, BigDecimal> entry : latest.entrySet()) {
+            QuoteKey key = entry.getKey();
+            quoteStore.update(key.market(), key.symbol(), entry.getValue(), asOf);
+            if (persistValuations) {
+                rowsUpdated += revalue(key, entry.getValue());
+            }
+        }
+
+        long elapsedNanos = System.nanoTime() - started;
+        double seconds = Math.max(elapsedNanos, 1) / 1_000_000_000d;
+        tickCounter.increment(ticks.size());
+        rowCounter.increment(rowsUpdated);
+        batchTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+        log.info("Applied {} ticks ({} symbols) to {} holdings in {} ms",
+                ticks.size(), latest.size(), rowsUpdated, TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+
+        return PriceIngestionResult.builder()
+                .receivedTicks(ticks.size())
+                .appliedTicks(latest.size())
+                .rowsUpdated(rowsUpdated)
+                .durationMillis(TimeUnit.NANOSECONDS.toMillis(elapsedNanos))
+                .ticksPerSecond(ticks.size() / seconds)
+                .rowsPerSecond(rowsUpdated / seconds)
+                .build();
+    }
+
+    private long revalue(QuoteKey key, BigDecimal price) {
+        String market = key.market().name();
+        long rows = 0;
+        long afterId = 0;
+        Long chunkEnd;
+        while ((chunkEnd = holdingRepository.findRevaluationChunkEnd(market, key.symbol(), afterId, chunkSize)) != null) {
+            rows += holdingRepository.revalueChunk(market, key.symbol(), price, afterId, chunkEnd);
+            afterId = chunkEnd;
+        }
+        return rows;
+    }
+}
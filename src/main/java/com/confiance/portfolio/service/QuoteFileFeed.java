@@ -0,0 +1,71 @@
+package com.confiance.portfolio.service;
+
+import com.confiance.common.enums.Market;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Locale;
+
+// Local quote feed for development and load tests: polls a CSV file of
+// market,symbol,price[,asOf] lines and loads it into the quote store whenever it changes.
+@Component
+@ConditionalOnProperty(prefix = "portfolio.quotes", name = "feed-file")
+@RequiredArgsConstructor
+@Slf4j
+public class QuoteFileFeed {
+
+    private final QuoteStore quoteStore;
+
+    @Value("${portfolio.quotes.feed-file}")
+    private Path feedFile;
+
+    private volatile long lastModified = -1;
+
+    @Scheduled(fixedDelayString = "${portfolio.quotes.feed-poll-ms:1000}")
+    public void poll() {
+        try {
+            if (!Files.exists(feedFile)) return;
+            long modified = Files.getLastModifiedTime(feedFile).toMillis();
+            if (modified == lastModified) return;
+            lastModified = modified;
+            log.info("Loaded {} quotes from {}", load(Instant.ofEpochMilli(modified)), feedFile);
+        } catch (IOException e) {
+            log.warn("Quote feed {} could not be read: {}", feedFile, e.getMessage());
+        }
+    }
+
+    private int load(Instant fileTime) throws IOException {
+        int loaded = 0;
+        try (BufferedReader reader = Files.newBufferedReader(feedFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#") || line.toLowerCase(Locale.ROOT).startsWith("market,")) {
+                    continue;
+                }
+                String[] parts = line.split(",");
+                try {
+                    Market market = Market.valueOf(parts[0].trim().toUpperCase(Locale.ROOT));
+                    BigDecimal price = new BigDecimal(parts[2].trim());
+                    Instant asOf = parts.length > 3 ? Instant.parse(parts[3].trim()) : fileTime;
+                    quoteStore.update(market, parts[1].trim(), price, asOf);
+                    loaded++;
+                } catch (RuntimeException e) {
+                    log.debug("Skipping quote line '{}': {}", line, e.getMessage());
+                }
+            }
+        }
+        return loaded;
+    }
+}
@@ -0,0 +1,85 @@
+package com.confiance.portfolio.service;
+
+import com.confiance.common.enums.Market;
+import com.confiance.portfolio.dto.QuoteResponse;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Latest price per (market, symbol), held in memory on each instance. Reads are plain
+// ConcurrentHashMap lookups; an update only replaces a quote with a newer one.
+@Component
+@RequiredArgsConstructor
+public class QuoteStore {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${portfolio.quotes.stale-after-ms:900000}")
+    private long staleAfterMs;
+
+    public record Key(Market market, String symbol) {
+    }
+
+    public record Quote(Market market, String symbol, BigDecimal price, Instant asOf) {
+    }
+
+    private final Map<Key, Quote> quotes = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        Gauge.builder("portfolio.quotes.size", quotes, Map::size).register(meterRegistry);
+        Gauge.builder("portfolio.quotes.stale", this, QuoteStore::countStale).register(meterRegistry);
+    }
+
+    public void update(Market market, String symbol, BigDecimal price, Instant asOf) {
+        String normalized = symbol.toUpperCase();
+        Quote next = new Quote(market, normalized, price, asOf);
+        quotes.merge(new Key(market, normalized), next,
+                (current, candidate) -> candidate.asOf().isBefore(current.asOf()) ? current : candidate);
+    }
+
+    public Optional<Quote> get(Market market, String symbol) {
+        return Optional.ofNullable(quotes.get(new Key(market, symbol.toUpperCase())));
+    }
+
+    public boolean isStale(Quote quote) {
+        return ageMillis(quote) > staleAfterMs;
+    }
+
+    public List<QuoteResponse> getAll() {
+        return quotes.values().stream()
+                .sorted(Comparator.comparing((Quote q) -> q.market().name()).thenComparing(Quote::symbol))
+                .map(this::toResponse)
+                .toList();
+    }
+
+    public QuoteResponse toResponse(Quote quote) {
+        return QuoteResponse.builder()
+                .market(quote.market())
+                .symbol(quote.symbol())
+                .price(quote.price())
+                .asOf(quote.asOf())
+                .ageMillis(ageMillis(quote))
+                .stale(isStale(quote))
+                .build();
+    }
+
+    private long ageMillis(Quote quote) {
+        return Math.max(0, System.currentTimeMillis() - quote.asOf().toEpochMilli());
+    }
+
+    private double countStale() {
+        return quotes.values().stream().filter(this::isStale).count();
+    }
+}
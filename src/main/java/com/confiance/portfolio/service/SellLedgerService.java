@@ -0,0 +1,141 @@
+package com.confiance.portfolio.service;
+
+import com.confiance.common.exception.BadRequestException;
+import com.confiance.portfolio.dto.SellAllocationResponse;
+import com.confiance.portfolio.entity.SellAllocation;
+import com.confiance.portfolio.entity.Trade;
+import com.confiance.portfolio.repository.RealizedPositionRepository;
+import com.confiance.portfolio.repository.SellAllocationRepository;
+import com.confiance.portfolio.util.PositionMath;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// Matches a sell against buy lots in the given order, appends one allocation per lot touched
+// and rolls the realized P&L into each lot and into the (user, symbol) running total.
+// Callers lock the lots first and flush them afterwards.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SellLedgerService {
+
+    private final SellAllocationRepository allocationRepository;
+    private final RealizedPositionRepository realizedRepository;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Sale sell(List<Trade> lots, LocalDate sellDate, BigDecimal sellPrice, BigDecimal quantity) {
+        BigDecimal available = BigDecimal.ZERO;
+        for (Trade lot : lots) {
+            available = available.add(remainingOf(lot));
+        }
+        if (quantity.compareTo(available) > 0) {
+            throw new BadRequestException("Sell quantity exceeds available quantity. Available: " + available);
+        }
+
+        Trade first = lots.get(0);
+        String sellId = UUID.randomUUID().toString();
+        List<SellAllocation> allocations = new ArrayList<>();
+        BigDecimal left = quantity;
+
+        for (Trade lot : lots) {
+            if (left.signum() == 0) {
+                break;
+            }
+            BigDecimal remaining = remainingOf(lot);
+            if (remaining.signum() == 0) {
+                continue;
+            }
+            BigDecimal matched = left.min(remaining);
+            left = left.subtract(matched);
+
+            BigDecimal costBasis = PositionMath.value(matched, lot.getBuyPrice());
+            BigDecimal proceeds = PositionMath.value(matched, sellPrice);
+            BigDecimal realized = PositionMath.difference(proceeds, costBasis);
+
+            allocations.add(SellAllocation.builder()
+                    .sellId(sellId)
+                    .tradeId(lot.getId())
+                    .userId(lot.getUserId())
+                    .market(lot.getMarket())
+                    .symbol(lot.getSymbol())
+                    .sellDate(sellDate)
+                    .sellPrice(sellPrice)
+                    .quantity(matched)
+                    .buyPrice(lot.getBuyPrice())
+                    .costBasis(costBasis)
+                    .proceeds(proceeds)
+                    .realizedProfitLoss(realized)
+                    .build());
+
+            applyToLot(lot, remaining, matched, sellDate, sellPrice, realized);
+        }
+
+        List<SellAllocation> saved = allocationRepository.saveAll(allocations);
+
+        BigDecimal costBasis = PositionMath.total(saved, SellAllocation::getCostBasis);
+        BigDecimal proceeds = PositionMath.total(saved, SellAllocation::getProceeds);
+        BigDecimal realized = PositionMath.total(saved, SellAllocation::getRealizedProfitLoss);
+        realizedRepository.addSell(first.getUserId(), first.getMarket().name(), first.getSymbol(),
+                quantity, costBasis, proceeds, realized, sellDate);
+
+        log.info("Recorded sell {} for user: {} symbol: {} across {} lots", sellId, first.getUserId(),
+                first.getSymbol(), saved.size());
+        return new Sale(sellId, quantity, costBasis, proceeds, realized, saved);
+    }
+
+    // The lot's sell fields become running totals: quantity sold so far at its average price
+    private void applyToLot(Trade lot, BigDecimal remaining, BigDecimal matched,
+                            LocalDate sellDate, BigDecimal sellPrice, BigDecimal realized) {
+        BigDecimal soldBefore = lot.getBuyQuantity().subtract(remaining);
+        BigDecimal previousPrice = lot.getSellPrice() != null ? lot.getSellPrice() : sellPrice;
+
+        // Lots sold before the ledger existed only carry the P&L of their last sell
+        BigDecimal realizedBefore = lot.getRealizedProfitLoss() != null ? lot.getRealizedProfitLoss()
+                : lot.getProfitLoss() != null && soldBefore.signum() > 0 ? lot.getProfitLoss()
+                : BigDecimal.ZERO;
+
+        lot.setSellPrice(soldBefore.signum() > 0
+                ? PositionMath.averagePrice(soldBefore, previousPrice, matched, sellPrice)
+                : sellPrice);
+        lot.setSellQuantity(soldBefore.add(matched));
+        if (lot.getSellDate() == null || sellDate.isAfter(lot.getSellDate())) {
+            lot.setSellDate(sellDate);
+        }
+        lot.setRemainingQuantity(remaining.subtract(matched));
+        lot.setRealizedProfitLoss(realizedBefore.add(realized));
+    }
+
+    private BigDecimal remainingOf(Trade lot) {
+        return lot.getRemainingQuantity() != null ? lot.getRemainingQuantity() : lot.getBuyQuantity();
+    }
+
+    static SellAllocationResponse toResponse(SellAllocation a) {
+        return SellAllocationResponse.builder()
+                .id(a.getId())
+                .sellId(a.getSellId())
+                .tradeId(a.getTradeId())
+                .market(a.getMarket())
+                .symbol(a.getSymbol())
+                .sellDate(a.getSellDate())
+                .sellPrice(a.getSellPrice())
+                .quantity(a.getQuantity())
+                .buyPrice(a.getBuyPrice())
+                .costBasis(a.getCostBasis())
+                .proceeds(a.getProceeds())
+                .realizedProfitLoss(a.getRealizedProfitLoss())
+                .createdAt(a.getCreatedAt())
+                .build();
+    }
+
+    public record Sale(String sellId, BigDecimal quantity, BigDecimal costBasis, BigDecimal proceeds,
+                       BigDecimal realizedProfitLoss, List<SellAllocation> allocations) {
+    }
+}
@@ -0,0 +1,32 @@
+package com.confiance.portfolio.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Local stand-in for user-service (portfolio.admin-ids.source=stub)
+@Component
+@ConditionalOnProperty(prefix = "portfolio.admin-ids", name = "source", havingValue = "stub")
+public class StubAdminIdSource implements AdminIdSource {
+
+    @Value("${portfolio.admin-ids.stub-ids:}")
+    private List<Long> adminIds;
+
+    @Value("${portfolio.admin-ids.stub-latency-ms:0}")
+    private long latencyMs;
+
+    @Override
+    public List<Long> fetchAdminIds() {
+        if (latencyMs > 0) {
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while simulating user-service latency", e);
+            }
+        }
+        return List.copyOf(adminIds);
+    }
+}
@@ -0,0 +1,224 @@
+package com.confiance.portfolio.service;
+
+import com.confiance.common.enums.Market;
+import com.confiance.common.exception.BadRequestException;
+import com.confiance.portfolio.config.StatementBudget;
+import com.confiance.portfolio.dto.SymbolExposureResponse;
+import com.confiance.portfolio.entity.SymbolExposure;
+import com.confiance.portfolio.repository.SymbolExposureRepository;
+import com.confiance.portfolio.repository.UserHoldingRepository;
+import com.confiance.portfolio.util.PositionMath;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Per-(market, symbol) exposure maintained from committed holding changes. A change only marks
+// its symbol dirty; each flush rewrites the dirty rows from user_holdings after locking them, so a
+// row is always an absolute total and flushes from several instances, or a rebuild, cannot
+// double-count a change. The totals are read from idx_holding_symbol_exposure, which covers them.
+// Largest holders come from the same index rather than being maintained here.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SymbolExposureService {
+
+    private static final Comparator<Key> KEY_ORDER =
+            Comparator.comparing(Key::symbol).thenComparing(key -> key.market().name());
+
+    // A row for every symbol being rewritten, so the lock below has something to hold
+    private static final String SEED_SQL = "INSERT IGNORE INTO symbol_exposures (market, symbol, total_quantity, " +
+            "holders, total_invested, updated_at) VALUES (?, ?, 0, 0, 0, NOW(6))";
+
+    // Rows are locked in uk_exposure_symbol_market order by flushes and rebuilds alike
+    private static final String LOCK_SQL = "SELECT e.id FROM symbol_exposures e WHERE e.symbol IN (%s) " +
+            "ORDER BY e.symbol, e.market FOR UPDATE";
+
+    private static final String LOCK_ALL_SQL = "SELECT e.id FROM symbol_exposures e ORDER BY e.symbol, e.market FOR UPDATE";
+
+    // Consistent read taken after the lock, so it sees every holding change committed before it
+    private static final String TOTALS_SQL = "SELECT h.market, h.symbol, SUM(h.quantity) AS total_quantity, " +
+            "COUNT(*) AS holders, COALESCE(SUM(h.invested_amount), 0) AS total_invested FROM user_holdings h " +
+            "WHERE h.quantity > 0%s GROUP BY h.symbol, h.market";
+
+    private static final String SET_SQL = "INSERT INTO symbol_exposures (market, symbol, total_quantity, holders, " +
+            "total_invested, updated_at) VALUES (?, ?, ?, ?, ?, NOW(6)) " +
+            "ON DUPLICATE KEY UPDATE total_quantity = VALUES(total_quantity), holders = VALUES(holders), " +
+            "total_invested = VALUES(total_invested), updated_at = NOW(6)";
+
+    private static final String CLEAR_SQL = "UPDATE symbol_exposures SET total_quantity = 0, holders = 0, " +
+            "total_invested = 0, updated_at = NOW(6)";
+
+    private final SymbolExposureRepository exposureRepository;
+    private final UserHoldingRepository holdingRepository;
+    private final QuoteStore quoteStore;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${portfolio.exposure.top-holders:10}")
+    private int defaultTopHolders;
+
+    // Largest top-exposures limit and top-holders count a request may ask for
+    @Value("${portfolio.exposure.max-limit:100}")
+    private int maxLimit;
+
+    @Value("${portfolio.exposure.flush-batch-symbols:100}")
+    private int flushBatchSymbols;
+
+    private record Key(Market market, String symbol) {
+    }
+
+    private record Totals(BigDecimal quantity, long holders, BigDecimal invested) {
+        static final Totals NONE = new Totals(BigDecimal.ZERO, 0, BigDecimal.ZERO);
+    }
+
+    private final Set<Key> dirty = ConcurrentHashMap.newKeySet();
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onHoldingChanged(HoldingChangedEvent event) {
+        if (event.quantityAfter().compareTo(event.quantityBefore()) == 0
+                && event.investedAfter().compareTo(event.investedBefore()) == 0) {
+            return;
+        }
+        dirty.add(new Key(event.market(), event.symbol()));
+    }
+
+    @Scheduled(fixedDelayString = "${portfolio.exposure.flush-interval-ms:5000}")
+    public void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        List<Key> batch = new ArrayList<>();
+        for (Key key : dirty) {
+            if (dirty.remove(key)) {
+                batch.add(key);
+            }
+        }
+        batch.sort(KEY_ORDER);
+
+        for (int from = 0; from < batch.size(); from += flushBatchSymbols) {
+            List<Key> chunk = batch.subList(from, Math.min(from + flushBatchSymbols, batch.size()));
+            try {
+                transactionTemplate.executeWithoutResult(status -> rewrite(chunk));
+            } catch (RuntimeException e) {
+                // Marked dirty again so the next flush retries them
+                dirty.addAll(chunk);
+                log.warn("Exposure flush of {} symbols failed, will retry: {}", chunk.size(), e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    private void rewrite(List<Key> keys) {
+        jdbcTemplate.batchUpdate(SEED_SQL, keys.stream()
+                .map(key -> new Object[] {key.market().name(), key.symbol()}).toList());
+        List<String> symbols = keys.stream().map(Key::symbol).distinct().toList();
+        String placeholders = String.join(", ", Collections.nCopies(symbols.size(), "?"));
+        jdbcTemplate.queryForList(String.format(LOCK_SQL, placeholders), Long.class, symbols.toArray());
+
+        Map<Key, Totals> totals = readTotals(" AND h.symbol IN (" + placeholders + ")", symbols.toArray());
+        jdbcTemplate.batchUpdate(SET_SQL, keys.stream()
+                .map(key -> row(key, totals.getOrDefault(key, Totals.NONE))).toList());
+    }
+
+    // Recomputes every row from user_holdings; symbols nobody holds any more drop to zero
+    public long rebuild() {
+        Integer symbols = transactionTemplate.execute(status -> {
+            jdbcTemplate.queryForList(LOCK_ALL_SQL, Long.class);
+            Map<Key, Totals> totals = readTotals("");
+            jdbcTemplate.update(CLEAR_SQL);
+            List<Object[]> rows = new ArrayList<>(totals.size());
+            totals.forEach((key, total) -> rows.add(row(key, total)));
+            if (!rows.isEmpty()) {
+                jdbcTemplate.batchUpdate(SET_SQL, rows);
+            }
+            return rows.size();
+        });
+        log.info("Rebuilt symbol exposures: {} symbols held", symbols);
+        return symbols != null ? symbols : 0;
+    }
+
+    private Map<Key, Totals> readTotals(String symbolFilter, Object... args) {
+        Map<Key, Totals> totals = new HashMap<>();
+        jdbcTemplate.query(String.format(TOTALS_SQL, symbolFilter), rs -> {
+            totals.put(new Key(Market.valueOf(rs.getString("market")), rs.getString("symbol")),
+                    new Totals(rs.getBigDecimal("total_quantity"), rs.getLong("holders"),
+                            rs.getBigDecimal("total_invested")));
+        }, args);
+        return totals;
+    }
+
+    private static Object[] row(Key key, Totals totals) {
+        return new Object[] {key.market().name(), key.symbol(), totals.quantity(), totals.holders(), totals.invested()};
+    }
+
+    // One entry per market the symbol is held in
+    @Transactional(readOnly = true)
+    public List<SymbolExposureResponse> getExposuresBySymbol(String symbol, Integer topHolders) {
+        if (topHolders != null && (topHolders < 0 || topHolders > maxLimit)) {
+            throw new BadRequestException("Top holders must be between 0 and " + maxLimit);
+        }
+        return exposureRepository.findBySymbolAndHoldersGreaterThan(symbol.toUpperCase(), 0).stream()
+                .map(exposure -> withTopHolders(toResponse(exposure), topHolders))
+                .toList();
+    }
+
+    // Ranked by invested amount, which the index orders; current value is added per row afterwards
+    @Transactional(readOnly = true)
+    @StatementBudget(1)
+    public List<SymbolExposureResponse> getTopExposures(Market market, int limit) {
+        if (limit < 1 || limit > maxLimit) {
+            throw new BadRequestException("Limit must be between 1 and " + maxLimit);
+        }
+        PageRequest page = PageRequest.of(0, limit);
+        List<SymbolExposure> exposures = market != null
+                ? exposureRepository.findTopByMarket(market, page)
+                : exposureRepository.findTop(page);
+        return exposures.stream().map(this::toResponse).toList();
+    }
+
+    private SymbolExposureResponse withTopHolders(SymbolExposureResponse response, Integer topHolders) {
+        int limit = topHolders != null ? topHolders : defaultTopHolders;
+        if (limit > 0) {
+            response.setTopHolders(holdingRepository.findTopHolders(response.getSymbol(), response.getMarket(),
+                    PageRequest.of(0, limit)));
+        }
+        return response;
+    }
+
+    private SymbolExposureResponse toResponse(SymbolExposure exposure) {
+        SymbolExposureResponse.SymbolExposureResponseBuilder response = SymbolExposureResponse.builder()
+                .market(exposure.getMarket())
+                .symbol(exposure.getSymbol())
+                .totalQuantity(exposure.getTotalQuantity())
+                .holders(exposure.getHolders())
+                .totalInvested(exposure.getTotalInvested())
+                .updatedAt(exposure.getUpdatedAt());
+        quoteStore.get(exposure.getMarket(), exposure.getSymbol()).ifPresent(quote -> response
+                .currentPrice(quote.price())
+                .currentValue(PositionMath.value(exposure.getTotalQuantity(), quote.price())));
+        return response.build();
+    }
+}
@@ -0,0 +1,198 @@
+package com.confiance.portfolio.service;
+
+import com.confiance.common.enums.Market;
+import com.confiance.common.enums.TradeStatus;
+import com.confiance.portfolio.dto.TradeFileFormat;
+import com.confiance.portfolio.dto.TradeResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+// Writes trades straight from a forward-only result set to the response. The MySQL driver
+// streams rows one at a time when the fetch size is Integer.MIN_VALUE, so memory use does
+// not depend on how many rows match.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TradeExportService {
+
+    private static final String SELECT_COLUMNS = "SELECT t.id, t.user_id, t.market, t.symbol, t.company_name, " +
+            "t.currency, t.buy_date, t.buy_price, t.buy_quantity, t.sell_date, t.sell_price, t.sell_quantity, " +
+            "t.profit_loss, t.profit_loss_percentage, t.position_held_days, t.remaining_quantity, " +
+            "t.invested_amount, t.current_value, t.status, t.notes, t.created_at, t.updated_at FROM trades t";
+
+    private static final String CSV_HEADER = "id,userId,market,symbol,companyName,currency,buyDate,buyPrice," +
+            "buyQuantity,sellDate,sellPrice,sellQuantity,profitLoss,profitLossPercentage,positionHeldDays," +
+            "remainingQuantity,investedAmount,currentValue,status,notes,createdAt,updatedAt\n";
+
+    private final DataSource dataSource;
+    private final ObjectMapper objectMapper;
+
+    public record ExportFilter(Long userId, Market market, TradeStatus status,
+                               LocalDate startDate, LocalDate endDate) {
+    }
+
+    public long export(ExportFilter filter, TradeFileFormat format, boolean gzip, OutputStream target) throws IOException {
+        StringBuilder sql = new StringBuilder(SELECT_COLUMNS).append(" WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (filter.userId() != null) {
+            sql.append(" AND t.user_id = ?");
+            args.add(filter.userId());
+        }
+        if (filter.market() != null) {
+            sql.append(" AND t.market = ?");
+            args.add(filter.market().name());
+        }
+        if (filter.status() != null) {
+            sql.append(" AND t.status = ?");
+            args.add(filter.status().name());
+        }
+        if (filter.startDate() != null) {
+            sql.append(" AND t.buy_date >= ?");
+            args.add(Date.valueOf(filter.startDate()));
+        }
+        if (filter.endDate() != null) {
+            sql.append(" AND t.buy_date <= ?");
+            args.add(Date.valueOf(filter.endDate()));
+        }
+        // A user's trades follow the (userId, buyDate, id) index; the admin export walks the primary key
+        sql.append(filter.userId() != null ? " ORDER BY t.buy_date DESC, t.id DESC" : " ORDER BY t.id");
+
+        GZIPOutputStream gzipStream = gzip ? new GZIPOutputStream(target, 65536) : null;
+        OutputStream out = new BufferedOutputStream(gzip ? gzipStream : target, 65536);
+        // Jackson would otherwise close or flush the response stream after every row
+        ObjectWriter jsonWriter = objectMapper.writerFor(TradeResponse.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long[] rows = {0};
+
+        if (format == TradeFileFormat.CSV) {
+            out.write(CSV_HEADER.getBytes(StandardCharsets.UTF_8));
+        }
+
+        RowCallbackHandler handler = rs -> {
+            TradeResponse trade = mapRow(rs);
+            try {
+                if (format == TradeFileFormat.CSV) {
+                    out.write(toCsvLine(trade).getBytes(StandardCharsets.UTF_8));
+                } else {
+                    jsonWriter.writeValue(out, trade);
+                    out.write('\n');
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            rows[0]++;
+        };
+
+        JdbcTemplate streamingTemplate = new JdbcTemplate(dataSource);
+        streamingTemplate.setFetchSize(Integer.MIN_VALUE);
+        try {
+            streamingTemplate.query(sql.toString(), handler, args.toArray());
+        } catch (UncheckedIOException e) {
+            // Usually the client went away; nothing left to write to
+            throw e.getCause();
+        }
+
+        out.flush();
+        if (gzipStream != null) {
+            gzipStream.finish();
+        }
+        log.info("Exported {} trades as {} (user: {})", rows[0], format, filter.userId());
+        return rows[0];
+    }
+
+    private TradeResponse mapRow(ResultSet rs) throws SQLException {
+        return TradeResponse.builder()
+                .id(rs.getLong("id"))
+                .userId(rs.getLong("user_id"))
+                .market(Market.valueOf(rs.getString("market")))
+                .symbol(rs.getString("symbol"))
+                .companyName(rs.getString("company_name"))
+                .currency(rs.getString("currency"))
+                .buyDate(toLocalDate(rs.getDate("buy_date")))
+                .buyPrice(rs.getBigDecimal("buy_price"))
+                .buyQuantity(rs.getBigDecimal("buy_quantity"))
+                .sellDate(toLocalDate(rs.getDate("sell_date")))
+                .sellPrice(rs.getBigDecimal("sell_price"))
+                .sellQuantity(rs.getBigDecimal("sell_quantity"))
+                .profitLoss(rs.getBigDecimal("profit_loss"))
+                .profitLossPercentage(rs.getBigDecimal("profit_loss_percentage"))
+                .positionHeldDays(rs.getObject("position_held_days", Integer.class))
+                .remainingQuantity(rs.getBigDecimal("remaining_quantity"))
+                .investedAmount(rs.getBigDecimal("invested_amount"))
+                .currentValue(rs.getBigDecimal("current_value"))
+                .status(TradeStatus.valueOf(rs.getString("status")))
+                .notes(rs.getString("notes"))
+                .createdAt(toLocalDateTime(rs.getTimestamp("created_at")))
+                .updatedAt(toLocalDateTime(rs.getTimestamp("updated_at")))
+                .build();
+    }
+
+    private String toCsvLine(TradeResponse t) {
+        StringBuilder line = new StringBuilder(256);
+        appendCsv(line, t.getId()).append(',');
+        appendCsv(line, t.getUserId()).append(',');
+        appendCsv(line, t.getMarket()).append(',');
+        appendCsv(line, t.getSymbol()).append(',');
+        appendCsv(line, t.getCompanyName()).append(',');
+        appendCsv(line, t.getCurrency()).append(',');
+        appendCsv(line, t.getBuyDate()).append(',');
+        appendCsv(line, t.getBuyPrice()).append(',');
+        appendCsv(line, t.getBuyQuantity()).append(',');
+        appendCsv(line, t.getSellDate()).append(',');
+        appendCsv(line, t.getSellPrice()).append(',');
+        appendCsv(line, t.getSellQuantity()).append(',');
+        appendCsv(line, t.getProfitLoss()).append(',');
+        appendCsv(line, t.getProfitLossPercentage()).append(',');
+        appendCsv(line, t.getPositionHeldDays()).append(',');
+        appendCsv(line, t.getRemainingQuantity()).append(',');
+        appendCsv(line, t.getInvestedAmount()).append(',');
+        appendCsv(line, t.getCurrentValue()).append(',');
+        appendCsv(line, t.getStatus()).append(',');
+        appendCsv(line, t.getNotes()).append(',');
+        appendCsv(line, t.getCreatedAt()).append(',');
+        appendCsv(line, t.getUpdatedAt()).append('\n');
+        return line.toString();
+    }
+
+    private StringBuilder appendCsv(StringBuilder line, Object value) {
+        if (value == null) return line;
+        String text = value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString();
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return line.append('"').append(text.replace("\"", "\"\"")).append('"');
+        }
+        return line.append(text);
+    }
+
+    private LocalDate toLocalDate(Date date) {
+        return date != null ? date.toLocalDate() : null;
+    }
+
+    private LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
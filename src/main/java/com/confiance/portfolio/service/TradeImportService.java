@@ -0,0 +1,359 @@
+package com.confiance.portfolio.service;
+
+import com.confiance.common.enums.Market;
+import com.confiance.common.enums.TradeStatus;
+import com.confiance.common.exception.BadRequestException;
+import com.confiance.portfolio.dto.TradeFileFormat;
+import com.confiance.portfolio.dto.TradeImportResult;
+import com.confiance.portfolio.dto.TradeRequest;
+import com.confiance.portfolio.entity.Trade;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Streams a CSV or NDJSON trade file for one user. Rows are validated like TradeRequest,
+// written in JDBC batches of portfolio.import.chunk-size (one transaction per chunk), and
+// the resulting holding changes are applied once per (market, symbol) at the end.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TradeImportService {
+
+    private static final String INSERT_SQL = "INSERT INTO trades (user_id, market, symbol, company_name, currency, " +
+            "buy_date, buy_price, buy_quantity, sell_date, sell_price, sell_quantity, profit_loss, " +
+            "profit_loss_percentage, position_held_days, status, remaining_quantity, invested_amount, " +
+            "current_value, notes, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final PortfolioStatsService statsService;
+    private final UserHoldingService holdingService;
+    private final TradeOutboxService outboxService;
+
+    @Value("${portfolio.import.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${portfolio.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    private record HoldingKey(Market market, String symbol) {
+    }
+
+    // Net quantity still held from imported rows, with the cost needed for a weighted price
+    private static class HoldingDelta {
+        private String companyName;
+        private String currency;
+        private BigDecimal quantity = BigDecimal.ZERO;
+        private BigDecimal cost = BigDecimal.ZERO;
+    }
+
+    private static class ImportRun {
+        private final Long userId;
+        private final List<TradeImportResult.RowError> errors = new ArrayList<>();
+        private final Map<HoldingKey, HoldingDelta> holdings = new LinkedHashMap<>();
+        private final List<Trade> chunk = new ArrayList<>();
+        private final List<Long> chunkLines = new ArrayList<>();
+        private long totalRows;
+        private long importedRows;
+        private long failedRows;
+        private boolean errorsTruncated;
+
+        private ImportRun(Long userId) {
+            this.userId = userId;
+        }
+    }
+
+    public TradeImportResult importTrades(Long userId, TradeFileFormat format, InputStream body) throws IOException {
+        long started = System.currentTimeMillis();
+        ImportRun run = new ImportRun(userId);
+        int holdingsUpdated;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            Map<String, Integer> header = null;
+            String line;
+            long lineNo = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank()) continue;
+
+                if (format == TradeFileFormat.CSV && header == null) {
+                    header = parseHeader(line);
+                    continue;
+                }
+
+                run.totalRows++;
+                try {
+                    TradeRequest request = format == TradeFileFormat.CSV
+                            ? parseCsvRow(header, line)
+                            : objectMapper.readValue(line, TradeRequest.class);
+                    String violations = validate(request);
+                    if (violations != null) {
+                        rejectRow(run, lineNo, violations);
+                        continue;
+                    }
+                    run.chunk.add(TradeService.toEntity(userId, request));
+                    run.chunkLines.add(lineNo);
+                } catch (Exception e) {
+                    rejectRow(run, lineNo, e.getMessage());
+                    continue;
+                }
+
+                if (run.chunk.size() >= chunkSize) {
+                    flushChunk(run);
+                }
+            }
+        } finally {
+            // Whatever was committed before a read failure still reaches holdings and the outbox
+            flushChunk(run);
+            holdingsUpdated = applyHoldings(run);
+            if (run.importedRows > 0) {
+                transactionTemplate.executeWithoutResult(status ->
+                        outboxService.recordTradesImported(userId, run.importedRows));
+            }
+        }
+
+        log.info("Imported {} of {} trades for user: {} ({} failed)",
+                run.importedRows, run.totalRows, userId, run.failedRows);
+
+        return TradeImportResult.builder()
+                .userId(userId)
+                .totalRows(run.totalRows)
+                .importedRows(run.importedRows)
+                .failedRows(run.failedRows)
+                .holdingsUpdated(holdingsUpdated)
+                .durationMillis(System.currentTimeMillis() - started)
+                .errors(run.errors)
+                .errorsTruncated(run.errorsTruncated)
+                .build();
+    }
+
+    private void flushChunk(ImportRun run) {
+        if (run.chunk.isEmpty()) return;
+
+        List<Trade> trades = List.copyOf(run.chunk);
+        List<Long> lines = List.copyOf(run.chunkLines);
+        run.chunk.clear();
+        run.chunkLines.clear();
+
+        LocalDateTime now = LocalDateTime.now();
+        long openTrades = 0;
+        BigDecimal aum = BigDecimal.ZERO;
+        for (Trade trade : trades) {
+            trade.calculateFields();
+            trade.setCreatedAt(now);
+            trade.setUpdatedAt(now);
+            PortfolioStatsService.Contribution contribution = statsService.contributionOf(trade);
+            if (contribution.open()) openTrades++;
+            aum = aum.add(contribution.aum());
+        }
+
+        long chunkOpenTrades = openTrades;
+        BigDecimal chunkAum = aum;
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(INSERT_SQL, trades, trades.size(), this::bindTrade);
+                statsService.applyDelta(run.userId, trades.size(), chunkOpenTrades, chunkAum);
+            });
+        } catch (Exception e) {
+            log.warn("Import chunk for user {} failed: {}", run.userId, e.getMessage());
+            for (Long line : lines) {
+                rejectRow(run, line, "Batch insert failed: " + e.getMessage());
+            }
+            return;
+        }
+
+        run.importedRows += trades.size();
+        for (Trade trade : trades) {
+            accumulateHolding(run, trade);
+        }
+    }
+
+    private void bindTrade(PreparedStatement ps, Trade t) throws SQLException {
+        ps.setLong(1, t.getUserId());
+        ps.setString(2, t.getMarket().name());
+        ps.setString(3, t.getSymbol());
+        ps.setString(4, t.getCompanyName());
+        ps.setString(5, t.getCurrency());
+        ps.setDate(6, Date.valueOf(t.getBuyDate()));
+        ps.setBigDecimal(7, t.getBuyPrice());
+        ps.setBigDecimal(8, t.getBuyQuantity());
+        ps.setDate(9, t.getSellDate() != null ? Date.valueOf(t.getSellDate()) : null);
+        ps.setBigDecimal(10, t.getSellPrice());
+        ps.setBigDecimal(11, t.getSellQuantity());
+        ps.setBigDecimal(12, t.getProfitLoss());
+        ps.setBigDecimal(13, t.getProfitLossPercentage());
+        if (t.getPositionHeldDays() != null) {
+            ps.setInt(14, t.getPositionHeldDays());
+        } else {
+            ps.setNull(14, Types.INTEGER);
+        }
+        ps.setString(15, t.getStatus().name());
+        ps.setBigDecimal(16, t.getRemainingQuantity());
+        ps.setBigDecimal(17, t.getInvestedAmount());
+        ps.setBigDecimal(18, t.getCurrentValue());
+        ps.setString(19, t.getNotes());
+        ps.setTimestamp(20, Timestamp.valueOf(t.getCreatedAt()));
+        ps.setTimestamp(21, Timestamp.valueOf(t.getUpdatedAt()));
+    }
+
+    private void accumulateHolding(ImportRun run, Trade trade) {
+        BigDecimal held = trade.getBuyQuantity();
+        if (trade.getSellQuantity() != null) {
+            held = held.subtract(trade.getSellQuantity());
+        }
+        if (held.signum() <= 0) return;
+
+        HoldingDelta delta = run.holdings.computeIfAbsent(
+                new HoldingKey(trade.getMarket(), trade.getSymbol()), k -> new HoldingDelta());
+        if (delta.companyName == null) delta.companyName = trade.getCompanyName();
+        if (delta.currency == null) delta.currency = trade.getCurrency();
+        delta.quantity = delta.quantity.add(held);
+        delta.cost = delta.cost.add(held.multiply(trade.getBuyPrice()));
+    }
+
+    private int applyHoldings(ImportRun run) {
+        int updated = 0;
+        for (Map.Entry<HoldingKey, HoldingDelta> entry : run.holdings.entrySet()) {
+            HoldingKey key = entry.getKey();
+            HoldingDelta delta = entry.getValue();
+            BigDecimal averagePrice = delta.cost.divide(delta.quantity, 2, RoundingMode.HALF_UP);
+            try {
+                holdingService.addOrUpdateHolding(run.userId, key.market(), key.symbol(),
+                        delta.quantity, averagePrice, delta.companyName, delta.currency);
+                updated++;
+            } catch (Exception e) {
+                log.warn("Holding update for user {} {} after import failed: {}",
+                        run.userId, key.symbol(), e.getMessage());
+            }
+        }
+        return updated;
+    }
+
+    private String validate(TradeRequest request) {
+        Set<ConstraintViolation<TradeRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) return null;
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private void rejectRow(ImportRun run, long line, String message) {
+        run.failedRows++;
+        if (run.errors.size() < maxReportedErrors) {
+            run.errors.add(TradeImportResult.RowError.builder().line(line).message(message).build());
+        } else {
+            run.errorsTruncated = true;
+        }
+    }
+
+    private Map<String, Integer> parseHeader(String line) {
+        List<String> columns = splitCsv(line);
+        Map<String, Integer> header = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            header.put(columns.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!header.containsKey("market") || !header.containsKey("symbol")) {
+            throw new BadRequestException("CSV header must include at least market and symbol columns");
+        }
+        return header;
+    }
+
+    private TradeRequest parseCsvRow(Map<String, Integer> header, String line) {
+        List<String> values = splitCsv(line);
+        return TradeRequest.builder()
+                .market(enumValue(Market.class, column(header, values, "market")))
+                .symbol(column(header, values, "symbol"))
+                .companyName(column(header, values, "companyname"))
+                .currency(column(header, values, "currency"))
+                .buyDate(dateValue(column(header, values, "buydate")))
+                .buyPrice(decimalValue(column(header, values, "buyprice")))
+                .buyQuantity(decimalValue(column(header, values, "buyquantity")))
+                .sellDate(dateValue(column(header, values, "selldate")))
+                .sellPrice(decimalValue(column(header, values, "sellprice")))
+                .sellQuantity(decimalValue(column(header, values, "sellquantity")))
+                .status(enumValue(TradeStatus.class, column(header, values, "status")))
+                .notes(column(header, values, "notes"))
+                .build();
+    }
+
+    private String column(Map<String, Integer> header, List<String> values, String name) {
+        Integer index = header.get(name);
+        if (index == null || index >= values.size()) return null;
+        String value = values.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private <E extends Enum<E>> E enumValue(Class<E> type, String value) {
+        return value != null ? Enum.valueOf(type, value.toUpperCase(Locale.ROOT)) : null;
+    }
+
+    private LocalDate dateValue(String value) {
+        return value != null ? LocalDate.parse(value) : null;
+    }
+
+    private BigDecimal decimalValue(String value) {
+        return value != null ? new BigDecimal(value) : null;
+    }
+
+    // RFC 4180 style: commas inside double quotes, "" as an escaped quote
+    private List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+}
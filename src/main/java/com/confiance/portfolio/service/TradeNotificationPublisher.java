@@ -0,0 +1,78 @@
+package com.confiance.portfolio.service;
+
+import com.confiance.common.notification.Notifier;
+import com.confiance.portfolio.entity.TradeOutboxEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+public class TradeNotificationPublisher {
+
+    private final Notifier notifier;
+    private final MeterRegistry meterRegistry;
+
+    public void publish(TradeOutboxEvent event, List<Long> adminIds) {
+        if (event.getEventType() == TradeOutboxEvent.EventType.TRADES_IMPORTED) {
+            publishImport(event, adminIds);
+            return;
+        }
+
+        // Confirmation for the user who placed the trade.
+        timed("notifyUser", () -> notifier.notifyUser(event.getUserId(),
+            "Trade recorded",
+            "Buy " + event.getSymbol() + " @ " + event.getPrice()
+                + " x " + event.getQuantity(),
+            "TRADE",
+            "/financial/trades",
+            "ph-chart-line-up"));
+
+        // Admin broadcast
+        if (!adminIds.isEmpty()) {
+            timed("notifyUsers", () -> notifier.notifyUsers(adminIds,
+                "New trade by user " + event.getUserId(),
+                event.getSymbol() + " @ " + event.getPrice()
+                    + " x " + event.getQuantity() + " (" + event.getMarket() + ")",
+                "TRADE",
+                "/admin/client-pl",
+                "ph-chart-line-up"));
+        }
+    }
+
+    private void publishImport(TradeOutboxEvent event, List<Long> adminIds) {
+        timed("notifyUser", () -> notifier.notifyUser(event.getUserId(),
+            "Trades imported",
+            event.getTradeCount() + " trades imported",
+            "TRADE",
+            "/financial/trades",
+            "ph-chart-line-up"));
+
+        if (!adminIds.isEmpty()) {
+            timed("notifyUsers", () -> notifier.notifyUsers(adminIds,
+                "Bulk import by user " + event.getUserId(),
+                event.getTradeCount() + " trades imported",
+                "TRADE",
+                "/admin/client-pl",
+                "ph-chart-line-up"));
+        }
+    }
+
+    // Outbound latency per call, tagged with the outcome; failures still propagate to the outbox retry
+    private void timed(String operation, Runnable call) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        try {
+            call.run();
+            outcome = "success";
+        } finally {
+            sample.stop(Timer.builder("portfolio.notifier.calls")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.confiance.portfolio.service;
+
+import com.confiance.portfolio.entity.TradeOutboxEvent;
+import com.confiance.portfolio.repository.TradeOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Delivers trade outbox events off the request path. Committed event IDs are handed over
+// through a bounded in-memory queue; anything that overflows it, needs a retry or was left
+// behind by another instance is picked up from the table by the periodic poll.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TradeOutboxDispatcher {
+
+    private final TradeOutboxRepository outboxRepository;
+    private final TradeNotificationPublisher publisher;
+    private final AdminIdCache adminIdCache;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${portfolio.outbox.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${portfolio.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${portfolio.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${portfolio.outbox.initial-backoff-ms:1000}")
+    private long initialBackoffMs;
+
+    @Value("${portfolio.outbox.max-backoff-ms:300000}")
+    private long maxBackoffMs;
+
+    @Value("${portfolio.outbox.claim-timeout-ms:120000}")
+    private long claimTimeoutMs;
+
+    @Value("${portfolio.outbox.retention-days:7}")
+    private int retentionDays;
+
+    private BlockingQueue<Long> queue;
+    private Thread worker;
+    private volatile boolean running;
+
+    private DistributionSummary batchSizeSummary;
+    private Timer lagTimer;
+    private Counter sentCounter;
+    private Counter retriedCounter;
+    private Counter failedCounter;
+
+    @PostConstruct
+    void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        batchSizeSummary = DistributionSummary.builder("portfolio.outbox.dispatch.batch.size")
+                .description("Events claimed per dispatch")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        lagTimer = Timer.builder("portfolio.outbox.dispatch.lag")
+                .description("Time from trade commit to notification delivery")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        sentCounter = Counter.builder("portfolio.outbox.events").tag("outcome", "sent").register(meterRegistry);
+        retriedCounter = Counter.builder("portfolio.outbox.events").tag("outcome", "retried").register(meterRegistry);
+        failedCounter = Counter.builder("portfolio.outbox.events").tag("outcome", "failed").register(meterRegistry);
+        Gauge.builder("portfolio.outbox.queue.size", queue, BlockingQueue::size).register(meterRegistry);
+
+        running = true;
+        worker = new Thread(this::runWorker, "trade-outbox-dispatcher");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    public void enqueueAfterCommit(Long eventId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(eventId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                enqueue(eventId);
+            }
+        });
+    }
+
+    private void enqueue(Long eventId) {
+        if (!queue.offer(eventId)) {
+            log.debug("Outbox queue full, event {} left for the poller", eventId);
+        }
+    }
+
+    private void runWorker() {
+        while (running) {
+            try {
+                Long first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) continue;
+
+                List<Long> ids = new ArrayList<>(batchSize);
+                ids.add(first);
+                queue.drainTo(ids, batchSize - 1);
+                dispatch(ids);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.warn("Outbox dispatch failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${portfolio.outbox.poll-interval-ms:5000}")
+    public void pollDueEvents() {
+        LocalDateTime now = LocalDateTime.now();
+        int released = outboxRepository.releaseExpiredClaims(now.minus(Duration.ofMillis(claimTimeoutMs)),
+                TradeOutboxEvent.Status.PENDING, TradeOutboxEvent.Status.DISPATCHING);
+        if (released > 0) {
+            log.warn("Released {} outbox events with expired claims", released);
+        }
+
+        List<Long> ids;
+        do {
+            ids = outboxRepository.findDueIds(TradeOutboxEvent.Status.PENDING, LocalDateTime.now(),
+                    PageRequest.of(0, batchSize));
+            if (!ids.isEmpty()) {
+                dispatch(ids);
+            }
+        } while (ids.size() == batchSize && running);
+    }
+
+    @Scheduled(cron = "${portfolio.outbox.purge-cron:0 30 3 * * *}")
+    public void purgeSentEvents() {
+        int deleted = outboxRepository.deleteSentBefore(TradeOutboxEvent.Status.SENT,
+                LocalDateTime.now().minusDays(retentionDays));
+        log.info("Purged {} delivered outbox events", deleted);
+    }
+
+    void dispatch(List<Long> ids) {
+        String token = UUID.randomUUID().toString();
+        if (outboxRepository.claim(ids, token, LocalDateTime.now(),
+                TradeOutboxEvent.Status.PENDING, TradeOutboxEvent.Status.DISPATCHING) == 0) {
+            return;
+        }
+
+        List<TradeOutboxEvent> events = outboxRepository.findByClaimToken(token);
+        batchSizeSummary.record(events.size());
+
+        // One admin lookup per batch rather than per trade
+        List<Long> adminIds = adminIdCache.getAdminIds();
+
+        for (TradeOutboxEvent event : events) {
+            try {
+                publisher.publish(event, adminIds);
+                LocalDateTime sentAt = LocalDateTime.now();
+                event.setStatus(TradeOutboxEvent.Status.SENT);
+                event.setSentAt(sentAt);
+                lagTimer.record(Duration.between(event.getCreatedAt(), sentAt));
+                sentCounter.increment();
+            } catch (Exception e) {
+                scheduleRetry(event, e);
+            }
+            event.setClaimToken(null);
+        }
+
+        outboxRepository.saveAll(events);
+    }
+
+    private void scheduleRetry(TradeOutboxEvent event, Exception e) {
+        int attempts = event.getAttempts() + 1;
+        event.setAttempts(attempts);
+        event.setLastError(truncate(e.getMessage()));
+
+        if (attempts >= maxAttempts) {
+            log.warn("Outbox event {} failed after {} attempts: {}", event.getId(), attempts, e.getMessage());
+            event.setStatus(TradeOutboxEvent.Status.FAILED);
+            failedCounter.increment();
+            return;
+        }
+
+        long backoff = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempts - 1, 20));
+        event.setStatus(TradeOutboxEvent.Status.PENDING);
+        event.setNextAttemptAt(LocalDateTime.now().plus(Duration.ofMillis(backoff)));
+        retriedCounter.increment();
+    }
+
+    private String truncate(String message) {
+        if (message == null) return null;
+        return message.length() > 500 ? message.substring(0, 500) : message;
+    }
+}
@@ -0,0 +1,53 @@
+package com.confiance.portfolio.service;
+
+import com.confiance.portfolio.entity.Trade;
+import com.confiance.portfolio.entity.TradeOutboxEvent;
+import com.confiance.portfolio.repository.TradeOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TradeOutboxService {
+
+    private final TradeOutboxRepository outboxRepository;
+    private final TradeOutboxDispatcher dispatcher;
+
+    // Joins the caller's transaction; the dispatcher is only told about the event once it commits
+    @Transactional
+    public void recordTradeCreated(Trade trade) {
+        LocalDateTime now = LocalDateTime.now();
+        TradeOutboxEvent event = outboxRepository.save(TradeOutboxEvent.builder()
+                .eventType(TradeOutboxEvent.EventType.TRADE_CREATED)
+                .tradeId(trade.getId())
+                .userId(trade.getUserId())
+                .market(trade.getMarket())
+                .symbol(trade.getSymbol())
+                .price(trade.getBuyPrice())
+                .quantity(trade.getBuyQuantity())
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
+
+        dispatcher.enqueueAfterCommit(event.getId());
+    }
+
+    @Transactional
+    public void recordTradesImported(Long userId, long tradeCount) {
+        LocalDateTime now = LocalDateTime.now();
+        TradeOutboxEvent event = outboxRepository.save(TradeOutboxEvent.builder()
+                .eventType(TradeOutboxEvent.EventType.TRADES_IMPORTED)
+                .userId(userId)
+                .tradeCount((int) tradeCount)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
+
+        dispatcher.enqueueAfterCommit(event.getId());
+    }
+}
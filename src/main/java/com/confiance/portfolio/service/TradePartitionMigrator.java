@@ -0,0 +1,384 @@
+package com.confiance.portfolio.service;
+
+import com.confiance.common.exception.BadRequestException;
+import com.confiance.portfolio.dto.TradePartitionStatus;
+import com.confiance.portfolio.entity.PartitionMigrationRun;
+import com.confiance.portfolio.repository.PartitionMigrationRunRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+// Moves trades online into a copy range-partitioned by year of buy_date, in the style of
+// pt-online-schema-change: triggers mirror live writes into the copy while existing rows are
+// copied in id-range chunks, then both tables are swapped with one atomic RENAME. The old
+// table is kept as trades_unpartitioned for the operator to drop. Cancelling drops the copy and
+// its triggers; a run that failed keeps them, and the next start resumes its idempotent copy.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TradePartitionMigrator {
+
+    static final String TABLE = "trades";
+    static final String COPY_TABLE = "trades_partitioned";
+    static final String OLD_TABLE = "trades_unpartitioned";
+    private static final String FUTURE_PARTITION = "p_future";
+
+    // Covered by the composite indexes declared on Trade
+    private static final List<String> RETIRED_INDEXES = List.of(
+            "idx_trade_user_id", "idx_trade_symbol", "idx_trade_market", "idx_trade_status", "idx_trade_buy_date");
+
+    private static final String LEASE = "trade-partition-migration";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PartitionMigrationRunRepository runRepository;
+    private final JobLeases leases;
+    private final BackgroundJobs jobs;
+
+    @Value("${portfolio.partitioning.chunk-size:5000}")
+    private int chunkSize;
+
+    @Value("${portfolio.partitioning.chunk-pause-ms:100}")
+    private long chunkPauseMs;
+
+    // Yearly partitions kept ready beyond the current year
+    @Value("${portfolio.partitioning.years-ahead:2}")
+    private int yearsAhead;
+
+    @Value("${portfolio.partitioning.lease-ms:600000}")
+    private long leaseMs;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public TradePartitionStatus getStatus() {
+        List<String> partitions = partitionsOf(TABLE);
+        TradePartitionStatus.TradePartitionStatusBuilder status = TradePartitionStatus.builder()
+                .state(TradePartitionStatus.State.IDLE)
+                .partitioned(!partitions.isEmpty())
+                .partitions(partitions);
+        runRepository.findFirstByOrderByIdDesc().ifPresent(run -> status
+                .state(TradePartitionStatus.State.valueOf(run.getStatus().name()))
+                .phase(run.getPhase())
+                .copiedThroughId(run.getCopiedThroughId())
+                .maxId(run.getMaxId())
+                .startedAt(run.getStartedAt())
+                .heartbeatAt(run.getHeartbeatAt())
+                .finishedAt(run.getFinishedAt())
+                .error(run.getError()));
+        return status.build();
+    }
+
+    // Runs on the background job pool; progress is read back through getStatus
+    public TradePartitionStatus start() {
+        if (!running.compareAndSet(false, true)) {
+            throw new BadRequestException("Partition migration is already running");
+        }
+        boolean leased = false;
+        PartitionMigrationRun saved = null;
+        try {
+            if (!leases.acquire(LEASE, leaseMs)) {
+                throw new BadRequestException("Partition migration is running on another instance");
+            }
+            leased = true;
+            if (!partitionsOf(TABLE).isEmpty()) {
+                throw new BadRequestException("Table " + TABLE + " is already partitioned");
+            }
+            if (tableExists(OLD_TABLE)) {
+                throw new BadRequestException("Drop " + OLD_TABLE + " from the previous migration first");
+            }
+            LocalDateTime now = LocalDateTime.now();
+            PartitionMigrationRun run = runRepository.save(PartitionMigrationRun.builder()
+                    .status(PartitionMigrationRun.Status.RUNNING)
+                    .startedAt(now)
+                    .heartbeatAt(now)
+                    .build());
+            saved = run;
+            jobs.submit("trade-partition-migrator", () -> run(run));
+            return getStatus();
+        } catch (RuntimeException e) {
+            if (saved != null) {
+                finish(saved, PartitionMigrationRun.Status.FAILED, e.getMessage());
+            }
+            if (leased) {
+                leases.release(LEASE);
+            }
+            running.set(false);
+            throw e;
+        }
+    }
+
+    // The worker stops after its current chunk and drops the copy with its triggers. When no
+    // instance holds the lease there is no worker, so a copy left by a crashed run is dropped here.
+    public TradePartitionStatus cancel() {
+        runRepository.requestCancel(PartitionMigrationRun.Status.RUNNING);
+        if (running.compareAndSet(false, true)) {
+            try {
+                if (leases.acquire(LEASE, leaseMs)) {
+                    try {
+                        if (tableExists(COPY_TABLE) || triggerCount() > 0) {
+                            dropCopy();
+                        }
+                        runRepository.findFirstByOrderByIdDesc()
+                                .filter(run -> run.getStatus() == PartitionMigrationRun.Status.RUNNING)
+                                .ifPresent(run -> finish(run, PartitionMigrationRun.Status.CANCELLED, null));
+                    } finally {
+                        leases.release(LEASE);
+                    }
+                }
+            } finally {
+                running.set(false);
+            }
+        }
+        return getStatus();
+    }
+
+    private void run(PartitionMigrationRun run) {
+        try {
+            List<String> columns = columnsOf(TABLE);
+            run = phase(run, "prepare");
+            prepareCopy(columns);
+            run = phase(run, "copy");
+            run = copyRows(run, columns);
+            if (runRepository.isCancelRequested(run.getId())) {
+                dropCopy();
+                finish(run, PartitionMigrationRun.Status.CANCELLED, null);
+                log.info("Partition migration cancelled after id {}; dropped {} and its triggers",
+                        run.getCopiedThroughId(), COPY_TABLE);
+                return;
+            }
+            run = phase(run, "verify");
+            verifyCounts();
+            run = phase(run, "swap");
+            swap();
+            finish(run, PartitionMigrationRun.Status.COMPLETED, null);
+            log.info("Partition migration completed, old table kept as {}", OLD_TABLE);
+        } catch (InterruptedException e) {
+            // The triggers stay, so a later start resumes the copy
+            Thread.currentThread().interrupt();
+            finish(run, PartitionMigrationRun.Status.FAILED, "Interrupted");
+        } catch (Exception e) {
+            log.error("Partition migration failed during {}: {}", run.getPhase(), e.getMessage(), e);
+            finish(run, PartitionMigrationRun.Status.FAILED, e.getMessage());
+        } finally {
+            leases.release(LEASE);
+            running.set(false);
+        }
+    }
+
+    private PartitionMigrationRun phase(PartitionMigrationRun run, String phase) {
+        run.setPhase(phase);
+        run.setHeartbeatAt(LocalDateTime.now());
+        return runRepository.save(run);
+    }
+
+    private void finish(PartitionMigrationRun run, PartitionMigrationRun.Status status, String error) {
+        run.setStatus(status);
+        run.setError(error != null && error.length() > 1000 ? error.substring(0, 1000) : error);
+        run.setFinishedAt(LocalDateTime.now());
+        run.setHeartbeatAt(run.getFinishedAt());
+        runRepository.save(run);
+    }
+
+    // Creates the partitioned copy and its triggers, or picks up a copy left by a cancelled run
+    private void prepareCopy(List<String> columns) {
+        if (tableExists(COPY_TABLE)) {
+            if (triggerCount() == 3) {
+                log.info("Resuming partition migration into existing {}", COPY_TABLE);
+                return;
+            }
+            // Without all triggers the copy may have missed writes
+            dropCopy();
+        }
+
+        jdbcTemplate.execute("CREATE TABLE " + COPY_TABLE + " LIKE " + TABLE);
+
+        // Every unique key of a partitioned table must include the partitioning column
+        StringBuilder alter = new StringBuilder("ALTER TABLE " + COPY_TABLE +
+                " DROP PRIMARY KEY, ADD PRIMARY KEY (id, buy_date)");
+        List<String> indexes = indexesOf(COPY_TABLE);
+        for (String index : RETIRED_INDEXES) {
+            if (indexes.contains(index)) {
+                alter.append(", DROP INDEX ").append(index);
+            }
+        }
+        jdbcTemplate.execute(alter.toString());
+
+        Integer firstYear = jdbcTemplate.queryForObject("SELECT YEAR(MIN(buy_date)) FROM " + TABLE, Integer.class);
+        int currentYear = LocalDate.now().getYear();
+        jdbcTemplate.execute("ALTER TABLE " + COPY_TABLE + " " + partitionClause(
+                firstYear != null ? Math.min(firstYear, currentYear) : currentYear, currentYear + yearsAhead));
+
+        createTriggers(columns);
+        log.info("Created {} with yearly buy_date partitions", COPY_TABLE);
+    }
+
+    // CREATE TRIGGER waits for in-flight transactions on trades, so every write after it is mirrored
+    private void createTriggers(List<String> columns) {
+        String columnList = String.join(", ", columns);
+        String newValues = columns.stream().map(c -> "NEW." + c).collect(Collectors.joining(", "));
+        String upsert = "REPLACE INTO " + COPY_TABLE + " (" + columnList + ") VALUES (" + newValues + ")";
+        String delete = "DELETE FROM " + COPY_TABLE + " WHERE id = OLD.id";
+
+        jdbcTemplate.execute("CREATE TRIGGER " + triggerName("ins") + " AFTER INSERT ON " + TABLE +
+                " FOR EACH ROW " + upsert);
+        // buy_date is part of the copy's key, so a changed buy date must not leave the old row behind
+        jdbcTemplate.execute("CREATE TRIGGER " + triggerName("upd") + " AFTER UPDATE ON " + TABLE +
+                " FOR EACH ROW BEGIN " + delete + "; " + upsert + "; END");
+        jdbcTemplate.execute("CREATE TRIGGER " + triggerName("del") + " AFTER DELETE ON " + TABLE +
+                " FOR EACH ROW " + delete);
+    }
+
+    // Rows above maxId arrive through the insert trigger. INSERT IGNORE keeps any newer version
+    // a trigger already wrote, and the shared locks make concurrent writers wait for the chunk.
+    private PartitionMigrationRun copyRows(PartitionMigrationRun run, List<String> columns) throws InterruptedException {
+        Long max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + TABLE, Long.class);
+        run.setMaxId(max != null ? max : 0);
+
+        String columnList = String.join(", ", columns);
+        String sql = "INSERT IGNORE INTO " + COPY_TABLE + " (" + columnList + ") SELECT " + columnList +
+                " FROM " + TABLE + " WHERE id > ? AND id <= ? LOCK IN SHARE MODE";
+
+        long from = 0;
+        while (from < run.getMaxId() && !runRepository.isCancelRequested(run.getId())) {
+            long to = Math.min(from + chunkSize, run.getMaxId());
+            jdbcTemplate.update(sql, from, to);
+            from = to;
+            run.setCopiedThroughId(to);
+            run.setHeartbeatAt(LocalDateTime.now());
+            run = runRepository.save(run);
+            if (!leases.acquire(LEASE, leaseMs)) {
+                throw new IllegalStateException("Partition migration lease was taken over by another instance");
+            }
+            if (chunkPauseMs > 0) {
+                Thread.sleep(chunkPauseMs);
+            }
+        }
+        log.info("Copied trades through id {} of {}", run.getCopiedThroughId(), run.getMaxId());
+        return run;
+    }
+
+    // Both counts come from the same snapshot; triggers write in the same transaction as the source
+    private void verifyCounts() {
+        long[] counts = transactionTemplate.execute(status -> new long[] {
+                count(TABLE), count(COPY_TABLE)
+        });
+        if (counts == null || counts[0] != counts[1]) {
+            throw new IllegalStateException("Row count mismatch between " + TABLE + " and " + COPY_TABLE +
+                    (counts != null ? ": " + counts[0] + " vs " + counts[1] : ""));
+        }
+    }
+
+    private void swap() {
+        jdbcTemplate.execute("RENAME TABLE " + TABLE + " TO " + OLD_TABLE + ", " + COPY_TABLE + " TO " + TABLE);
+        // The triggers moved with the old table, which nothing writes to any more
+        dropTriggers();
+    }
+
+    // Triggers go first: without the copy they would fail every write to trades
+    private void dropCopy() {
+        dropTriggers();
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + COPY_TABLE);
+    }
+
+    private void dropTriggers() {
+        for (String suffix : List.of("ins", "upd", "del")) {
+            jdbcTemplate.execute("DROP TRIGGER IF EXISTS " + triggerName(suffix));
+        }
+    }
+
+    // Splits p_future so the coming years keep their own partitions; a no-op until the table is partitioned
+    @Scheduled(cron = "${portfolio.partitioning.maintenance-cron:0 0 4 * * *}")
+    public void addFuturePartitions() {
+        List<String> partitions = partitionsOf(TABLE);
+        if (partitions.isEmpty() || !partitions.contains(FUTURE_PARTITION)) {
+            return;
+        }
+        int lastYear = partitions.stream()
+                .filter(p -> !p.equals(FUTURE_PARTITION))
+                .mapToInt(p -> Integer.parseInt(p.substring(1)))
+                .max()
+                .orElse(LocalDate.now().getYear() - 1);
+        int targetYear = LocalDate.now().getYear() + yearsAhead;
+        if (lastYear >= targetYear) {
+            return;
+        }
+
+        StringBuilder sql = new StringBuilder("ALTER TABLE " + TABLE + " REORGANIZE PARTITION " +
+                FUTURE_PARTITION + " INTO (");
+        for (int year = lastYear + 1; year <= targetYear; year++) {
+            appendPartition(sql, year);
+        }
+        sql.append("PARTITION ").append(FUTURE_PARTITION).append(" VALUES LESS THAN (MAXVALUE))");
+        try {
+            jdbcTemplate.execute(sql.toString());
+            log.info("Added trades partitions through {}", targetYear);
+        } catch (DataAccessException e) {
+            // Another instance got there first
+            log.warn("Could not add trades partitions: {}", e.getMessage());
+        }
+    }
+
+    // Rows before firstYear fall into its partition
+    private String partitionClause(int firstYear, int lastYear) {
+        StringBuilder sql = new StringBuilder("PARTITION BY RANGE COLUMNS(buy_date) (");
+        for (int year = firstYear; year <= lastYear; year++) {
+            appendPartition(sql, year);
+        }
+        return sql.append("PARTITION ").append(FUTURE_PARTITION).append(" VALUES LESS THAN (MAXVALUE))").toString();
+    }
+
+    private void appendPartition(StringBuilder sql, int year) {
+        sql.append("PARTITION p").append(year).append(" VALUES LESS THAN ('").append(year + 1).append("-01-01'), ");
+    }
+
+    private String triggerName(String suffix) {
+        return TABLE + "_pmig_" + suffix;
+    }
+
+    private long count(String table) {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+        return count != null ? count : 0;
+    }
+
+    private boolean tableExists(String table) {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.tables " +
+                "WHERE table_schema = DATABASE() AND table_name = ?", Integer.class, table);
+        return count != null && count > 0;
+    }
+
+    private int triggerCount() {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.triggers " +
+                "WHERE trigger_schema = DATABASE() AND trigger_name LIKE ?", Integer.class, TABLE + "\\_pmig\\_%");
+        return count != null ? count : 0;
+    }
+
+    private List<String> columnsOf(String table) {
+        return jdbcTemplate.queryForList("SELECT column_name FROM information_schema.columns " +
+                "WHERE table_schema = DATABASE() AND table_name = ? ORDER BY ordinal_position", String.class, table)
+                .stream()
+                .map(c -> "`" + c + "`")
+                .toList();
+    }
+
+    private List<String> indexesOf(String table) {
+        return jdbcTemplate.queryForList("SELECT DISTINCT index_name FROM information_schema.statistics " +
+                "WHERE table_schema = DATABASE() AND table_name = ?", String.class, table);
+    }
+
+    private List<String> partitionsOf(String table) {
+        return jdbcTemplate.queryForList("SELECT partition_name FROM information_schema.partitions " +
+                "WHERE table_schema = DATABASE() AND table_name = ? AND partition_name IS NOT NULL " +
+                "ORDER BY partition_ordinal_position", String.class, table);
+    }
+}
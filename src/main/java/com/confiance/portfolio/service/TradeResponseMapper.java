@@ -0,0 +1,53 @@
+package com.confiance.portfolio.service;
+
+import com.confiance.common.dto.PageResponse;
+import com.confiance.portfolio.dto.TradeResponse;
+import com.confiance.portfolio.entity.Trade;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+
+// Trade entity and page to response mapping for the write paths and paged listings; the read
+// queries select straight into TradeResponse
+@Component
+public class TradeResponseMapper {
+
+    public TradeResponse toResponse(Trade t) {
+        return TradeResponse.builder()
+                .id(t.getId())
+                .userId(t.getUserId())
+                .market(t.getMarket())
+                .symbol(t.getSymbol())
+                .companyName(t.getCompanyName())
+                .currency(t.getCurrency())
+                .buyDate(t.getBuyDate())
+                .buyPrice(t.getBuyPrice())
+                .buyQuantity(t.getBuyQuantity())
+                .sellDate(t.getSellDate())
+                .sellPrice(t.getSellPrice())
+                .sellQuantity(t.getSellQuantity())
+                .profitLoss(t.getProfitLoss())
+                .profitLossPercentage(t.getProfitLossPercentage())
+                .positionHeldDays(t.getPositionHeldDays())
+                .remainingQuantity(t.getRemainingQuantity())
+                .investedAmount(t.getInvestedAmount())
+                .currentValue(t.getCurrentValue())
+                .status(t.getStatus())
+                .notes(t.getNotes())
+                .createdAt(t.getCreatedAt())
+                .updatedAt(t.getUpdatedAt())
+                .build();
+    }
+
+    public PageResponse<TradeResponse> toPageResponse(Page<TradeResponse> page) {
+        return PageResponse.<TradeResponse>builder()
+                .content(page.getContent())
+                .pageNumber(page.getNumber())
+                .pageSize(page.getSize())
+                .totalElements(page.getTotalElements())
+                .totalPages(page.getTotalPages())
+                .last(page.isLast())
+                .first(page.isFirst())
+                .empty(page.isEmpty())
+                .build();
+    }
+}
@@ -5,46 +5,96 @@ import com.confiance.common.enums.Market;
 import com.confiance.common.enums.TradeStatus;
 import com.confiance.common.exception.BadRequestException;
 import com.confiance.common.exception.ResourceNotFoundException;
+import com.confiance.portfolio.config.StatementBudget;
+import com.confiance.portfolio.dto.CursorPage;
+import com.confiance.portfolio.dto.PageCursor;
+import com.confiance.portfolio.dto.PositionSellRequest;
+import com.confiance.portfolio.dto.PositionSellResult;
+import com.confiance.portfolio.dto.RealizedPositionResponse;
+import com.confiance.portfolio.dto.SellAllocationResponse;
 import com.confiance.portfolio.dto.SellTradeRequest;
+import com.confiance.portfolio.dto.TradeFileFormat;
+import com.confiance.portfolio.dto.TradeImportResult;
 import com.confiance.portfolio.dto.TradeRequest;
 import com.confiance.portfolio.dto.TradeResponse;
+import com.confiance.portfolio.entity.RealizedPosition;
+import com.confiance.portfolio.entity.SellAllocation;
 import com.confiance.portfolio.entity.Trade;
-import com.confiance.common.notification.Notifier;
+import com.confiance.portfolio.repository.RealizedPositionRepository;
+import com.confiance.portfolio.repository.SellAllocationRepository;
 import com.confiance.portfolio.repository.TradeRepository;
+import com.confiance.portfolio.util.PositionMath;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
-import org.springframework.http.HttpEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
+@Timed(value = "portfolio.service", histogram = true)
 public class TradeService {
 
     private final TradeRepository tradeRepository;
-    private final Notifier notifier;
-    @Autowired(required = false)
-    @Qualifier("notifierLoadBalancedRestTemplate")
-    private RestTemplate loadBalancedRestTemplate;
+    private final PortfolioStatsService statsService;
+    private final TradeOutboxService outboxService;
+    private final TradeImportService tradeImportService;
+    private final TradeExportService tradeExportService;
+    private final SellLedgerService sellLedgerService;
+    private final SellAllocationRepository allocationRepository;
+    private final RealizedPositionRepository realizedPositionRepository;
+    private final TradeResponseMapper tradeMapper;
+
+    @Value("${portfolio.paging.max-size:200}")
+    private int maxPageSize;
 
     @Transactional
     public TradeResponse createTrade(Long userId, TradeRequest request) {
         log.info("Creating trade for user: {} symbol: {}", userId, request.getSymbol());
 
-        Trade trade = Trade.builder()
+        Trade trade = toEntity(userId, request);
+
+        Trade saved = tradeRepository.save(trade);
+        statsService.applyChange(userId, PortfolioStatsService.Contribution.NONE, statsService.contributionOf(saved));
+
+        // Notifications are delivered by the outbox dispatcher after commit
+        outboxService.recordTradeCreated(saved);
+
+        return tradeMapper.toResponse(saved);
+    }
+
+    // Rows are written in chunked JDBC batches; see TradeImportService
+    public TradeImportResult importTrades(Long userId, TradeFileFormat format, InputStream body) throws IOException {
+        log.info("Importing {} trades for user: {}", format, userId);
+        return tradeImportService.importTrades(userId, format, body);
+    }
+
+    // Streams rows from the database to the output; see TradeExportService
+    public long exportTrades(TradeExportService.ExportFilter filter, TradeFileFormat format, boolean gzip,
+                             OutputStream out) throws IOException {
+        return tradeExportService.export(filter, format, gzip, out);
+    }
+
+    static Trade toEntity(Long userId, TradeRequest request) {
+        return Trade.builder()
                 .userId(userId)
                 .market(request.getMarket())
                 .symbol(request.getSymbol().toUpperCase())
@@ -60,64 +110,12 @@ public class TradeService {
                 .status(request.getStatus() != null ? request.getStatus() : TradeStatus.OPEN)
                 .notes(request.getNotes())
                 .build();
-
-        Trade saved = tradeRepository.save(trade);
-
-        // Fan-out activity notifications (best-effort — never blocks the save)
-        publishTradeNotifications(saved);
-
-        return toResponse(saved);
-    }
-
-    private void publishTradeNotifications(Trade trade) {
-        try {
-            // Confirmation for the user who placed the trade.
-            notifier.notifyUser(trade.getUserId(),
-                "Trade recorded",
-                "Buy " + trade.getSymbol() + " @ " + trade.getBuyPrice()
-                    + " x " + trade.getBuyQuantity(),
-                "TRADE",
-                "/financial/trades",
-                "ph-chart-line-up");
-
-            // Admin broadcast — fetch admin user IDs via user-service.
-            java.util.List<Long> admins = fetchAdminIds();
-            if (!admins.isEmpty()) {
-                notifier.notifyUsers(admins,
-                    "New trade by user " + trade.getUserId(),
-                    trade.getSymbol() + " @ " + trade.getBuyPrice()
-                        + " x " + trade.getBuyQuantity() + " (" + trade.getMarket() + ")",
-                    "TRADE",
-                    "/admin/client-pl",
-                    "ph-chart-line-up");
-            }
-        } catch (Exception e) {
-            log.warn("Trade notification fan-out failed: {}", e.getMessage());
-        }
-    }
-
-    @SuppressWarnings("unchecked")
-    private java.util.List<Long> fetchAdminIds() {
-        if (loadBalancedRestTemplate == null) return java.util.List.of();
-        try {
-            java.util.Map<String, Object> resp = loadBalancedRestTemplate.getForObject(
-                "http://user-service/api/v1/users/admins/ids", java.util.Map.class);
-            if (resp == null) return java.util.List.of();
-            Object data = resp.get("data");
-            if (!(data instanceof java.util.List<?> list)) return java.util.List.of();
-            return list.stream()
-                .filter(java.util.Objects::nonNull)
-                .map(o -> ((Number) o).longValue())
-                .toList();
-        } catch (Exception e) {
-            log.debug("fetchAdminIds failed: {}", e.getMessage());
-            return java.util.List.of();
-        }
     }
 
     @Transactional
     public TradeResponse updateTrade(Long userId, Long tradeId, TradeRequest request) {
         Trade trade = findByIdAndUserId(tradeId, userId);
+        PortfolioStatsService.Contribution before = statsService.contributionOf(trade);
 
         if (request.getMarket() != null) trade.setMarket(request.getMarket());
         if (request.getSymbol() != null) trade.setSymbol(request.getSymbol().toUpperCase());
@@ -132,96 +130,233 @@ public class TradeService {
         if (request.getStatus() != null) trade.setStatus(request.getStatus());
         if (request.getNotes() != null) trade.setNotes(request.getNotes());
 
-        Trade saved = tradeRepository.save(trade);
-        return toResponse(saved);
+        // Flush so @PreUpdate recalculates status and value before the stats delta is taken
+        Trade saved = tradeRepository.saveAndFlush(trade);
+        statsService.applyChange(userId, before, statsService.contributionOf(saved));
+        return tradeMapper.toResponse(saved);
     }
 
+    // Sells a specific lot; the sell is appended to the allocation ledger
     @Transactional
     public TradeResponse recordSell(Long userId, Long tradeId, SellTradeRequest request) {
-        Trade trade = findByIdAndUserId(tradeId, userId);
+        Trade trade = tradeRepository.lockById(tradeId)
+                .filter(t -> t.getUserId().equals(userId))
+                .orElseThrow(() -> new ResourceNotFoundException("Trade", "id", tradeId));
 
         if (trade.getStatus() == TradeStatus.CLOSED) {
             throw new BadRequestException("Trade is already closed");
         }
+        PortfolioStatsService.Contribution before = statsService.contributionOf(trade);
 
-        BigDecimal availableQuantity = trade.getRemainingQuantity() != null ?
-                trade.getRemainingQuantity() : trade.getBuyQuantity();
+        sellLedgerService.sell(List.of(trade), request.getSellDate(), request.getSellPrice(), request.getSellQuantity());
+        appendNotes(trade, request.getNotes());
 
-        if (request.getSellQuantity().compareTo(availableQuantity) > 0) {
-            throw new BadRequestException("Sell quantity exceeds available quantity. Available: " + availableQuantity);
+        Trade saved = tradeRepository.saveAndFlush(trade);
+        statsService.applyChange(userId, before, statsService.contributionOf(saved));
+        return tradeMapper.toResponse(saved);
+    }
+
+    // Sells across the user's open lots in a symbol, oldest buy first
+    @Transactional
+    public PositionSellResult sellPosition(Long userId, PositionSellRequest request) {
+        String symbol = request.getSymbol().toUpperCase();
+        List<Trade> lots = tradeRepository.lockOpenLots(userId, request.getMarket(), symbol);
+        if (lots.isEmpty()) {
+            throw new BadRequestException("No open lots for " + symbol);
+        }
+        Map<Long, PortfolioStatsService.Contribution> before = new HashMap<>();
+        for (Trade lot : lots) {
+            before.put(lot.getId(), statsService.contributionOf(lot));
         }
 
-        trade.setSellDate(request.getSellDate());
-        trade.setSellPrice(request.getSellPrice());
-        trade.setSellQuantity(request.getSellQuantity());
-        trade.setRemainingQuantity(availableQuantity.subtract(request.getSellQuantity()));
+        SellLedgerService.Sale sale = sellLedgerService.sell(lots, request.getSellDate(),
+                request.getSellPrice(), request.getSellQuantity());
 
-        if (request.getNotes() != null) {
+        Set<Long> soldLotIds = new HashSet<>();
+        for (SellAllocation allocation : sale.allocations()) {
+            soldLotIds.add(allocation.getTradeId());
+        }
+        List<Trade> soldLots = lots.stream().filter(lot -> soldLotIds.contains(lot.getId())).toList();
+        for (Trade lot : soldLots) {
+            appendNotes(lot, request.getNotes());
+        }
+
+        // Flush so @PreUpdate recalculates each lot before the stats deltas are taken
+        tradeRepository.flush();
+        for (Trade lot : soldLots) {
+            statsService.applyChange(userId, before.get(lot.getId()), statsService.contributionOf(lot));
+        }
+
+        return PositionSellResult.builder()
+                .sellId(sale.sellId())
+                .quantity(sale.quantity())
+                .costBasis(sale.costBasis())
+                .proceeds(sale.proceeds())
+                .realizedProfitLoss(sale.realizedProfitLoss())
+                .allocations(sale.allocations().stream().map(SellLedgerService::toResponse).toList())
+                .lots(soldLots.stream().map(tradeMapper::toResponse).toList())
+                .build();
+    }
+
+    private void appendNotes(Trade trade, String notes) {
+        if (notes != null) {
             String existingNotes = trade.getNotes() != null ? trade.getNotes() + " | " : "";
-            trade.setNotes(existingNotes + request.getNotes());
+            trade.setNotes(existingNotes + notes);
         }
+    }
 
-        Trade saved = tradeRepository.save(trade);
-        return toResponse(saved);
+    @Transactional(readOnly = true)
+    @StatementBudget(2)
+    public List<SellAllocationResponse> getSellAllocations(Long userId, Long tradeId) {
+        findByIdAndUserId(tradeId, userId);
+        return allocationRepository.findByTradeIdOrderById(tradeId).stream()
+                .map(SellLedgerService::toResponse)
+                .toList();
+    }
+
+    @Transactional(readOnly = true)
+    @StatementBudget(1)
+    public List<RealizedPositionResponse> getRealizedPositions(Long userId) {
+        return realizedPositionRepository.findByUserIdOrderBySymbol(userId).stream()
+                .map(TradeService::toResponse)
+                .toList();
     }
 
+    @Transactional(readOnly = true)
+    @StatementBudget(1)
+    public RealizedPositionResponse getRealizedPosition(Long userId, Market market, String symbol) {
+        return realizedPositionRepository.findByUserIdAndSymbolAndMarket(userId, symbol.toUpperCase(), market)
+                .map(TradeService::toResponse)
+                .orElseThrow(() -> new ResourceNotFoundException("RealizedPosition", "symbol", symbol));
+    }
+
+    @Transactional(readOnly = true)
+    @StatementBudget(1)
     public TradeResponse getTradeById(Long userId, Long tradeId) {
-        return toResponse(findByIdAndUserId(tradeId, userId));
+        return tradeRepository.findResponseByIdAndUserId(tradeId, userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Trade", "id", tradeId));
     }
 
+    @Transactional(readOnly = true)
+    @StatementBudget(2)
     public PageResponse<TradeResponse> getUserTrades(Long userId, int page, int size, String sortBy, String sortDirection) {
         Sort sort = sortDirection.equalsIgnoreCase("desc") ?
                 Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
-        Pageable pageable = PageRequest.of(page, size, sort);
+        Pageable pageable = pageOf(page, size, sort);
 
-        Page<Trade> tradePage = tradeRepository.findByUserId(userId, pageable);
-        return buildPageResponse(tradePage);
+        Page<TradeResponse> tradePage = tradeRepository.findByUserId(userId, pageable);
+        return tradeMapper.toPageResponse(tradePage);
     }
 
-    public PageResponse<TradeResponse> getUserTradesWithFilters(Long userId, Market market, TradeStatus status, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("buyDate").descending());
-        Page<Trade> tradePage = tradeRepository.findWithFilters(userId, market, status, pageable);
-        return buildPageResponse(tradePage);
+    @Transactional(readOnly = true)
+    @StatementBudget(2)
+    public PageResponse<TradeResponse> getUserTradesWithFilters(Long userId, Market market, TradeStatus status,
+                                                                LocalDate startDate, LocalDate endDate, int page, int size) {
+        Pageable pageable = pageOf(page, size, Sort.by("buyDate").descending());
+        Page<TradeResponse> tradePage = tradeRepository.findWithFilters(userId, market, status, startDate, endDate, pageable);
+        return tradeMapper.toPageResponse(tradePage);
     }
 
+    @Transactional(readOnly = true)
+    @StatementBudget(2)
     public PageResponse<TradeResponse> getUserTradesByStatus(Long userId, TradeStatus status, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("buyDate").descending());
-        Page<Trade> tradePage = tradeRepository.findByUserIdAndStatus(userId, status, pageable);
-        return buildPageResponse(tradePage);
+        Pageable pageable = pageOf(page, size, Sort.by("buyDate").descending());
+        Page<TradeResponse> tradePage = tradeRepository.findByUserIdAndStatus(userId, status, pageable);
+        return tradeMapper.toPageResponse(tradePage);
     }
 
+    @Transactional(readOnly = true)
+    @StatementBudget(2)
     public PageResponse<TradeResponse> getUserTradesByDateRange(Long userId, LocalDate startDate, LocalDate endDate, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        Page<Trade> tradePage = tradeRepository.findByUserIdAndDateRange(userId, startDate, endDate, pageable);
-        return buildPageResponse(tradePage);
+        Pageable pageable = pageOf(page, size, Sort.unsorted());
+        Page<TradeResponse> tradePage = tradeRepository.findByUserIdAndDateRange(userId, startDate, endDate, pageable);
+        return tradeMapper.toPageResponse(tradePage);
     }
 
     // Admin endpoints
+    @Transactional(readOnly = true)
+    @StatementBudget(value = 2, allowUnbounded = true)
     public PageResponse<TradeResponse> getAllTrades(int page, int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        Page<Trade> tradePage = tradeRepository.findAllTrades(pageable);
-        return buildPageResponse(tradePage);
+        Pageable pageable = pageOf(page, size, Sort.by("createdAt").descending());
+        Page<TradeResponse> tradePage = tradeRepository.findAllTrades(pageable);
+        return tradeMapper.toPageResponse(tradePage);
     }
 
+    // Keyset variants: cost is independent of how deep the page is, and the count is opt-in
+    @Transactional(readOnly = true)
+    @StatementBudget(2)
+    public CursorPage<TradeResponse> getUserTradesByCursor(Long userId, String cursor, int size, boolean includeTotal) {
+        PageCursor after = PageCursor.decode(cursor);
+        Pageable limit = cursorLimit(size);
+        List<TradeResponse> rows = after == null
+                ? tradeRepository.findUserTradesFirstPage(userId, limit)
+                : tradeRepository.findUserTradesAfter(userId, after.dateKey(), after.id(), limit);
+        return buildCursorPage(rows, size, t -> t.getBuyDate().toString(),
+                includeTotal ? tradeRepository.countByUserId(userId) : null);
+    }
+
+    @Transactional(readOnly = true)
+    @StatementBudget(value = 2, allowUnbounded = true)
+    public CursorPage<TradeResponse> getAllTradesByCursor(String cursor, int size, boolean includeTotal) {
+        PageCursor after = PageCursor.decode(cursor);
+        Pageable limit = cursorLimit(size);
+        List<TradeResponse> rows = after == null
+                ? tradeRepository.findAllTradesFirstPage(limit)
+                : tradeRepository.findAllTradesAfter(after.dateTimeKey(), after.id(), limit);
+        return buildCursorPage(rows, size, t -> t.getCreatedAt().toString(),
+                includeTotal ? tradeRepository.count() : null);
+    }
+
+    @Transactional(readOnly = true)
+    @StatementBudget(1)
     public UserPLSummary getUserPLSummary(Long userId) {
-        BigDecimal totalPL = tradeRepository.getTotalProfitLossForUser(userId);
-        BigDecimal totalInvested = tradeRepository.getTotalInvestedAmountForUser(userId);
-        List<Trade> openTrades = tradeRepository.findByUserIdAndStatus(userId, TradeStatus.OPEN);
-        List<Trade> closedTrades = tradeRepository.findByUserIdAndStatus(userId, TradeStatus.CLOSED);
+        return toPLSummary(userId, tradeRepository.aggregatePLForUser(userId));
+    }
 
+    // In the order given; users without trades get zeros
+    @Transactional(readOnly = true)
+    @StatementBudget(1)
+    public List<UserPLSummary> getUserPLSummaries(List<Long> userIds) {
+        Map<Long, TradeRepository.UserPLAggregate> byUser = new HashMap<>();
+        for (TradeRepository.UserPLAggregateByUser row : tradeRepository.aggregatePLForUsers(userIds)) {
+            byUser.put(row.getUserId().longValue(), row);
+        }
+        return userIds.stream().map(userId -> toPLSummary(userId, byUser.get(userId))).toList();
+    }
+
+    private UserPLSummary toPLSummary(Long userId, TradeRepository.UserPLAggregate aggregate) {
+        if (aggregate == null) {
+            return UserPLSummary.builder()
+                    .userId(userId)
+                    .totalProfitLoss(BigDecimal.ZERO)
+                    .totalInvestedAmount(BigDecimal.ZERO)
+                    .build();
+        }
         return UserPLSummary.builder()
                 .userId(userId)
-                .totalProfitLoss(totalPL != null ? totalPL : BigDecimal.ZERO)
-                .totalInvestedAmount(totalInvested != null ? totalInvested : BigDecimal.ZERO)
-                .openTradesCount(openTrades.size())
-                .closedTradesCount(closedTrades.size())
+                .totalProfitLoss(aggregate.getTotalProfitLoss() != null ? aggregate.getTotalProfitLoss() : BigDecimal.ZERO)
+                .totalInvestedAmount(aggregate.getTotalInvestedAmount() != null ? aggregate.getTotalInvestedAmount() : BigDecimal.ZERO)
+                .openTradesCount(countOf(aggregate.getOpenTradesCount()))
+                .closedTradesCount(countOf(aggregate.getClosedTradesCount()))
+                .partiallySoldTradesCount(countOf(aggregate.getPartiallySoldTradesCount()))
                 .build();
     }
 
+    private int countOf(Number count) {
+        return count != null ? count.intValue() : 0;
+    }
+
     @Transactional
     public void deleteTrade(Long userId, Long tradeId) {
         Trade trade = findByIdAndUserId(tradeId, userId);
+        // The ledger is append-only; realized totals would otherwise keep sells of a missing lot
+        if (allocationRepository.existsByTradeId(tradeId)) {
+            throw new BadRequestException("Trade has recorded sells and cannot be deleted");
+        }
+        PortfolioStatsService.Contribution before = statsService.contributionOf(trade);
         tradeRepository.delete(trade);
+        tradeRepository.flush();
+        statsService.applyChange(userId, before, PortfolioStatsService.Contribution.NONE);
     }
 
     private Trade findByIdAndUserId(Long tradeId, Long userId) {
@@ -235,69 +370,69 @@ public class TradeService {
         return trade;
     }
 
-    private TradeResponse toResponse(Trade t) {
-        return TradeResponse.builder()
-                .id(t.getId())
-                .userId(t.getUserId())
-                .market(t.getMarket())
-                .symbol(t.getSymbol())
-                .companyName(t.getCompanyName())
-                .currency(t.getCurrency())
-                .buyDate(t.getBuyDate())
-                .buyPrice(t.getBuyPrice())
-                .buyQuantity(t.getBuyQuantity())
-                .sellDate(t.getSellDate())
-                .sellPrice(t.getSellPrice())
-                .sellQuantity(t.getSellQuantity())
-                .profitLoss(t.getProfitLoss())
-                .profitLossPercentage(t.getProfitLossPercentage())
-                .positionHeldDays(t.getPositionHeldDays())
-                .remainingQuantity(t.getRemainingQuantity())
-                .investedAmount(t.getInvestedAmount())
-                .currentValue(t.getCurrentValue())
-                .status(t.getStatus())
-                .notes(t.getNotes())
-                .createdAt(t.getCreatedAt())
-                .updatedAt(t.getUpdatedAt())
+    private static RealizedPositionResponse toResponse(RealizedPosition p) {
+        return RealizedPositionResponse.builder()
+                .userId(p.getUserId())
+                .market(p.getMarket())
+                .symbol(p.getSymbol())
+                .soldQuantity(p.getSoldQuantity())
+                .costBasis(p.getCostBasis())
+                .proceeds(p.getProceeds())
+                .realizedProfitLoss(p.getRealizedProfitLoss())
+                .realizedProfitLossPercentage(p.getCostBasis().signum() > 0
+                        ? PositionMath.percentage(p.getRealizedProfitLoss(), p.getCostBasis()) : null)
+                .sellCount(p.getSellCount())
+                .lastSellDate(p.getLastSellDate())
                 .build();
     }
 
-    private PageResponse<TradeResponse> buildPageResponse(Page<Trade> page) {
-        return PageResponse.<TradeResponse>builder()
-                .content(page.getContent().stream().map(this::toResponse).toList())
-                .pageNumber(page.getNumber())
-                .pageSize(page.getSize())
-                .totalElements(page.getTotalElements())
-                .totalPages(page.getTotalPages())
-                .last(page.isLast())
-                .first(page.isFirst())
-                .empty(page.isEmpty())
+    private Pageable pageOf(int page, int size, Sort sort) {
+        checkPageSize(size);
+        if (page < 0) {
+            throw new BadRequestException("Page number must not be negative");
+        }
+        return PageRequest.of(page, size, sort);
+    }
+
+    // One extra row tells us whether another page exists without counting
+    private Pageable cursorLimit(int size) {
+        checkPageSize(size);
+        return PageRequest.of(0, size + 1);
+    }
+
+    private void checkPageSize(int size) {
+        if (size < 1 || size > maxPageSize) {
+            throw new BadRequestException("Page size must be between 1 and " + maxPageSize);
+        }
+    }
+
+    private CursorPage<TradeResponse> buildCursorPage(List<TradeResponse> rows, int size,
+                                                      Function<TradeResponse, String> sortKey, Long totalElements) {
+        boolean hasNext = rows.size() > size;
+        List<TradeResponse> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            TradeResponse last = content.get(content.size() - 1);
+            nextCursor = new PageCursor(sortKey.apply(last), last.getId()).encode();
+        }
+
+        return CursorPage.<TradeResponse>builder()
+                .content(content)
+                .size(size)
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .totalElements(totalElements)
                 .build();
     }
 
+    @Transactional(readOnly = true)
+    @StatementBudget(1)
     public PortfolioStats getPortfolioStats() {
-        long totalTrades = tradeRepository.count();
-        long openTrades = tradeRepository.findAll().stream()
-                .filter(t -> t.getStatus() == TradeStatus.OPEN || t.getStatus() == TradeStatus.PARTIALLY_SOLD)
-                .count();
-
-        BigDecimal totalAUM = tradeRepository.findAll().stream()
-                .filter(t -> t.getStatus() == TradeStatus.OPEN || t.getStatus() == TradeStatus.PARTIALLY_SOLD)
-                .map(Trade::getCurrentValue)
-                .filter(v -> v != null)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        long usersWithInvestments = tradeRepository.findAll().stream()
-                .map(Trade::getUserId)
-                .distinct()
-                .count();
-
-        return PortfolioStats.builder()
-                .totalTrades(totalTrades)
-                .openTrades(openTrades)
-                .totalAUM(totalAUM)
-                .usersWithInvestments(usersWithInvestments)
-                .build();
+        return statsService.getStats();
+    }
+
+    public PortfolioStats rebuildPortfolioStats() {
+        return statsService.rebuild();
     }
 
     @lombok.Data
@@ -310,6 +445,7 @@ public class TradeService {
         private BigDecimal totalInvestedAmount;
         private int openTradesCount;
         private int closedTradesCount;
+        private int partiallySoldTradesCount;
     }
 
     @lombok.Data
@@ -2,13 +2,21 @@ package com.confiance.portfolio.service;
 
 import com.confiance.common.dto.PageResponse;
 import com.confiance.common.enums.Market;
+import com.confiance.common.exception.BadRequestException;
 import com.confiance.common.exception.ResourceNotFoundException;
+import com.confiance.portfolio.config.StatementBudget;
+import com.confiance.portfolio.dto.CursorPage;
 import com.confiance.portfolio.dto.HoldingSummary;
+import com.confiance.portfolio.dto.PageCursor;
 import com.confiance.portfolio.dto.UserHoldingResponse;
 import com.confiance.portfolio.entity.UserHolding;
 import com.confiance.portfolio.repository.UserHoldingRepository;
+import com.confiance.portfolio.util.PositionMath;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -17,106 +25,176 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
+@Timed(value = "portfolio.service", histogram = true)
 public class UserHoldingService {
 
     private final UserHoldingRepository holdingRepository;
+    private final QuoteStore quoteStore;
+    private final HoldingValuator valuator;
+    private final HoldingReadCache readCache;
+    private final ApplicationEventPublisher eventPublisher;
 
+    @Value("${portfolio.paging.max-size:200}")
+    private int maxPageSize;
+
+    // The row is claimed with an atomic upsert and then read under its lock, so concurrent buys of
+    // one symbol apply one after another instead of racing on the unique key or losing updates
     @Transactional
     public UserHoldingResponse addOrUpdateHolding(Long userId, Market market, String symbol,
                                                    BigDecimal quantity, BigDecimal price,
                                                    String companyName, String currency) {
         log.info("Adding/updating holding for user: {} symbol: {}", userId, symbol);
 
-        Optional<UserHolding> existingHolding = holdingRepository.findByUserIdAndSymbolAndMarket(userId, symbol.toUpperCase(), market);
-
-        UserHolding holding;
-        if (existingHolding.isPresent()) {
-            holding = existingHolding.get();
-            holding.addShares(quantity, price);
-        } else {
-            holding = UserHolding.builder()
-                    .userId(userId)
-                    .market(market)
-                    .symbol(symbol.toUpperCase())
-                    .companyName(companyName)
-                    .currency(currency != null ? currency : market.getDefaultCurrency())
-                    .quantity(quantity)
-                    .averageBuyPrice(price)
-                    .boughtOn(LocalDate.now())
-                    .build();
-        }
+        String normalizedSymbol = symbol.toUpperCase();
+        holdingRepository.claimHolding(userId, market.name(), normalizedSymbol, companyName,
+                currency != null ? currency : market.getDefaultCurrency(), LocalDate.now());
+        UserHolding holding = holdingRepository.lockByUserIdAndSymbolAndMarket(userId, normalizedSymbol, market)
+                .orElseThrow(() -> new IllegalStateException("Claimed holding not found: " + normalizedSymbol));
 
-        UserHolding saved = holdingRepository.save(holding);
-        return toResponse(saved);
+        // A freshly claimed row has zero quantity, so addShares makes price the average
+        BigDecimal quantityBefore = holding.getQuantity();
+        BigDecimal investedBefore = holding.getInvestedAmount();
+        holding.addShares(quantity, price);
+
+        UserHolding saved = holdingRepository.saveAndFlush(holding);
+        publishChange(saved, quantityBefore, investedBefore);
+        return toValuedResponse(saved);
     }
 
+    // Check and decrement happen in one conditional UPDATE; the average price does not change on
+    // a sell, so the before values follow from the row read back afterwards
     @Transactional
     public UserHoldingResponse reduceHolding(Long userId, Market market, String symbol, BigDecimal quantity) {
-        UserHolding holding = holdingRepository.findByUserIdAndSymbolAndMarket(userId, symbol.toUpperCase(), market)
-                .orElseThrow(() -> new ResourceNotFoundException("Holding", "symbol", symbol));
+        String normalizedSymbol = symbol.toUpperCase();
+        int updated = holdingRepository.removeShares(userId, market.name(), normalizedSymbol, quantity);
 
-        if (holding.getQuantity().compareTo(quantity) < 0) {
+        // Our own update is visible to this read even under a snapshot taken earlier
+        UserHoldingResponse after = holdingRepository.findResponseByUserIdAndSymbolAndMarket(userId, normalizedSymbol, market)
+                .orElseThrow(() -> new ResourceNotFoundException("Holding", "symbol", symbol));
+        if (updated == 0) {
             throw new IllegalArgumentException("Cannot sell more than held quantity");
         }
 
-        holding.removeShares(quantity);
-        UserHolding saved = holdingRepository.save(holding);
-        return toResponse(saved);
+        BigDecimal quantityBefore = after.getQuantity().add(quantity);
+        eventPublisher.publishEvent(new HoldingChangedEvent(userId, market, normalizedSymbol,
+                quantityBefore, after.getQuantity(),
+                PositionMath.value(quantityBefore, after.getAverageBuyPrice()),
+                after.getInvestedAmount() != null ? after.getInvestedAmount() : BigDecimal.ZERO));
+        return valuator.value(after);
     }
 
-    @Transactional
+    // Prices live in the quote store and are applied when holdings are read, so a price
+    // move is visible to every holder of the symbol without writing to user_holdings
     public void updateCurrentPrice(Long userId, Market market, String symbol, BigDecimal currentPrice) {
-        holdingRepository.findByUserIdAndSymbolAndMarket(userId, symbol.toUpperCase(), market)
-                .ifPresent(holding -> {
-                    holding.setCurrentPrice(currentPrice);
-                    holdingRepository.save(holding);
-                });
+        quoteStore.update(market, symbol, currentPrice, Instant.now());
     }
 
+    // Not transactional: cache hits should not borrow a connection
+    @StatementBudget(1)
     public List<UserHoldingResponse> getUserHoldings(Long userId) {
-        return holdingRepository.findActiveHoldingsByUser(userId)
+        return readCache.get(userId, this::loadActiveHoldings)
                 .stream()
-                .map(this::toResponse)
+                .map(valuator::value)
                 .toList();
     }
 
+    private List<UserHoldingResponse> loadActiveHoldings(Long userId) {
+        return holdingRepository.findActiveHoldingsByUser(userId);
+    }
+
+    @Transactional(readOnly = true)
+    @StatementBudget(2)
     public PageResponse<UserHoldingResponse> getUserHoldingsPaged(Long userId, int page, int size) {
+        checkPageSize(size);
+        if (page < 0) {
+            throw new BadRequestException("Page number must not be negative");
+        }
         Pageable pageable = PageRequest.of(page, size, Sort.by("investedAmount").descending());
-        Page<UserHolding> holdingPage = holdingRepository.findByUserId(userId, pageable);
+        Page<UserHoldingResponse> holdingPage = holdingRepository.findByUserId(userId, pageable);
         return buildPageResponse(holdingPage);
     }
 
+    @Transactional(readOnly = true)
+    @StatementBudget(2)
+    public CursorPage<UserHoldingResponse> getUserHoldingsByCursor(Long userId, String cursor, int size, boolean includeTotal) {
+        checkPageSize(size);
+        PageCursor after = PageCursor.decode(cursor);
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<UserHoldingResponse> rows = after == null
+                ? holdingRepository.findUserHoldingsFirstPage(userId, limit)
+                : holdingRepository.findUserHoldingsAfter(userId, after.decimalKey(), after.id(), limit);
+
+        boolean hasNext = rows.size() > size;
+        List<UserHoldingResponse> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            UserHoldingResponse last = content.get(content.size() - 1);
+            nextCursor = new PageCursor(last.getInvestedAmount().toPlainString(), last.getId()).encode();
+        }
+
+        return CursorPage.<UserHoldingResponse>builder()
+                .content(content.stream().map(valuator::value).toList())
+                .size(size)
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .totalElements(includeTotal ? holdingRepository.countByUserId(userId) : null)
+                .build();
+    }
+
+    @StatementBudget(1)
     public List<UserHoldingResponse> getUserHoldingsByMarket(Long userId, Market market) {
-        return holdingRepository.findByUserIdAndMarket(userId, market)
+        return readCache.get(userId, this::loadActiveHoldings)
                 .stream()
-                .filter(h -> h.getQuantity().compareTo(BigDecimal.ZERO) > 0)
-                .map(this::toResponse)
+                .filter(h -> h.getMarket() == market)
+                .map(valuator::value)
                 .toList();
     }
 
+    @StatementBudget(1)
     public HoldingSummary getUserHoldingSummary(Long userId) {
-        List<UserHolding> holdings = holdingRepository.findActiveHoldingsByUser(userId);
+        return summarize(userId, getUserHoldings(userId), true);
+    }
+
+    // Cached users are served from the read cache; the rest are loaded with one IN query
+    @StatementBudget(1)
+    public List<HoldingSummary> getUserHoldingSummaries(List<Long> userIds, boolean includeHoldings) {
+        Map<Long, List<UserHoldingResponse>> byUser = readCache.getAll(userIds, this::loadActiveHoldings);
+        return userIds.stream()
+                .map(userId -> summarize(userId,
+                        byUser.getOrDefault(userId, List.of()).stream().map(valuator::value).toList(),
+                        includeHoldings))
+                .toList();
+    }
 
-        BigDecimal totalInvested = holdingRepository.getTotalInvestedByUser(userId);
-        BigDecimal totalCurrentValue = holdingRepository.getTotalCurrentValueByUser(userId);
-        BigDecimal totalUnrealizedPL = holdingRepository.getTotalUnrealizedPLByUser(userId);
+    private Map<Long, List<UserHoldingResponse>> loadActiveHoldings(Set<? extends Long> userIds) {
+        Map<Long, List<UserHoldingResponse>> byUser = new HashMap<>();
+        userIds.forEach(userId -> byUser.put(userId, new ArrayList<>()));
+        for (UserHoldingResponse holding : holdingRepository.findActiveHoldingsByUsers(List.copyOf(userIds))) {
+            byUser.get(holding.getUserId()).add(holding);
+        }
+        return byUser;
+    }
 
-        totalInvested = totalInvested != null ? totalInvested : BigDecimal.ZERO;
-        totalCurrentValue = totalCurrentValue != null ? totalCurrentValue : BigDecimal.ZERO;
-        totalUnrealizedPL = totalUnrealizedPL != null ? totalUnrealizedPL : BigDecimal.ZERO;
+    private HoldingSummary summarize(Long userId, List<UserHoldingResponse> holdings, boolean includeHoldings) {
+        // Totals follow the live valuation of each holding, so they are summed here rather than in SQL
+        BigDecimal totalInvested = PositionMath.total(holdings, UserHoldingResponse::getInvestedAmount);
+        BigDecimal totalCurrentValue = PositionMath.total(holdings, UserHoldingResponse::getCurrentValue);
+        BigDecimal totalUnrealizedPL = PositionMath.total(holdings, UserHoldingResponse::getUnrealizedPL);
 
         BigDecimal totalUnrealizedPLPercentage = BigDecimal.ZERO;
         if (totalInvested.compareTo(BigDecimal.ZERO) > 0) {
-            totalUnrealizedPLPercentage = totalUnrealizedPL.divide(totalInvested, 4, RoundingMode.HALF_UP)
-                    .multiply(BigDecimal.valueOf(100)).setScale(2, RoundingMode.HALF_UP);
+            totalUnrealizedPLPercentage = PositionMath.percentage(totalUnrealizedPL, totalInvested);
         }
 
         return HoldingSummary.builder()
@@ -126,28 +204,53 @@ public class UserHoldingService {
                 .totalUnrealizedPL(totalUnrealizedPL)
                 .totalUnrealizedPLPercentage(totalUnrealizedPLPercentage)
                 .totalHoldings(holdings.size())
-                .holdings(holdings.stream().map(this::toResponse).toList())
+                .holdings(includeHoldings ? holdings : null)
                 .build();
     }
 
+    @Transactional(readOnly = true)
+    @StatementBudget(1)
     public UserHoldingResponse getHoldingBySymbol(Long userId, Market market, String symbol) {
-        return holdingRepository.findByUserIdAndSymbolAndMarket(userId, symbol.toUpperCase(), market)
-                .map(this::toResponse)
+        return holdingRepository.findResponseByUserIdAndSymbolAndMarket(userId, symbol.toUpperCase(), market)
+                .map(valuator::value)
                 .orElseThrow(() -> new ResourceNotFoundException("Holding", "symbol", symbol));
     }
 
     // Admin methods
+    // Every holder of the symbol; the exposure summary is the bounded alternative
+    @Transactional(readOnly = true)
+    @StatementBudget(value = 1, allowUnbounded = true)
     public List<UserHoldingResponse> getAllHoldingsBySymbol(String symbol) {
         return holdingRepository.findAllHoldingsBySymbol(symbol.toUpperCase())
                 .stream()
-                .map(this::toResponse)
+                .map(valuator::value)
                 .toList();
     }
 
+    @Transactional(readOnly = true)
+    @StatementBudget(value = 1, allowUnbounded = true)
     public List<Long> getAllUsersWithHoldings() {
         return holdingRepository.findAllUsersWithHoldings();
     }
 
+    @Transactional(readOnly = true)
+    @StatementBudget(1)
+    public List<Long> getUsersWithHoldingsAfter(Long afterUserId, int limit) {
+        return holdingRepository.findUsersWithHoldingsAfter(afterUserId, PageRequest.of(0, limit));
+    }
+
+    // Flushed first so investedAmount reflects @PreUpdate; listeners run in this transaction or after commit
+    private void publishChange(UserHolding saved, BigDecimal quantityBefore, BigDecimal investedBefore) {
+        eventPublisher.publishEvent(new HoldingChangedEvent(saved.getUserId(), saved.getMarket(), saved.getSymbol(),
+                quantityBefore, saved.getQuantity(),
+                investedBefore != null ? investedBefore : BigDecimal.ZERO,
+                saved.getInvestedAmount() != null ? saved.getInvestedAmount() : BigDecimal.ZERO));
+    }
+
+    private UserHoldingResponse toValuedResponse(UserHolding h) {
+        return valuator.value(toResponse(h));
+    }
+
     private UserHoldingResponse toResponse(UserHolding h) {
         return UserHoldingResponse.builder()
                 .id(h.getId())
@@ -169,9 +272,9 @@ public class UserHoldingService {
                 .build();
     }
 
-    private PageResponse<UserHoldingResponse> buildPageResponse(Page<UserHolding> page) {
+    private PageResponse<UserHoldingResponse> buildPageResponse(Page<UserHoldingResponse> page) {
         return PageResponse.<UserHoldingResponse>builder()
-                .content(page.getContent().stream().map(this::toResponse).toList())
+                .content(page.getContent().stream().map(valuator::value).toList())
                 .pageNumber(page.getNumber())
                 .pageSize(page.getSize())
                 .totalElements(page.getTotalElements())
@@ -181,4 +284,10 @@ public class UserHoldingService {
                 .empty(page.isEmpty())
                 .build();
     }
+
+    private void checkPageSize(int size) {
+        if (size < 1 || size > maxPageSize) {
+            throw new BadRequestException("Page size must be between 1 and " + maxPageSize);
+        }
+    }
 }
@@ -0,0 +1,37 @@
+package com.confiance.portfolio.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+@Component
+@ConditionalOnProperty(prefix = "portfolio.admin-ids", name = "source", havingValue = "user-service", matchIfMissing = true)
+@Slf4j
+public class UserServiceAdminIdSource implements AdminIdSource {
+
+    @Autowired(required = false)
+    @Qualifier("notifierLoadBalancedRestTemplate")
+    private RestTemplate loadBalancedRestTemplate;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Long> fetchAdminIds() {
+        if (loadBalancedRestTemplate == null) return List.of();
+        Map<String, Object> resp = loadBalancedRestTemplate.getForObject(
+            "http://user-service/api/v1/users/admins/ids", Map.class);
+        if (resp == null) return List.of();
+        Object data = resp.get("data");
+        if (!(data instanceof List<?> list)) return List.of();
+        return list.stream()
+            .filter(Objects::nonNull)
+            .map(o -> ((Number) o).longValue())
+            .toList();
+    }
+}
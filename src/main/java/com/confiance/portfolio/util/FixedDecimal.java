@@ -0,0 +1,108 @@
+package com.confiance.portfolio.util;
+
+import java.math.BigDecimal;
+
+// A decimal held as an unscaled long plus a scale. Operations follow BigDecimal exactly:
+// multiply, add and subtract are exact, setScale and divide round HALF_UP, and result scales
+// are the ones BigDecimal would produce, so toBigDecimal() equals the BigDecimal expression
+// it replaces. Anything that does not fit in a long throws ArithmeticException instead of
+// overflowing; callers fall back to BigDecimal in that case.
+public record FixedDecimal(long unscaled, int scale) {
+
+    private static final int MAX_SCALE = 18;
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L,
+            1_000_000_000L, 10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L,
+            10_000_000_000_000L, 100_000_000_000_000L, 1_000_000_000_000_000L,
+            10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L
+    };
+
+    public FixedDecimal {
+        if (scale < 0 || scale > MAX_SCALE) {
+            throw new ArithmeticException("Scale out of range: " + scale);
+        }
+    }
+
+    public static FixedDecimal of(BigDecimal value) {
+        int scale = value.scale();
+        if (scale < 0 || scale > MAX_SCALE || value.precision() > MAX_SCALE) {
+            throw new ArithmeticException("Not representable as a fixed-point long: " + value);
+        }
+        return new FixedDecimal(value.scaleByPowerOfTen(scale).longValueExact(), scale);
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(unscaled, scale);
+    }
+
+    public int signum() {
+        return Long.signum(unscaled);
+    }
+
+    public FixedDecimal multiply(FixedDecimal other) {
+        return new FixedDecimal(Math.multiplyExact(unscaled, other.unscaled), scale + other.scale);
+    }
+
+    public FixedDecimal add(FixedDecimal other) {
+        int resultScale = Math.max(scale, other.scale);
+        return new FixedDecimal(Math.addExact(unscaledAt(resultScale), other.unscaledAt(resultScale)), resultScale);
+    }
+
+    public FixedDecimal subtract(FixedDecimal other) {
+        int resultScale = Math.max(scale, other.scale);
+        return new FixedDecimal(Math.subtractExact(unscaledAt(resultScale), other.unscaledAt(resultScale)), resultScale);
+    }
+
+    // setScale(newScale, RoundingMode.HALF_UP)
+    public FixedDecimal setScale(int newScale) {
+        if (newScale >= scale) {
+            return new FixedDecimal(unscaledAt(newScale), newScale);
+        }
+        return new FixedDecimal(divideHalfUp(unscaled, POWERS_OF_TEN[scale - newScale]), newScale);
+    }
+
+    // divide(divisor, resultScale, RoundingMode.HALF_UP)
+    public FixedDecimal divide(FixedDecimal divisor, int resultScale) {
+        if (divisor.unscaled == 0) {
+            throw new ArithmeticException("Division by zero");
+        }
+        // (u1 / 10^s1) / (u2 / 10^s2) at resultScale is u1 * 10^(resultScale - s1 + s2) / u2
+        int shift = resultScale - scale + divisor.scale;
+        long dividend = unscaled;
+        long d = divisor.unscaled;
+        if (shift >= 0) {
+            dividend = Math.multiplyExact(dividend, powerOfTen(shift));
+        } else {
+            d = Math.multiplyExact(d, powerOfTen(-shift));
+        }
+        return new FixedDecimal(divideHalfUp(dividend, d), resultScale);
+    }
+
+    private long unscaledAt(int targetScale) {
+        return Math.multiplyExact(unscaled, POWERS_OF_TEN[targetScale - scale]);
+    }
+
+    private static long powerOfTen(int exponent) {
+        if (exponent > MAX_SCALE) {
+            throw new ArithmeticException("Scale difference out of range: " + exponent);
+        }
+        return POWERS_OF_TEN[exponent];
+    }
+
+    // Rounds the exact quotient half away from zero, as RoundingMode.HALF_UP does
+    private static long divideHalfUp(long dividend, long divisor) {
+        if (divisor == -1) {
+            return Math.negateExact(dividend);
+        }
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (remainder != 0) {
+            long absRemainder = Math.absExact(remainder);
+            if (absRemainder >= Math.absExact(divisor) - absRemainder) {
+                quotient += (dividend ^ divisor) < 0 ? -1 : 1;
+            }
+        }
+        return quotient;
+    }
+}
@@ -0,0 +1,111 @@
+package com.confiance.portfolio.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.function.Function;
+
+// P&L and valuation formulas shared by the entities, the quote valuator and the summaries.
+// Each one runs on FixedDecimal and falls back to the equivalent BigDecimal expression when
+// an operand or intermediate does not fit in a long, so the result is the same either way.
+public final class PositionMath {
+
+    private static final FixedDecimal HUNDRED = new FixedDecimal(100, 0);
+    private static final BigDecimal HUNDRED_DECIMAL = BigDecimal.valueOf(100);
+
+    private PositionMath() {
+    }
+
+    // quantity * price at scale 2
+    public static BigDecimal value(BigDecimal quantity, BigDecimal price) {
+        try {
+            return FixedDecimal.of(quantity).multiply(FixedDecimal.of(price)).setScale(2).toBigDecimal();
+        } catch (ArithmeticException e) {
+            return quantity.multiply(price).setScale(2, RoundingMode.HALF_UP);
+        }
+    }
+
+    // sellPrice * quantity - buyPrice * quantity at scale 2
+    public static BigDecimal realizedPL(BigDecimal sellPrice, BigDecimal buyPrice, BigDecimal quantity) {
+        try {
+            FixedDecimal sold = FixedDecimal.of(quantity);
+            return FixedDecimal.of(sellPrice).multiply(sold)
+                    .subtract(FixedDecimal.of(buyPrice).multiply(sold))
+                    .setScale(2).toBigDecimal();
+        } catch (ArithmeticException e) {
+            return sellPrice.multiply(quantity).subtract(buyPrice.multiply(quantity)).setScale(2, RoundingMode.HALF_UP);
+        }
+    }
+
+    // profitLoss as a percentage of the unrounded cost basis buyPrice * quantity
+    public static BigDecimal returnOnCost(BigDecimal profitLoss, BigDecimal buyPrice, BigDecimal quantity) {
+        try {
+            FixedDecimal costBasis = FixedDecimal.of(buyPrice).multiply(FixedDecimal.of(quantity));
+            return percentage(FixedDecimal.of(profitLoss), costBasis).toBigDecimal();
+        } catch (ArithmeticException e) {
+            return percentageOf(profitLoss, buyPrice.multiply(quantity));
+        }
+    }
+
+    // numerator / denominator as a percentage at scale 2, via a quotient rounded to scale 4
+    public static BigDecimal percentage(BigDecimal numerator, BigDecimal denominator) {
+        try {
+            return percentage(FixedDecimal.of(numerator), FixedDecimal.of(denominator)).toBigDecimal();
+        } catch (ArithmeticException e) {
+            return percentageOf(numerator, denominator);
+        }
+    }
+
+    // a - b at scale 2
+    public static BigDecimal difference(BigDecimal a, BigDecimal b) {
+        try {
+            return FixedDecimal.of(a).subtract(FixedDecimal.of(b)).setScale(2).toBigDecimal();
+        } catch (ArithmeticException e) {
+            return a.subtract(b).setScale(2, RoundingMode.HALF_UP);
+        }
+    }
+
+    // Weighted average price of two lots at scale 2
+    public static BigDecimal averagePrice(BigDecimal quantity, BigDecimal price,
+                                          BigDecimal addedQuantity, BigDecimal addedPrice) {
+        try {
+            FixedDecimal held = FixedDecimal.of(quantity);
+            FixedDecimal added = FixedDecimal.of(addedQuantity);
+            return held.multiply(FixedDecimal.of(price))
+                    .add(added.multiply(FixedDecimal.of(addedPrice)))
+                    .divide(held.add(added), 2)
+                    .toBigDecimal();
+        } catch (ArithmeticException e) {
+            return quantity.multiply(price).add(addedQuantity.multiply(addedPrice))
+                    .divide(quantity.add(addedQuantity), 2, RoundingMode.HALF_UP);
+        }
+    }
+
+    // Sum of the non-null values, starting from BigDecimal.ZERO
+    public static <T> BigDecimal total(Collection<T> items, Function<T, BigDecimal> field) {
+        try {
+            FixedDecimal total = new FixedDecimal(0, 0);
+            for (T item : items) {
+                BigDecimal value = field.apply(item);
+                if (value != null) total = total.add(FixedDecimal.of(value));
+            }
+            return total.toBigDecimal();
+        } catch (ArithmeticException e) {
+            BigDecimal total = BigDecimal.ZERO;
+            for (T item : items) {
+                BigDecimal value = field.apply(item);
+                if (value != null) total = total.add(value);
+            }
+            return total;
+        }
+    }
+
+    private static FixedDecimal percentage(FixedDecimal numerator, FixedDecimal denominator) {
+        return numerator.divide(denominator, 4).multiply(HUNDRED).setScale(2);
+    }
+
+    private static BigDecimal percentageOf(BigDecimal numerator, BigDecimal denominator) {
+        return numerator.divide(denominator, 4, RoundingMode.HALF_UP)
+                .multiply(HUNDRED_DECIMAL).setScale(2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,146 @@
+package com.confiance.portfolio.service;
+
+import com.confiance.common.enums.Market;
+import com.confiance.common.enums.TradeStatus;
+import com.confiance.portfolio.config.StatementBudget;
+import com.confiance.portfolio.entity.RealizedPosition;
+import com.confiance.portfolio.entity.Trade;
+import com.confiance.portfolio.entity.UserHolding;
+import com.confiance.portfolio.repository.RealizedPositionRepository;
+import com.confiance.portfolio.repository.TradeRepository;
+import com.confiance.portfolio.repository.UserHoldingRepository;
+import com.confiance.portfolio.support.StatementBudgetGuard;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Calls every @StatementBudget method against seeded data on H2 in MySQL mode. A method over its
+// budget, an unbounded scan of trades or user_holdings, or a budgeted method this test does not
+// call fails the build.
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(StatementBudgetGuard.class)
+class StatementBudgetTest {
+
+    private static final Market MARKET = Market.values()[0];
+    private static final List<Class<?>> BUDGETED = List.of(TradeService.class, UserHoldingService.class,
+            SymbolExposureService.class, ClientSummaryService.class);
+
+    @Autowired private StatementBudgetGuard guard;
+    @Autowired private TradeService tradeService;
+    @Autowired private UserHoldingService holdingService;
+    @Autowired private SymbolExposureService exposureService;
+    @Autowired private ClientSummaryService clientSummaryService;
+    @Autowired private TradeRepository tradeRepository;
+    @Autowired private UserHoldingRepository holdingRepository;
+    @Autowired private RealizedPositionRepository realizedRepository;
+
+    @Test
+    void budgetedReadsStayWithinBudget() {
+        long userId = 7001;
+        long otherUserId = 7002;
+        List<Trade> trades = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            trades.add(trade(userId, "SYM" + (i % 5), LocalDate.of(2024, 1, 1).plusDays(i)));
+        }
+        trades.add(trade(otherUserId, "SYM0", LocalDate.of(2024, 2, 1)));
+        List<Trade> saved = tradeRepository.saveAll(trades);
+        for (int i = 0; i < 5; i++) {
+            holdingRepository.save(holding(userId, "SYM" + i));
+        }
+        holdingRepository.save(holding(otherUserId, "SYM0"));
+        realizedRepository.save(RealizedPosition.builder()
+                .userId(userId).market(MARKET).symbol("SYM0")
+                .soldQuantity(BigDecimal.ONE).costBasis(new BigDecimal("100.00"))
+                .proceeds(new BigDecimal("110.00")).realizedProfitLoss(new BigDecimal("10.00"))
+                .sellCount(1).lastSellDate(LocalDate.of(2024, 3, 1)).updatedAt(LocalDateTime.now())
+                .build());
+        Long tradeId = saved.get(0).getId();
+
+        tradeService.getSellAllocations(userId, tradeId);
+        tradeService.getRealizedPositions(userId);
+        tradeService.getRealizedPosition(userId, MARKET, "SYM0");
+        tradeService.getTradeById(userId, tradeId);
+        tradeService.getUserTrades(userId, 0, 20, "buyDate", "desc");
+        tradeService.getUserTradesWithFilters(userId, MARKET, TradeStatus.OPEN, null, null, 0, 20);
+        tradeService.getUserTradesByStatus(userId, TradeStatus.OPEN, 0, 20);
+        tradeService.getUserTradesByDateRange(userId, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31), 0, 20);
+        tradeService.getAllTrades(0, 20);
+        String cursor = tradeService.getUserTradesByCursor(userId, null, 10, true).getNextCursor();
+        tradeService.getUserTradesByCursor(userId, cursor, 10, false);
+        tradeService.getAllTradesByCursor(null, 10, true);
+        tradeService.getUserPLSummary(userId);
+        tradeService.getUserPLSummaries(List.of(userId, otherUserId));
+        tradeService.getPortfolioStats();
+
+        holdingService.getUserHoldings(userId);
+        holdingService.getUserHoldingsPaged(userId, 0, 20);
+        holdingService.getUserHoldingsByCursor(userId, null, 2, true);
+        holdingService.getUserHoldingsByMarket(userId, MARKET);
+        holdingService.getUserHoldingSummary(userId);
+        holdingService.getUserHoldingSummaries(List.of(userId, otherUserId), true);
+        holdingService.getHoldingBySymbol(userId, MARKET, "SYM1");
+        holdingService.getAllHoldingsBySymbol("SYM0");
+        holdingService.getAllUsersWithHoldings();
+        holdingService.getUsersWithHoldingsAfter(Long.MIN_VALUE, 10);
+
+        exposureService.getTopExposures(null, 10);
+        exposureService.getTopExposures(MARKET, 10);
+
+        clientSummaryService.getSummaries(List.of(userId, otherUserId), true);
+        clientSummaryService.getSummariesPage(null, 1, false);
+
+        assertThat(guard.violations()).isEmpty();
+        assertThat(guard.calledMethods()).containsAll(budgetedMethods());
+    }
+
+    private static Set<String> budgetedMethods() {
+        Set<String> methods = new TreeSet<>();
+        for (Class<?> type : BUDGETED) {
+            for (Method method : type.getDeclaredMethods()) {
+                if (method.isAnnotationPresent(StatementBudget.class)) {
+                    methods.add(type.getSimpleName() + "." + method.getName());
+                }
+            }
+        }
+        return methods;
+    }
+
+    private static Trade trade(long userId, String symbol, LocalDate buyDate) {
+        return Trade.builder()
+                .userId(userId)
+                .market(MARKET)
+                .symbol(symbol)
+                .currency(MARKET.getDefaultCurrency())
+                .buyDate(buyDate)
+                .buyPrice(new BigDecimal("100.00"))
+                .buyQuantity(BigDecimal.TEN)
+                .status(TradeStatus.OPEN)
+                .build();
+    }
+
+    private static UserHolding holding(long userId, String symbol) {
+        return UserHolding.builder()
+                .userId(userId)
+                .market(MARKET)
+                .symbol(symbol)
+                .currency(MARKET.getDefaultCurrency())
+                .quantity(BigDecimal.TEN)
+                .averageBuyPrice(new BigDecimal("100.00"))
+                .boughtOn(LocalDate.of(2024, 1, 1))
+                .build();
+    }
+}
@@ -0,0 +1,117 @@
+package com.confiance.portfolio.service;
+
+import com.confiance.common.enums.Market;
+import com.confiance.common.enums.TradeStatus;
+import com.confiance.portfolio.dto.HoldingSummary;
+import com.confiance.portfolio.entity.Trade;
+import com.confiance.portfolio.entity.UserHolding;
+import com.confiance.portfolio.repository.TradeRepository;
+import com.confiance.portfolio.repository.UserHoldingRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The P&L and holding summaries are one aggregate query each, however many trades or holdings
+// the user has. Counted with Hibernate statistics, so a query added to either path fails here.
+@SpringBootTest
+@ActiveProfiles("test")
+class SummaryStatementCountTest {
+
+    private static final Market MARKET = Market.values()[0];
+
+    @Autowired private TradeService tradeService;
+    @Autowired private UserHoldingService holdingService;
+    @Autowired private TradeRepository tradeRepository;
+    @Autowired private UserHoldingRepository holdingRepository;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @Test
+    void plSummaryIsOneStatementRegardlessOfTradeCount() {
+        long smallUser = 8001;
+        long largeUser = 8002;
+        List<Trade> trades = new ArrayList<>();
+        trades.add(trade(smallUser, TradeStatus.OPEN));
+        for (int i = 0; i < 120; i++) {
+            TradeStatus status = i % 4 == 0 ? TradeStatus.CLOSED
+                    : i % 4 == 1 ? TradeStatus.PARTIALLY_SOLD : TradeStatus.OPEN;
+            trades.add(trade(largeUser, status));
+        }
+        tradeRepository.saveAll(trades);
+
+        assertThat(statementsFor(() -> tradeService.getUserPLSummary(smallUser))).isEqualTo(1);
+
+        statistics.clear();
+        TradeService.UserPLSummary summary = tradeService.getUserPLSummary(largeUser);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(summary.getOpenTradesCount()).isEqualTo(60);
+        assertThat(summary.getClosedTradesCount()).isEqualTo(30);
+        assertThat(summary.getPartiallySoldTradesCount()).isEqualTo(30);
+    }
+
+    @Test
+    void holdingSummaryIsOneStatementRegardlessOfHoldingCount() {
+        long userId = 8101;
+        List<UserHolding> holdings = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            holdings.add(holding(userId, "SUM" + i));
+        }
+        holdingRepository.saveAll(holdings);
+
+        statistics.clear();
+        HoldingSummary summary = holdingService.getUserHoldingSummary(userId);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(summary.getTotalHoldings()).isEqualTo(40);
+        assertThat(summary.getTotalInvestedAmount()).isEqualByComparingTo("40000.00");
+    }
+
+    private long statementsFor(Runnable call) {
+        statistics.clear();
+        call.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private static Trade trade(long userId, TradeStatus status) {
+        return Trade.builder()
+                .userId(userId)
+                .market(MARKET)
+                .symbol("PL1")
+                .currency(MARKET.getDefaultCurrency())
+                .buyDate(LocalDate.of(2024, 1, 1))
+                .buyPrice(new BigDecimal("100.00"))
+                .buyQuantity(BigDecimal.TEN)
+                .status(status)
+                .build();
+    }
+
+    private static UserHolding holding(long userId, String symbol) {
+        return UserHolding.builder()
+                .userId(userId)
+                .market(MARKET)
+                .symbol(symbol)
+                .currency(MARKET.getDefaultCurrency())
+                .quantity(BigDecimal.TEN)
+                .averageBuyPrice(new BigDecimal("100.00"))
+                .boughtOn(LocalDate.of(2024, 1, 1))
+                .build();
+    }
+}
@@ -0,0 +1,77 @@
+package com.confiance.portfolio.service;
+
+import com.confiance.common.enums.Market;
+import com.confiance.portfolio.dto.TradeFileFormat;
+import com.confiance.portfolio.entity.TradeOutboxEvent;
+import com.confiance.portfolio.entity.UserHolding;
+import com.confiance.portfolio.repository.TradeOutboxRepository;
+import com.confiance.portfolio.repository.TradeRepository;
+import com.confiance.portfolio.repository.UserHoldingRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// A body that breaks partway through still leaves the chunks committed before the break
+// in holdings and the outbox, not just in trades.
+@SpringBootTest(properties = "portfolio.import.chunk-size=2")
+@ActiveProfiles("test")
+class TradeImportFailureTest {
+
+    private static final Market MARKET = Market.values()[0];
+
+    @Autowired private TradeImportService importService;
+    @Autowired private TradeRepository tradeRepository;
+    @Autowired private UserHoldingRepository holdingRepository;
+    @Autowired private TradeOutboxRepository outboxRepository;
+
+    @Test
+    void readFailureStillAppliesCommittedRows() {
+        long userId = 8201;
+        StringBuilder csv = new StringBuilder("market,symbol,buydate,buyprice,buyquantity,status\n");
+        for (int i = 0; i < 5; i++) {
+            csv.append(MARKET.name()).append(",IMP1,2024-01-0").append(i + 1).append(",100.00,10,OPEN\n");
+        }
+
+        assertThatThrownBy(() -> importService.importTrades(userId, TradeFileFormat.CSV, failingAfter(csv.toString())))
+                .isInstanceOf(IOException.class);
+
+        assertThat(tradeRepository.countByUserId(userId)).isEqualTo(5);
+
+        List<UserHolding> holdings = holdingRepository.findByUserId(userId);
+        assertThat(holdings).hasSize(1);
+        assertThat(holdings.get(0).getSymbol()).isEqualTo("IMP1");
+        assertThat(holdings.get(0).getQuantity()).isEqualByComparingTo("50");
+
+        List<TradeOutboxEvent> events = outboxRepository.findAll().stream()
+                .filter(e -> e.getUserId() == userId)
+                .filter(e -> e.getEventType() == TradeOutboxEvent.EventType.TRADES_IMPORTED)
+                .toList();
+        assertThat(events).hasSize(1);
+        assertThat(events.get(0).getTradeCount()).isEqualTo(5);
+    }
+
+    // Serves the given lines, then fails the next read as a dropped connection would
+    private static InputStream failingAfter(String content) {
+        InputStream lines = new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                int b = lines.read();
+                if (b < 0) {
+                    throw new IOException("Connection reset");
+                }
+                return b;
+            }
+        };
+    }
+}
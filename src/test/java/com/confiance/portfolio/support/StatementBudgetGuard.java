@@ -0,0 +1,63 @@
+package com.confiance.portfolio.support;
+
+import com.confiance.portfolio.config.SqlStatementCounter;
+import com.confiance.portfolio.config.StatementBudget;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// Test-only aspect that measures every @StatementBudget call. It wraps the transaction, so
+// statements flushed at commit are counted too. Imported by StatementBudgetTest.
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class StatementBudgetGuard {
+
+    private final SqlStatementCounter statementCounter;
+
+    private final List<String> violations = Collections.synchronizedList(new ArrayList<>());
+    private final Set<String> calledMethods = Collections.synchronizedSet(new LinkedHashSet<>());
+
+    public StatementBudgetGuard(SqlStatementCounter statementCounter) {
+        this.statementCounter = statementCounter;
+    }
+
+    @Around("@annotation(budget)")
+    public Object check(ProceedingJoinPoint joinPoint, StatementBudget budget) throws Throwable {
+        String method = joinPoint.getSignature().getDeclaringType().getSimpleName() + "."
+                + joinPoint.getSignature().getName();
+        List<String> statements = new ArrayList<>();
+        Object result;
+        try (SqlStatementCounter.Scope scope = statementCounter.open(statements::add)) {
+            result = joinPoint.proceed();
+        }
+
+        calledMethods.add(method);
+        if (statements.size() > budget.value()) {
+            violations.add(method + " issued " + statements.size() + " SQL statements, budget is "
+                    + budget.value() + ": " + statements);
+        }
+        if (!budget.allowUnbounded()) {
+            statements.stream()
+                    .filter(UnboundedScans::isUnbounded)
+                    .findFirst()
+                    .ifPresent(sql -> violations.add(method + " ran an unbounded scan: " + sql));
+        }
+        return result;
+    }
+
+    public List<String> violations() {
+        return List.copyOf(violations);
+    }
+
+    public Set<String> calledMethods() {
+        return Set.copyOf(calledMethods);
+    }
+}
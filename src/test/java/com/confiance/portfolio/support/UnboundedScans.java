@@ -0,0 +1,26 @@
+package com.confiance.portfolio.support;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+// Recognises a SELECT that reads trades or user_holdings without a row limit or a predicate on
+// the user or primary key. A symbol predicate does not count: it still reads every holder.
+public final class UnboundedScans {
+
+    private static final Pattern GUARDED_TABLE = Pattern.compile("\\bfrom\\s+(trades|user_holdings)\\b");
+    // Matched on Hibernate's aliased column names, e.g. uh1_0.user_id=?
+    private static final Pattern KEYED = Pattern.compile("\\b(user_id|id)\\s*(=|in\\b|between\\b)");
+    // MySQL and H2 spellings of a row limit
+    private static final Pattern LIMITED = Pattern.compile("\\blimit\\b|\\bfetch\\s+(first|next)\\b");
+
+    private UnboundedScans() {
+    }
+
+    public static boolean isUnbounded(String sql) {
+        String lower = sql.stripLeading().toLowerCase(Locale.ROOT);
+        if (!lower.startsWith("select") || !GUARDED_TABLE.matcher(lower).find()) {
+            return false;
+        }
+        return !LIMITED.matcher(lower).find() && !KEYED.matcher(lower).find();
+    }
+}
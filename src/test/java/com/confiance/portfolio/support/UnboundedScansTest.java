@@ -0,0 +1,39 @@
+package com.confiance.portfolio.support;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UnboundedScansTest {
+
+    @Test
+    void keyedAndLimitedReadsAreBounded() {
+        assertThat(UnboundedScans.isUnbounded(
+                "select t1_0.id,t1_0.symbol from trades t1_0 where t1_0.user_id=? order by t1_0.buy_date desc")).isFalse();
+        assertThat(UnboundedScans.isUnbounded(
+                "select t1_0.id from trades t1_0 where t1_0.id in (?,?,?)")).isFalse();
+        assertThat(UnboundedScans.isUnbounded(
+                "select uh1_0.id from user_holdings uh1_0 where uh1_0.symbol=? order by uh1_0.quantity desc limit ?")).isFalse();
+        assertThat(UnboundedScans.isUnbounded(
+                "select uh1_0.id from user_holdings uh1_0 where uh1_0.symbol=? order by uh1_0.quantity desc fetch first ? rows only")).isFalse();
+    }
+
+    @Test
+    void symbolOnlyAndFullReadsAreUnbounded() {
+        assertThat(UnboundedScans.isUnbounded(
+                "select uh1_0.id from user_holdings uh1_0 where uh1_0.symbol=? and uh1_0.quantity>0")).isTrue();
+        assertThat(UnboundedScans.isUnbounded(
+                "select t1_0.id from trades t1_0 where t1_0.symbol=? and t1_0.status in ('OPEN','PARTIALLY_SOLD')")).isTrue();
+        assertThat(UnboundedScans.isUnbounded("select count(*) from trades t1_0")).isTrue();
+        assertThat(UnboundedScans.isUnbounded(
+                "select distinct uh1_0.user_id from user_holdings uh1_0 where uh1_0.quantity>0")).isTrue();
+    }
+
+    @Test
+    void otherTablesAndWritesAreIgnored() {
+        assertThat(UnboundedScans.isUnbounded("select p1_0.id from portfolio_stats_slots p1_0")).isFalse();
+        assertThat(UnboundedScans.isUnbounded("update trades set status=? where symbol=?")).isFalse();
+        assertThat(UnboundedScans.isUnbounded(
+                "select sa1_0.id from sell_allocations sa1_0 where sa1_0.trade_id=?")).isFalse();
+    }
+}
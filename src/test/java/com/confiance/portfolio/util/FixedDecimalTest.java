@@ -0,0 +1,123 @@
+package com.confiance.portfolio.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Every operation is checked against the BigDecimal expression it stands in for, including the
+// result scale. Seeded, so a failure reproduces.
+class FixedDecimalTest {
+
+    private static final int ROUNDS = 20_000;
+
+    private final Random random = new Random(20240613L);
+
+    @Test
+    void arithmeticMatchesBigDecimal() {
+        for (int i = 0; i < ROUNDS; i++) {
+            BigDecimal a = randomDecimal();
+            BigDecimal b = randomDecimal();
+            FixedDecimal fa = FixedDecimal.of(a);
+            FixedDecimal fb = FixedDecimal.of(b);
+            String operands = a + ", " + b;
+
+            int alignedScale = Math.max(a.scale(), b.scale());
+            BigDecimal alignedA = a.setScale(alignedScale);
+            BigDecimal alignedB = b.setScale(alignedScale);
+            assertExactOrOverflow(() -> fa.multiply(fb), a.multiply(b), operands);
+            assertExactOrOverflow(() -> fa.add(fb), a.add(b), operands, alignedA, alignedB);
+            assertExactOrOverflow(() -> fa.subtract(fb), a.subtract(b), operands, alignedA, alignedB);
+
+            int newScale = random.nextInt(7);
+            assertExactOrOverflow(() -> fa.setScale(newScale), a.setScale(newScale, RoundingMode.HALF_UP), operands);
+
+            if (b.signum() != 0) {
+                int resultScale = random.nextInt(7);
+                assertMatchesOrThrows(() -> fa.divide(fb, resultScale), a.divide(b, resultScale, RoundingMode.HALF_UP),
+                        operands);
+            }
+        }
+    }
+
+    @Test
+    void tiesRoundHalfUpAwayFromZero() {
+        assertThat(fixed("0.125").setScale(2).toBigDecimal()).isEqualTo(new BigDecimal("0.13"));
+        assertThat(fixed("-0.125").setScale(2).toBigDecimal()).isEqualTo(new BigDecimal("-0.13"));
+        assertThat(fixed("2.5").setScale(0).toBigDecimal()).isEqualTo(new BigDecimal("3"));
+        assertThat(fixed("-2.5").setScale(0).toBigDecimal()).isEqualTo(new BigDecimal("-3"));
+        assertThat(fixed("0.124999").setScale(2).toBigDecimal()).isEqualTo(new BigDecimal("0.12"));
+
+        assertThat(fixed("1").divide(fixed("8"), 2).toBigDecimal()).isEqualTo(new BigDecimal("0.13"));
+        assertThat(fixed("-1").divide(fixed("8"), 2).toBigDecimal()).isEqualTo(new BigDecimal("-0.13"));
+        assertThat(fixed("1").divide(fixed("-8"), 2).toBigDecimal()).isEqualTo(new BigDecimal("-0.13"));
+        assertThat(fixed("5").divide(fixed("2"), 0).toBigDecimal()).isEqualTo(new BigDecimal("3"));
+        assertThat(fixed("-5").divide(fixed("-2"), 0).toBigDecimal()).isEqualTo(new BigDecimal("3"));
+        assertThat(fixed("1").divide(fixed("3"), 4).toBigDecimal()).isEqualTo(new BigDecimal("0.3333"));
+        assertThat(fixed("2").divide(fixed("3"), 4).toBigDecimal()).isEqualTo(new BigDecimal("0.6667"));
+    }
+
+    @Test
+    void outOfRangeValuesThrowInsteadOfOverflowing() {
+        assertThatThrownBy(() -> FixedDecimal.of(new BigDecimal("1234567890123456789.5")))
+                .isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> FixedDecimal.of(new BigDecimal("1E+3"))).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> FixedDecimal.of(new BigDecimal("0.0000000000000000001")))
+                .isInstanceOf(ArithmeticException.class);
+
+        FixedDecimal large = new FixedDecimal(Long.MAX_VALUE / 2 + 1, 2);
+        assertThatThrownBy(() -> large.add(large)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> large.multiply(fixed("2"))).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> large.setScale(4)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> new FixedDecimal(Long.MIN_VALUE, 0).divide(fixed("-1"), 0))
+                .isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> fixed("1").divide(fixed("0"), 2)).isInstanceOf(ArithmeticException.class);
+    }
+
+    // Exact operations only fail when the result, or an operand aligned to the result scale,
+    // does not fit in a long
+    private static void assertExactOrOverflow(Supplier<FixedDecimal> operation, BigDecimal expected, String operands,
+                                              BigDecimal... aligned) {
+        FixedDecimal result;
+        try {
+            result = operation.get();
+        } catch (ArithmeticException e) {
+            int bits = expected.unscaledValue().bitLength();
+            for (BigDecimal operand : aligned) {
+                bits = Math.max(bits, operand.unscaledValue().bitLength());
+            }
+            assertThat(bits).as(operands).isGreaterThan(63);
+            return;
+        }
+        assertThat(result.toBigDecimal()).as(operands).isEqualTo(expected);
+    }
+
+    // Divide may overflow on an intermediate even when the quotient fits; callers fall back then
+    private static void assertMatchesOrThrows(Supplier<FixedDecimal> operation, BigDecimal expected, String operands) {
+        FixedDecimal result;
+        try {
+            result = operation.get();
+        } catch (ArithmeticException e) {
+            return;
+        }
+        assertThat(result.toBigDecimal()).as(operands).isEqualTo(expected);
+    }
+
+    // Mostly money-sized values, with some near the long range so overflow paths are exercised
+    private BigDecimal randomDecimal() {
+        int digits = random.nextInt(10) == 0 ? 16 + random.nextInt(3) : 1 + random.nextInt(10);
+        long bound = (long) Math.pow(10, digits);
+        long unscaled = Math.floorMod(random.nextLong(), bound);
+        if (random.nextBoolean()) unscaled = -unscaled;
+        return BigDecimal.valueOf(unscaled, random.nextInt(7));
+    }
+
+    private static FixedDecimal fixed(String value) {
+        return FixedDecimal.of(new BigDecimal(value));
+    }
+}
@@ -0,0 +1,112 @@
+package com.confiance.portfolio.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Each formula is compared with the BigDecimal expression it replaced, on random inputs that
+// take the fixed-point path and on inputs large enough to force the BigDecimal fallback.
+class PositionMathTest {
+
+    private static final int ROUNDS = 20_000;
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private final Random random = new Random(20240614L);
+
+    @Test
+    void formulasMatchBigDecimal() {
+        for (int i = 0; i < ROUNDS; i++) {
+            assertFormulas(quantity(), price(), price(), quantity(), price());
+        }
+    }
+
+    @Test
+    void overflowFallsBackToBigDecimal() {
+        // Too many digits for a long
+        BigDecimal hugeQuantity = new BigDecimal("123456789012345678901.2345");
+        // Each fits, but the products overflow a long
+        BigDecimal bigQuantity = new BigDecimal("912345678901.2345");
+        BigDecimal bigPrice = new BigDecimal("98765432.10");
+
+        assertFormulas(hugeQuantity, new BigDecimal("101.25"), new BigDecimal("99.75"),
+                BigDecimal.ONE, new BigDecimal("100.00"));
+        assertFormulas(bigQuantity, bigPrice, new BigDecimal("12345678.99"), bigQuantity, bigPrice);
+        assertThat(PositionMath.value(bigQuantity, bigPrice))
+                .isEqualTo(bigQuantity.multiply(bigPrice).setScale(2, RoundingMode.HALF_UP));
+    }
+
+    @Test
+    void percentageTiesRoundHalfUp() {
+        // 1/8 = 0.125, so 0.00125 * 100 = 0.125% rounds to 0.13
+        assertThat(PositionMath.percentage(new BigDecimal("1"), new BigDecimal("800")))
+                .isEqualTo(new BigDecimal("0.13"));
+        assertThat(PositionMath.percentage(new BigDecimal("-1"), new BigDecimal("800")))
+                .isEqualTo(new BigDecimal("-0.13"));
+        assertThat(PositionMath.percentage(new BigDecimal("1"), new BigDecimal("3")))
+                .isEqualTo(new BigDecimal("33.33"));
+        assertThat(PositionMath.percentage(new BigDecimal("2"), new BigDecimal("3")))
+                .isEqualTo(new BigDecimal("66.67"));
+        assertThat(PositionMath.value(new BigDecimal("0.5"), new BigDecimal("0.05")))
+                .isEqualTo(new BigDecimal("0.03"));
+        assertThat(PositionMath.difference(new BigDecimal("0.005"), BigDecimal.ZERO))
+                .isEqualTo(new BigDecimal("0.01"));
+        assertThat(PositionMath.difference(new BigDecimal("-0.005"), BigDecimal.ZERO))
+                .isEqualTo(new BigDecimal("-0.01"));
+    }
+
+    private static void assertFormulas(BigDecimal quantity, BigDecimal buyPrice, BigDecimal sellPrice,
+                                       BigDecimal addedQuantity, BigDecimal addedPrice) {
+        String inputs = Arrays.asList(quantity, buyPrice, sellPrice, addedQuantity, addedPrice).toString();
+
+        assertThat(PositionMath.value(quantity, buyPrice)).as(inputs)
+                .isEqualTo(quantity.multiply(buyPrice).setScale(2, RoundingMode.HALF_UP));
+
+        BigDecimal profitLoss = sellPrice.multiply(quantity).subtract(buyPrice.multiply(quantity))
+                .setScale(2, RoundingMode.HALF_UP);
+        assertThat(PositionMath.realizedPL(sellPrice, buyPrice, quantity)).as(inputs).isEqualTo(profitLoss);
+
+        BigDecimal costBasis = buyPrice.multiply(quantity);
+        if (costBasis.signum() != 0) {
+            assertThat(PositionMath.returnOnCost(profitLoss, buyPrice, quantity)).as(inputs)
+                    .isEqualTo(percentage(profitLoss, costBasis));
+            assertThat(PositionMath.percentage(profitLoss, costBasis)).as(inputs)
+                    .isEqualTo(percentage(profitLoss, costBasis));
+        }
+
+        assertThat(PositionMath.difference(sellPrice, buyPrice)).as(inputs)
+                .isEqualTo(sellPrice.subtract(buyPrice).setScale(2, RoundingMode.HALF_UP));
+
+        BigDecimal totalQuantity = quantity.add(addedQuantity);
+        if (totalQuantity.signum() != 0) {
+            assertThat(PositionMath.averagePrice(quantity, buyPrice, addedQuantity, addedPrice)).as(inputs)
+                    .isEqualTo(quantity.multiply(buyPrice).add(addedQuantity.multiply(addedPrice))
+                            .divide(totalQuantity, 2, RoundingMode.HALF_UP));
+        }
+
+        List<BigDecimal> values = new ArrayList<>(Arrays.asList(quantity, null, buyPrice, sellPrice));
+        assertThat(PositionMath.total(values, v -> v)).as(inputs)
+                .isEqualTo(BigDecimal.ZERO.add(quantity).add(buyPrice).add(sellPrice));
+    }
+
+    private static BigDecimal percentage(BigDecimal numerator, BigDecimal denominator) {
+        return numerator.divide(denominator, 4, RoundingMode.HALF_UP).multiply(HUNDRED).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    // Scale 4, as the quantity columns are
+    private BigDecimal quantity() {
+        return BigDecimal.valueOf(1 + Math.floorMod(random.nextLong(), 100_000_000L), 4);
+    }
+
+    // Scale 2, as the price columns are; occasionally negative to cover losses and sign handling
+    private BigDecimal price() {
+        long unscaled = Math.floorMod(random.nextLong(), 10_000_000L);
+        return BigDecimal.valueOf(random.nextInt(20) == 0 ? -unscaled : unscaled, 2);
+    }
+}